@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.apps.pipelines;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.wayang.basic.rest.RestAPIClient;
+import org.apache.wayang.core.api.Configuration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process HTTP server that serves fixed payloads, so that benchmarks measure the REST source rather than a
+ * remote API.
+ */
+public class LocalRestServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    public LocalRestServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "local-rest-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(this.executor);
+        this.server.start();
+    }
+
+    /**
+     * Creates a {@link Configuration} that pins the client settings the benchmarks depend on, so that results are
+     * comparable across runs: hedging is off, as duplicate requests would distort the measurements, the rate is
+     * unlimited, and compression is asked for, so that {@link #serve(String, String, byte[], boolean)} alone
+     * decides whether a payload is sent compressed.
+     *
+     * @return the {@link Configuration}
+     */
+    public static Configuration createClientConfiguration() {
+        Configuration configuration = new Configuration();
+        configuration.setProperty(RestAPIClient.HEDGE_PERCENTILE_KEY, "0");
+        configuration.setProperty(RestAPIClient.RATE_LIMIT_KEY, "0");
+        configuration.setProperty(RestAPIClient.COMPRESSION_KEY, "true");
+        return configuration;
+    }
+
+    /**
+     * Serves a payload under the given path.
+     *
+     * @param path        the path, e.g., {@code /forecast}
+     * @param contentType the {@code Content-Type} of the payload
+     * @param payload     the response body
+     * @return the URL of the payload
+     */
+    public String serve(String path, String contentType, byte[] payload) {
+        return this.serve(path, contentType, payload, false);
+    }
+
+    /**
+     * Serves a payload under the given path, gzip-compressed to clients that accept it if requested. The payload
+     * is compressed once up front, so that the benchmarks do not measure the compression.
+     *
+     * @param path          the path, e.g., {@code /forecast}
+     * @param contentType   the {@code Content-Type} of the payload
+     * @param payload       the response body
+     * @param isCompressing whether to send the payload gzip-compressed
+     * @return the URL of the payload
+     */
+    public String serve(String path, String contentType, byte[] payload, boolean isCompressing) {
+        byte[] compressedPayload = isCompressing ? gzip(payload) : null;
+        this.server.createContext(path, exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            byte[] body = payload;
+            if (compressedPayload != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                body = compressedPayload;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
+            }
+        });
+        return String.format("http://%s:%d%s",
+                this.server.getAddress().getHostString(), this.server.getAddress().getPort(), path);
+    }
+
+    private static byte[] gzip(byte[] payload) {
+        ByteArrayOutputStream compressedPayload = new ByteArrayOutputStream(payload.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressedPayload)) {
+            out.write(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressedPayload.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.apps.pipelines;
+
+import org.apache.wayang.api.JavaPlanBuilder;
+import org.apache.wayang.basic.data.Tuple2;
+import org.apache.wayang.basic.rest.RestAPIBatch;
+import org.apache.wayang.basic.rest.RestAPISchema;
+import org.apache.wayang.basic.rest.RestAPIStatistics;
+import org.apache.wayang.basic.operators.RestAPISource;
+import org.apache.wayang.core.api.Configuration;
+import org.apache.wayang.core.api.WayangContext;
+import org.apache.wayang.java.Java;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the Forecast and HubSpot aggregations of {@link Pipeline}: once end to end against a
+ * {@link LocalRestServer} and once only the aggregation functions over records that have already been parsed,
+ * for the Forecast rows both as {@link JSONObject}s and as {@link RestAPIBatch}es.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PipelineAggregationBenchmark {
+
+    private static final String MONTH = "2025-01-01";
+
+    @Param({"100", "10000", "100000"})
+    public int numRecords;
+
+    private LocalRestServer server;
+
+    private String forecastURL, hubspotURL;
+
+    private JavaPlanBuilder planBuilder;
+
+    private Path statisticsFile;
+
+    private List<JSONObject> forecastRows, hubspotDeals;
+
+    private List<RestAPIBatch> forecastBatches;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Forecast rows are about 80 bytes each.
+        byte[] forecastPayload = RestAPIPayloads.forecast(RestAPIPayloads.Format.JSON_ARRAY, this.numRecords * 80);
+        byte[] hubspotPayload = RestAPIPayloads.hubspot(this.numRecords);
+        this.server = new LocalRestServer();
+        this.forecastURL = this.server.serve("/forecast", "application/json", forecastPayload);
+        this.hubspotURL = this.server.serve("/hubspot", "application/json", hubspotPayload);
+
+        this.statisticsFile = Files.createTempFile("rest-api-statistics", ".json");
+        Files.delete(this.statisticsFile);
+        Configuration configuration = LocalRestServer.createClientConfiguration();
+        configuration.setProperty(RestAPIStatistics.PATH_KEY, this.statisticsFile.toString());
+        configuration.setProperty(RestAPISource.CardinalityEstimator.PROBE_KEY, "false");
+        WayangContext wayangContext = new WayangContext(configuration).withPlugin(Java.basicPlugin());
+        this.planBuilder = new JavaPlanBuilder(wayangContext).withJobName("PipelineAggregationBenchmark");
+
+        this.forecastRows = toList(new JSONArray(new String(forecastPayload, StandardCharsets.UTF_8)));
+        this.hubspotDeals = toList(new JSONObject(new String(hubspotPayload, StandardCharsets.UTF_8)).getJSONArray("results"));
+        RestAPISchema forecastSchema = new RestAPISchema()
+                .withField("Person", RestAPISchema.FieldType.STRING)
+                .withField("Roles", RestAPISchema.FieldType.STRING)
+                .withField("Jan 2025", RestAPISchema.FieldType.DOUBLE);
+        this.forecastBatches = new ArrayList<>();
+        forecastSchema.toBatches(4096).apply(this.forecastRows).forEach(this.forecastBatches::add);
+    }
+
+    private static List<JSONObject> toList(JSONArray array) {
+        List<JSONObject> list = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            list.add(array.getJSONObject(i));
+        }
+        return list;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.server.close();
+        Files.deleteIfExists(this.statisticsFile);
+    }
+
+    @Benchmark
+    public ForecastResult forecastPipeline() {
+        return Pipeline.ForecastPipeline(this.planBuilder, this.forecastURL);
+    }
+
+    @Benchmark
+    public double hubspotPipeline() {
+        return Pipeline.HubspotPipeline(this.planBuilder, this.hubspotURL, MONTH);
+    }
+
+    @Benchmark
+    public float forecastAggregation() {
+        List<String> allowedRoles = Arrays.asList("DK", "US inc.");
+        float totalFTEs = 0.0f;
+        for (JSONObject row : this.forecastRows) {
+            if (allowedRoles.contains(row.optString("Roles", ""))) {
+                Tuple2<Float, String> fte = Pipeline.toForecastFTE(row);
+                totalFTEs += fte.field0;
+            }
+        }
+        return totalFTEs;
+    }
+
+    @Benchmark
+    public float forecastBatchAggregation() {
+        List<String> allowedRoles = Arrays.asList("DK", "US inc.");
+        float totalFTEs = 0.0f;
+        for (RestAPIBatch batch : this.forecastBatches) {
+            totalFTEs += Pipeline.toForecastFTEs(batch.filterStrings("Roles", allowedRoles::contains)).field0;
+        }
+        return totalFTEs;
+    }
+
+    @Benchmark
+    public double hubspotAggregation() {
+        YearMonth filterMonth = YearMonth.of(2025, 1);
+        double totalFTEs = 0.0;
+        for (JSONObject deal : this.hubspotDeals) {
+            if (!deal.has("properties")) continue;
+            JSONObject properties = deal.getJSONObject("properties");
+            if (Pipeline.hasHubspotFTE(properties)) {
+                totalFTEs += Pipeline.toHubspotFTE(properties, filterMonth);
+            }
+        }
+        return totalFTEs;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.apps.pipelines;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates payloads that resemble the responses of the Forecast and HubSpot APIs, with a fixed seed so that
+ * benchmark runs are comparable.
+ */
+public class RestAPIPayloads {
+
+    private static final String[] ROLES = {"DK", "US inc.", "UK", "DE"};
+
+    /**
+     * The layout of a payload.
+     */
+    public enum Format {
+
+        /**
+         * A JSON array of Forecast rows.
+         */
+        JSON_ARRAY,
+
+        /**
+         * A single JSON object that wraps the Forecast rows.
+         */
+        JSON_OBJECT,
+
+        /**
+         * Forecast rows as CSV, which the source decodes by their {@code Content-Type}.
+         */
+        CSV
+    }
+
+    /**
+     * Parses a size such as {@code 1KB}, {@code 100MB}, or {@code 1GB}.
+     */
+    public static int parseSize(String size) {
+        String normalizedSize = size.trim().toUpperCase(Locale.ROOT);
+        long factor = 1L;
+        if (normalizedSize.endsWith("KB")) factor = 1024L;
+        else if (normalizedSize.endsWith("MB")) factor = 1024L * 1024;
+        else if (normalizedSize.endsWith("GB")) factor = 1024L * 1024 * 1024;
+        String digits = normalizedSize.replaceAll("[^0-9]", "");
+        return (int) Math.min(Integer.MAX_VALUE - 8, Long.parseLong(digits) * factor);
+    }
+
+    /**
+     * Generates Forecast export rows of about the given size.
+     *
+     * @param format   the layout
+     * @param numBytes the minimum size of the payload
+     * @return the UTF-8 encoded payload
+     */
+    public static byte[] forecast(Format format, int numBytes) {
+        Random random = new Random(42L);
+        StringBuilder payload = new StringBuilder(numBytes + 256);
+        switch (format) {
+            case CSV:
+                payload.append("Person,Roles,Jan 2025,Feb 2025\n");
+                for (int i = 0; payload.length() < numBytes; i++) {
+                    payload.append("Person ").append(i).append(',')
+                            .append(ROLES[random.nextInt(ROLES.length)]).append(',')
+                            .append(random.nextInt(17250) / 100d).append(',')
+                            .append(random.nextInt(17250) / 100d).append('\n');
+                }
+                break;
+            case JSON_OBJECT:
+                payload.append("{\"rows\":[");
+                appendForecastRows(payload, random, numBytes);
+                payload.append("]}");
+                break;
+            default:
+                payload.append('[');
+                appendForecastRows(payload, random, numBytes);
+                payload.append(']');
+        }
+        return toBytes(payload);
+    }
+
+    private static void appendForecastRows(StringBuilder payload, Random random, int numBytes) {
+        for (int i = 0; payload.length() < numBytes; i++) {
+            if (i > 0) payload.append(',');
+            payload.append("{\"Person\":\"Person ").append(i)
+                    .append("\",\"Roles\":\"").append(ROLES[random.nextInt(ROLES.length)])
+                    .append("\",\"Jan 2025\":\"").append(random.nextInt(17250) / 100d)
+                    .append("\",\"Feb 2025\":\"").append(random.nextInt(17250) / 100d)
+                    .append("\"}");
+        }
+    }
+
+    /**
+     * Generates a page of HubSpot deals, half of which start in January 2025.
+     *
+     * @param numDeals the number of deals
+     * @return the UTF-8 encoded payload
+     */
+    public static byte[] hubspot(int numDeals) {
+        Random random = new Random(42L);
+        StringBuilder payload = new StringBuilder("{\"results\":[");
+        for (int i = 0; i < numDeals; i++) {
+            if (i > 0) payload.append(',');
+            int startMonth = random.nextBoolean() ? 1 : 2 + random.nextInt(11);
+            payload.append("{\"id\":\"").append(i).append("\",\"properties\":{")
+                    .append(String.format(Locale.ROOT, "\"start_date\":\"2025-%02d-01\",", startMonth))
+                    .append(String.format(Locale.ROOT, "\"end_date\":\"2025-%02d-28\",", Math.min(12, startMonth + random.nextInt(6))))
+                    .append("\"hs_deal_stage_probability\":\"").append(random.nextInt(100) / 100d).append("\",")
+                    .append("\"fte_s_\":\"").append(random.nextInt(50) / 10d).append("\"}}");
+        }
+        payload.append("]}");
+        return toBytes(payload);
+    }
+
+    private static byte[] toBytes(StringBuilder payload) {
+        return payload.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
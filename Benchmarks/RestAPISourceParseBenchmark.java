@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.apps.pipelines;
+
+import org.apache.wayang.java.operators.JavaRestAPISource;
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks how {@link JavaRestAPISource} fetches and parses responses of different sizes and layouts from a
+ * {@link LocalRestServer}: buffered into a {@link JSONArray} and streamed, each uncompressed and gzip-compressed.
+ * <p>Run with {@code -prof gc} to see the allocation rate.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class RestAPISourceParseBenchmark {
+
+    @Param({"1KB", "64KB", "1MB", "16MB", "100MB", "500MB"})
+    public String payloadSize;
+
+    @Param({"JSON_ARRAY", "JSON_OBJECT", "CSV"})
+    public RestAPIPayloads.Format format;
+
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    private LocalRestServer server;
+
+    private JavaRestAPISource source;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] payload = RestAPIPayloads.forecast(this.format, RestAPIPayloads.parseSize(this.payloadSize));
+        String contentType = this.format == RestAPIPayloads.Format.CSV ? "text/csv" : "application/json";
+        this.server = new LocalRestServer();
+        String url = this.server.serve("/forecast", contentType, payload, this.compressed);
+        this.source = new JavaRestAPISource(url, "GET", "", null);
+        this.source.open(LocalRestServer.createClientConfiguration());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.server.close();
+    }
+
+    @Benchmark
+    public JSONArray fetch() {
+        return this.source.fetchDataFromAPI();
+    }
+
+    @Benchmark
+    public void stream(Blackhole blackhole) {
+        this.source.streamDataFromAPI().forEach(blackhole::consume);
+    }
+}
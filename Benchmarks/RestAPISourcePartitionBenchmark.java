@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.apps.pipelines;
+
+import org.apache.wayang.basic.operators.LocalCallbackSink;
+import org.apache.wayang.basic.operators.MapOperator;
+import org.apache.wayang.basic.operators.RestAPISource;
+import org.apache.wayang.basic.rest.RestAPIPartitioning;
+import org.apache.wayang.basic.rest.RestAPIStatistics;
+import org.apache.wayang.core.api.Configuration;
+import org.apache.wayang.core.api.WayangContext;
+import org.apache.wayang.core.plan.wayangplan.WayangPlan;
+import org.apache.wayang.java.Java;
+import org.apache.wayang.spark.Spark;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Benchmarks a {@link RestAPISource} whose requests are split into pages by a {@link RestAPIPartitioning}, once on
+ * the Java platform, which fans the pages out over threads, and once on Spark with {@code local[*]}, which
+ * distributes them over the partitions of an RDD. The records are mapped to their size before they leave the
+ * platform, as {@link JSONObject}s are not serializable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RestAPISourcePartitionBenchmark {
+
+    @Param({"java", "spark"})
+    public String platform;
+
+    @Param({"1", "16", "64"})
+    public int numPages;
+
+    private LocalRestServer server;
+
+    private String url;
+
+    private WayangContext wayangContext;
+
+    private Path statisticsFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] payload = RestAPIPayloads.forecast(RestAPIPayloads.Format.JSON_ARRAY, RestAPIPayloads.parseSize("64KB"));
+        this.server = new LocalRestServer();
+        this.url = this.server.serve("/forecast", "application/json", payload);
+
+        this.statisticsFile = Files.createTempFile("rest-api-statistics", ".json");
+        Files.delete(this.statisticsFile);
+        Configuration configuration = LocalRestServer.createClientConfiguration();
+        configuration.setProperty(RestAPIStatistics.PATH_KEY, this.statisticsFile.toString());
+        configuration.setProperty(RestAPISource.CardinalityEstimator.PROBE_KEY, "false");
+        configuration.setProperty("spark.master", "local[*]");
+        this.wayangContext = "spark".equals(this.platform)
+                ? new WayangContext(configuration).withPlugin(Spark.basicPlugin())
+                : new WayangContext(configuration).withPlugin(Java.basicPlugin());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.server.close();
+        Files.deleteIfExists(this.statisticsFile);
+    }
+
+    @Benchmark
+    public void fetch(Blackhole blackhole) {
+        RestAPISource source = new RestAPISource(this.url, "GET", "", null);
+        source.setPartitioning(RestAPIPartitioning.byPages("page", 1, this.numPages));
+        MapOperator<JSONObject, Integer> sizes = new MapOperator<>(JSONObject::length, JSONObject.class, Integer.class);
+        Consumer<Integer> callback = blackhole::consume;
+        LocalCallbackSink<Integer> sink = new LocalCallbackSink<>(callback, Integer.class);
+        source.connectTo(0, sizes, 0);
+        sizes.connectTo(0, sink, 0);
+        this.wayangContext.execute(new WayangPlan(sink));
+    }
+}
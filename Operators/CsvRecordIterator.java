@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Pulls {@link JSONObject}s one by one from comma-separated values on a {@link Reader} as described in
+ * RFC 4180: fields may be quoted, quoted fields may contain commas, line breaks and doubled quotes, and records
+ * end with either {@code CRLF} or {@code LF}. The first record names the fields of all further records; blank
+ * lines are skipped and missing values are empty strings. Unquoted fields are trimmed.
+ * <p>If a projection is given, only the named fields are kept and all other fields are skipped without
+ * materializing their values.</p>
+ */
+public class CsvRecordIterator implements Iterator<JSONObject>, AutoCloseable {
+
+    private static final int END_OF_FIELD = ',', END_OF_RECORD = '\n', END_OF_INPUT = -1, NOTHING = -2;
+
+    private final Reader reader;
+
+    /**
+     * Released once the input is exhausted or this instance is closed.
+     */
+    private final Closeable resource;
+
+    /**
+     * The field name per column or {@code null} for columns that are not projected.
+     */
+    private final String[] fieldNames;
+
+    private final char[] buffer = new char[8192];
+
+    private int position = 0, limit = 0;
+
+    /**
+     * A character that was read ahead and has to be read again or {@link #NOTHING}.
+     */
+    private int pushedBack = NOTHING;
+
+    /**
+     * Collects the value of the current field.
+     */
+    private final StringBuilder field = new StringBuilder();
+
+    /**
+     * Whether the last field read neither was quoted nor contained non-whitespace characters.
+     */
+    private boolean isBlankField;
+
+    private JSONObject next;
+
+    private boolean isExhausted = false, isClosed = false;
+
+    /**
+     * Creates a new instance and reads the header.
+     *
+     * @param reader     provides the comma-separated values
+     * @param resource   released together with the {@code reader}, e.g., the underlying connection
+     * @param projection names of the fields to keep or {@code null} to keep all fields
+     */
+    public CsvRecordIterator(Reader reader, Closeable resource, Set<String> projection) {
+        this.reader = reader;
+        this.resource = () -> {
+            try {
+                reader.close();
+            } finally {
+                resource.close();
+            }
+        };
+        try {
+            int first = this.read();
+            if (first != '\uFEFF') this.unread(first);
+            List<String> header = new ArrayList<>();
+            int terminator;
+            do {
+                terminator = this.readField(true);
+                String fieldName = this.field.toString();
+                header.add(projection == null || projection.contains(fieldName) ? fieldName : null);
+            } while (terminator == END_OF_FIELD);
+            this.fieldNames = header.toArray(new String[0]);
+            if (terminator == END_OF_INPUT) this.isExhausted = true;
+        } catch (IOException e) {
+            this.close();
+            throw new UncheckedIOException("Could not read the CSV header.", e);
+        }
+        if (this.isExhausted) this.close();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.next == null && !this.isExhausted) {
+            try {
+                this.next = this.readNext();
+            } catch (IOException e) {
+                this.close();
+                throw new UncheckedIOException("Could not read the next CSV record.", e);
+            } catch (RuntimeException e) {
+                this.close();
+                throw e;
+            }
+            if (this.next == null) {
+                this.isExhausted = true;
+                this.close();
+            }
+        }
+        return this.next != null;
+    }
+
+    @Override
+    public JSONObject next() {
+        if (!this.hasNext()) throw new NoSuchElementException();
+        JSONObject record = this.next;
+        this.next = null;
+        return record;
+    }
+
+    private JSONObject readNext() throws IOException {
+        while (true) {
+            JSONObject record = new JSONObject();
+            int column = 0, terminator;
+            do {
+                boolean isProjected = column < this.fieldNames.length && this.fieldNames[column] != null;
+                terminator = this.readField(isProjected);
+                if (isProjected) record.put(this.fieldNames[column], this.field.toString());
+                column++;
+            } while (terminator == END_OF_FIELD);
+
+            if (column == 1 && this.isBlankField) {
+                // A blank line or the end of the input.
+                if (terminator == END_OF_INPUT) return null;
+                continue;
+            }
+            for (; column < this.fieldNames.length; column++) {
+                if (this.fieldNames[column] != null) record.put(this.fieldNames[column], "");
+            }
+            if (terminator == END_OF_INPUT) this.isExhausted = true;
+            return record;
+        }
+    }
+
+    /**
+     * Reads the next field.
+     *
+     * @param isKept whether to collect the value of the field in {@link #field}
+     * @return whether the field ended the record, the input or neither
+     */
+    private int readField(boolean isKept) throws IOException {
+        this.field.setLength(0);
+        this.isBlankField = true;
+        int c = this.read();
+        while (c == ' ' || c == '\t') c = this.read();
+
+        if (c == '"') {
+            this.isBlankField = false;
+            while (true) {
+                c = this.read();
+                if (c == END_OF_INPUT) return END_OF_INPUT;
+                if (c == '"') {
+                    c = this.read();
+                    if (c != '"') break;
+                }
+                if (isKept) this.field.append((char) c);
+            }
+            // Be lenient about characters between the closing quote and the end of the field.
+            while (c != END_OF_INPUT && c != ',' && c != '\r' && c != '\n') {
+                if (isKept && !Character.isWhitespace(c)) this.field.append((char) c);
+                c = this.read();
+            }
+        } else {
+            int trimmedLength = 0;
+            while (c != END_OF_INPUT && c != ',' && c != '\r' && c != '\n') {
+                if (!Character.isWhitespace(c)) this.isBlankField = false;
+                if (isKept) {
+                    this.field.append((char) c);
+                    if (!Character.isWhitespace(c)) trimmedLength = this.field.length();
+                }
+                c = this.read();
+            }
+            this.field.setLength(trimmedLength);
+        }
+
+        if (c == '\r') {
+            int lineFeed = this.read();
+            if (lineFeed != '\n') this.unread(lineFeed);
+            return END_OF_RECORD;
+        }
+        return c == ',' ? END_OF_FIELD : c == '\n' ? END_OF_RECORD : END_OF_INPUT;
+    }
+
+    private int read() throws IOException {
+        if (this.pushedBack != NOTHING) {
+            int c = this.pushedBack;
+            this.pushedBack = NOTHING;
+            return c;
+        }
+        if (this.position == this.limit) {
+            int numChars = this.reader.read(this.buffer, 0, this.buffer.length);
+            if (numChars <= 0) return END_OF_INPUT;
+            this.position = 0;
+            this.limit = numChars;
+        }
+        return this.buffer[this.position++];
+    }
+
+    private void unread(int c) {
+        this.pushedBack = c;
+    }
+
+    /**
+     * Exposes the remaining records as a sequential {@link Stream} that closes this instance when closed.
+     *
+     * @return the {@link Stream}
+     */
+    public Stream<JSONObject> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+        ).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (this.isClosed) return;
+        this.isClosed = true;
+        try {
+            this.resource.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not release the CSV input.", e);
+        }
+    }
+}
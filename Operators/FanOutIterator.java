@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.wayang.core.api.exception.WayangException;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Drains several {@link Stream}s concurrently and provides the union of their elements in the order in which
+ * they arrive. At most a given number of the streams are drained at the same time and a bounded buffer caps
+ * the elements that are waiting for the consumer.
+ *
+ * @param <T> the type of elements
+ */
+public class FanOutIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final List<Supplier<Stream<T>>> sources;
+
+    private final int maxConcurrency;
+
+    private final BlockingQueue<Item<T>> buffer;
+
+    private ExecutorService executor;
+
+    private int numFinishedSources = 0;
+
+    private Item<T> next;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param sources        provide the {@link Stream}s to drain; invoked on the worker threads
+     * @param maxConcurrency the maximum number of sources drained at the same time
+     * @param bufferSize     the maximum number of elements waiting for the consumer
+     */
+    public FanOutIterator(List<Supplier<Stream<T>>> sources, int maxConcurrency, int bufferSize) {
+        Validate.isTrue(maxConcurrency > 0, "The concurrency must be positive.");
+        this.sources = sources;
+        this.maxConcurrency = maxConcurrency;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    /**
+     * Starts draining the sources. Invoked implicitly by the first {@link #hasNext()}.
+     *
+     * @return this instance
+     */
+    public synchronized FanOutIterator<T> start() {
+        if (this.executor != null) return this;
+        this.executor = Executors.newFixedThreadPool(Math.min(this.maxConcurrency, Math.max(1, this.sources.size())), runnable -> {
+            Thread thread = new Thread(runnable, "rest-api-fan-out");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Supplier<Stream<T>> source : this.sources) {
+            this.executor.execute(() -> this.drain(source));
+        }
+        this.executor.shutdown();
+        return this;
+    }
+
+    private void drain(Supplier<Stream<T>> source) {
+        try {
+            try (Stream<T> elements = source.get()) {
+                Iterator<T> iterator = elements.iterator();
+                while (iterator.hasNext()) {
+                    this.buffer.put(new Item<>(iterator.next(), null));
+                }
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Throwable t) {
+                // Errors, too, must reach the consumer, which would otherwise wait for this source forever.
+                this.buffer.put(new Item<>(null, t));
+                return;
+            }
+            this.buffer.put(new Item<>(null, null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.executor == null) this.start();
+        while (this.next == null && this.numFinishedSources < this.sources.size()) {
+            final Item<T> item;
+            try {
+                item = this.buffer.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WayangException("Interrupted while waiting for REST API responses.", e);
+            }
+            if (item.failure != null) {
+                this.close();
+                throw new WayangException("Could not fetch from one of the REST APIs.", item.failure);
+            }
+            if (item.element == null) {
+                this.numFinishedSources++;
+            } else {
+                this.next = item;
+            }
+        }
+        return this.next != null;
+    }
+
+    @Override
+    public T next() {
+        if (!this.hasNext()) throw new NoSuchElementException();
+        T element = this.next.element;
+        this.next = null;
+        return element;
+    }
+
+    /**
+     * Exposes the union of the sources as a sequential {@link Stream} that stops the workers when closed.
+     *
+     * @return the {@link Stream}
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.NONNULL),
+                false
+        ).onClose(this::close);
+    }
+
+    /**
+     * Stops all workers.
+     */
+    @Override
+    public void close() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * An element or the end or failure of a source; {@code element == failure == null} marks the end.
+     */
+    private static class Item<T> {
+
+        private final T element;
+
+        private final Throwable failure;
+
+        private Item(T element, Throwable failure) {
+            this.element = element;
+            this.failure = failure;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * {@link RestAPIDialect} of the HubSpot CRM API, whose records keep their fields in a {@code properties}
+ * object. The list endpoints ({@code GET}) take the requested properties as {@code properties} query
+ * parameter, the search endpoints ({@code POST}) as {@code properties} array in the body. Only the search
+ * endpoints filter, with the {@code filterGroups} of the body.
+ */
+public class HubSpotDialect implements RestAPIDialect {
+
+    private static final String PROPERTIES = "properties";
+
+    private static final String PROPERTY_PREFIX = PROPERTIES + ".";
+
+    private static final String FILTER_GROUPS = "filterGroups", FILTERS = "filters";
+
+    /**
+     * Maximum number of filters in a filter group of a search request.
+     */
+    private static final int MAX_FILTERS_PER_GROUP = 6;
+
+    @Override
+    public RestAPIRequest project(RestAPIRequest request, Set<String> fields) {
+        List<String> properties = fields.stream()
+                .filter(field -> field.startsWith(PROPERTY_PREFIX))
+                .map(field -> field.substring(PROPERTY_PREFIX.length()))
+                .collect(Collectors.toList());
+        if (properties.isEmpty()) return request;
+
+        if ("POST".equalsIgnoreCase(request.getAPIMethod())) {
+            String payload = request.getPayload();
+            JSONObject body = payload == null || payload.trim().isEmpty() ? new JSONObject() : new JSONObject(payload);
+            body.put(PROPERTIES, new JSONArray(properties));
+            return request.withURLAndPayload(request.getAPIURL(), body.toString());
+        }
+        List<String> encodedProperties = new ArrayList<>(properties.size());
+        for (String property : properties) {
+            encodedProperties.add(encode(property));
+        }
+        String apiURL = withQueryParameter(request.getAPIURL(), PROPERTIES, String.join(",", encodedProperties));
+        return request.withURLAndPayload(apiURL, request.getPayload());
+    }
+
+    @Override
+    public Optional<RestAPIRequest> pushDown(RestAPIRequest request, RestAPIPredicate predicate) {
+        if (!"POST".equalsIgnoreCase(request.getAPIMethod()) || !predicate.getField().startsWith(PROPERTY_PREFIX)) {
+            return Optional.empty();
+        }
+        JSONObject filter = new JSONObject()
+                .put("propertyName", predicate.getField().substring(PROPERTY_PREFIX.length()))
+                .put("operator", predicate.getOperator().name())
+                .put("value", predicate.getValue().toString());
+        if (predicate.getOperator() == RestAPIPredicate.Operator.BETWEEN) {
+            filter.put("highValue", predicate.getHighValue().toString());
+        }
+
+        String payload = request.getPayload();
+        JSONObject body = payload == null || payload.trim().isEmpty() ? new JSONObject() : new JSONObject(payload);
+        JSONArray filterGroups = body.optJSONArray(FILTER_GROUPS);
+        if (filterGroups == null || filterGroups.isEmpty()) {
+            filterGroups = new JSONArray().put(new JSONObject().put(FILTERS, new JSONArray()));
+            body.put(FILTER_GROUPS, filterGroups);
+        }
+        // The filter groups are alternatives, so the predicate has to hold in each of them.
+        for (int i = 0; i < filterGroups.length(); i++) {
+            JSONObject filterGroup = filterGroups.getJSONObject(i);
+            JSONArray filters = filterGroup.optJSONArray(FILTERS);
+            if (filters == null) {
+                filters = new JSONArray();
+                filterGroup.put(FILTERS, filters);
+            }
+            if (filters.length() >= MAX_FILTERS_PER_GROUP) return Optional.empty();
+            filters.put(filter);
+        }
+        return Optional.of(request.withURLAndPayload(request.getAPIURL(), body.toString()));
+    }
+
+    /**
+     * Sets a query parameter, replacing all previous values.
+     *
+     * @param apiURL       the URL
+     * @param name         the name of the parameter
+     * @param encodedValue the URL-encoded value
+     * @return the new URL
+     */
+    static String withQueryParameter(String apiURL, String name, String encodedValue) {
+        int queryStart = apiURL.indexOf('?');
+        StringBuilder newURL = new StringBuilder(queryStart < 0 ? apiURL : apiURL.substring(0, queryStart)).append('?');
+        if (queryStart >= 0) {
+            for (String parameter : apiURL.substring(queryStart + 1).split("&")) {
+                if (parameter.isEmpty() || parameter.equals(name) || parameter.startsWith(name + "=")) continue;
+                newURL.append(parameter).append('&');
+            }
+        }
+        return newURL.append(name).append('=').append(encodedValue).toString();
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.commons.lang3.Validate
 import org.apache.wayang.api.util.DataQuantaBuilderCache
 import org.apache.wayang.basic.data.Record
 import org.apache.wayang.basic.operators.{TableSource, TextFileSource, KafkaTopicSource, RestAPISource}
+import org.apache.wayang.basic.rest.{RestAPIBatch, RestAPIDialect, RestAPIPagination, RestAPIPartitioning, RestAPIRequest, RestAPISchema}
 import org.apache.wayang.commons.util.profiledb.model.Experiment
 import org.apache.wayang.core.api.WayangContext
 import org.apache.wayang.core.plan.wayangplan._
@@ -102,6 +103,150 @@ class JavaPlanBuilder(wayangCtx: WayangContext, jobName: String) {
     createSourceBuilder(source)(ClassTag(classOf[JSONObject]))
   }
 
+  /**
+    * Reads all pages of a cursor-paginated REST API within a single job and provides the records as a dataset
+    * of [[JSONObject]]s.
+    *
+    * @param apiURL     the REST API URL of the first page
+    * @param apiMethod  the HTTP method to use (e.g., "GET", "POST")
+    * @param headers    optional headers for the API call in the format "Key1:Value1;Key2:Value2"
+    * @param payload    the request body of the first page
+    * @param pagination describes where to find and where to put the cursor and when to stop
+    * @return [[DataQuantaBuilder]] for the API data
+    */
+  def readRestAPISource(apiURL: String, apiMethod: String, headers: String, payload: String,
+                        pagination: RestAPIPagination): UnarySourceDataQuantaBuilder[UnarySourceDataQuantaBuilder[_, JSONObject], JSONObject] = {
+    val source = new RestAPISource(apiURL, apiMethod, headers, payload)
+    source.setPagination(pagination)
+    createSourceBuilder(source)(ClassTag(classOf[JSONObject]))
+  }
+
+  /**
+    * Reads data from a REST API whose requests are split into partitions, e.g., page ranges or date windows,
+    * which are fetched concurrently and, on Spark, in parallel across executors.
+    *
+    * @param apiURL       the REST API URL
+    * @param apiMethod    the HTTP method to use (e.g., "GET", "POST")
+    * @param headers      optional headers for the API call in the format "Key1:Value1;Key2:Value2"
+    * @param payload      the request body
+    * @param partitioning the values of the query parameters or body fields of each partition
+    * @return [[DataQuantaBuilder]] for the API data
+    */
+  def readRestAPISource(apiURL: String, apiMethod: String, headers: String, payload: String,
+                        partitioning: RestAPIPartitioning): UnarySourceDataQuantaBuilder[UnarySourceDataQuantaBuilder[_, JSONObject], JSONObject] = {
+    val source = new RestAPISource(apiURL, apiMethod, headers, payload)
+    source.setPartitioning(partitioning)
+    createSourceBuilder(source)(ClassTag(classOf[JSONObject]))
+  }
+
+  /**
+    * Reads data from a REST API and keeps only the given fields of its records, which the [[RestAPIDialect]]
+    * also asks the API for, so that the other fields are neither transferred nor kept in memory.
+    *
+    * @param apiURL     the REST API URL
+    * @param apiMethod  the HTTP method to use (e.g., "GET", "POST")
+    * @param headers    optional headers for the API call in the format "Key1:Value1;Key2:Value2"
+    * @param payload    the request body
+    * @param projection dot-separated paths of the fields that are read, e.g., `properties.start_date`
+    * @param dialect    rewrites the requests for the API or `null` to only project the fetched records
+    * @return [[DataQuantaBuilder]] for the API data
+    */
+  def readRestAPISource(apiURL: String, apiMethod: String, headers: String, payload: String,
+                        projection: JavaCollection[String],
+                        dialect: RestAPIDialect): UnarySourceDataQuantaBuilder[UnarySourceDataQuantaBuilder[_, JSONObject], JSONObject] = {
+    val source = new RestAPISource(apiURL, apiMethod, headers, payload)
+    source.setProjection(projection)
+    source.setDialect(dialect)
+    createSourceBuilder(source)(ClassTag(classOf[JSONObject]))
+  }
+
+  /**
+    * Reads data from several REST API requests concurrently and provides the union of the responses as a
+    * dataset of [[JSONObject]]s.
+    *
+    * @param requests       the [[RestAPIRequest]]s to fetch
+    * @param maxConcurrency the maximum number of requests in flight or `0` for the configured default
+    * @param sourceTagField field that receives the tag of the originating request or `null` to not tag records
+    * @return [[DataQuantaBuilder]] for the API data
+    */
+  def readRestAPISource(requests: JavaCollection[RestAPIRequest], maxConcurrency: Int,
+                        sourceTagField: String): UnarySourceDataQuantaBuilder[UnarySourceDataQuantaBuilder[_, JSONObject], JSONObject] = {
+    val source = new RestAPISource(requests)
+    source.setMaxConcurrency(maxConcurrency)
+    source.setSourceTagField(sourceTagField)
+    createSourceBuilder(source)(ClassTag(classOf[JSONObject]))
+  }
+
+  /**
+    * Reads data from a REST API as configured in the given [[RestAPISource]], e.g., with streaming enabled.
+    *
+    * @param source the [[RestAPISource]] to read from
+    * @return [[DataQuantaBuilder]] for the API data
+    */
+  def readRestAPISource(source: RestAPISource): UnarySourceDataQuantaBuilder[UnarySourceDataQuantaBuilder[_, JSONObject], JSONObject] =
+    createSourceBuilder(source)(ClassTag(classOf[JSONObject]))
+
+  /**
+    * Reads data from a REST API as [[Record]]s with the fields and types of the given [[RestAPISchema]]. Each
+    * record is converted once, right after it has been decoded, and only the fields of the schema are decoded
+    * unless the `source` declares a projection itself. The `source` itself is left unchanged.
+    *
+    * @param source the [[RestAPISource]] to read from
+    * @param schema declares the fields and their types
+    * @return [[DataQuantaBuilder]] for the API data
+    */
+  def readRestAPISource(source: RestAPISource, schema: RestAPISchema): MapDataQuantaBuilder[JSONObject, Record] = {
+    readRestAPISource(projectOnto(source, schema))
+      .map(schema.toRecords)
+      .withOutputType(DataSetType.createDefault(schema.getRecordType))
+  }
+
+  /**
+    * Reads data from a REST API as objects of the given class, whose fields are set from the record fields
+    * of the same name; see [[RestAPISchema.forClass]]. The `source` itself is left unchanged.
+    *
+    * @param source      the [[RestAPISource]] to read from
+    * @param recordClass the class of the objects
+    * @param basePath    dot-separated path of the object in each record that contains the fields or `null`
+    * @return [[DataQuantaBuilder]] for the API data
+    */
+  def readRestAPISource[T](source: RestAPISource, recordClass: Class[T], basePath: String): MapDataQuantaBuilder[JSONObject, T] = {
+    val schema = RestAPISchema.forClass(recordClass, basePath)
+    readRestAPISource(projectOnto(source, schema))
+      .map(schema.toObjects(recordClass))
+      .withOutputClass(recordClass)
+  }
+
+  /**
+    * Reads data from a REST API as columnar [[RestAPIBatch]]es with a column per field of the given
+    * [[RestAPISchema]]. Downstream operators can then filter, map, and aggregate whole batches with the methods
+    * of [[RestAPIBatch]] instead of handling one record at a time. The `source` itself is left unchanged.
+    *
+    * @param source    the [[RestAPISource]] to read from
+    * @param schema    declares the columns and their types
+    * @param batchSize the maximum number of records per batch
+    * @return [[DataQuantaBuilder]] for the API data
+    */
+  def readRestAPISourceBatches(source: RestAPISource, schema: RestAPISchema, batchSize: Int): MapPartitionsDataQuantaBuilder[JSONObject, RestAPIBatch] = {
+    readRestAPISource(projectOnto(source, schema))
+      .mapPartitions(schema.toBatches(batchSize))
+      .withOutputClass(classOf[RestAPIBatch])
+  }
+
+  /**
+    * Copies a [[RestAPISource]] so that it only decodes the fields of a [[RestAPISchema]] unless it declares a
+    * projection itself.
+    *
+    * @param source the [[RestAPISource]] to copy
+    * @param schema declares the fields that are read
+    * @return the copy
+    */
+  private def projectOnto(source: RestAPISource, schema: RestAPISchema): RestAPISource = {
+    val projectedSource = new RestAPISource(source)
+    if (projectedSource.getProjection == null) projectedSource.setProjection(schema.getFieldPaths)
+    projectedSource
+  }
+
 
   /**
     * Load [[DataQuanta]] from an arbitrary [[UnarySource]].
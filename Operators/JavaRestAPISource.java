@@ -19,9 +19,25 @@
 
 package org.apache.wayang.java.operators;
 
+import org.apache.wayang.basic.metrics.MetricsRegistry;
+import org.apache.wayang.basic.metrics.MetricsSink;
 import org.apache.wayang.basic.operators.RestAPISource;
+import org.apache.wayang.basic.rest.FanOutIterator;
+import org.apache.wayang.basic.rest.PaginatedRecordIterator;
+import org.apache.wayang.basic.rest.RestAPIClient;
+import org.apache.wayang.basic.rest.RestAPIDecoder;
+import org.apache.wayang.basic.rest.RestAPIDecoders;
+import org.apache.wayang.basic.rest.RestAPIPredicate;
+import org.apache.wayang.basic.rest.RestAPIRequest;
+import org.apache.wayang.basic.rest.RestAPIResponseBody;
+import org.apache.wayang.basic.rest.RestAPIResponseCache;
+import org.apache.wayang.basic.rest.RestAPIStatistics;
+import org.apache.wayang.basic.rest.RestAPIThrottledException;
+import org.apache.wayang.core.api.Configuration;
 import org.apache.wayang.core.api.exception.WayangException;
 import org.apache.wayang.core.optimizer.OptimizationContext;
+import org.apache.wayang.core.optimizer.costs.LoadProfileEstimator;
+import org.apache.wayang.core.optimizer.costs.LoadProfileEstimators;
 import org.apache.wayang.core.platform.ChannelDescriptor;
 import org.apache.wayang.core.platform.ChannelInstance;
 import org.apache.wayang.core.platform.lineage.ExecutionLineageNode;
@@ -34,29 +50,92 @@ import org.json.JSONException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStream;    
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
 
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.util.Date;
 
 public class JavaRestAPISource extends RestAPISource implements JavaExecutionOperator {
 
     private static final Logger logger = LoggerFactory.getLogger(JavaRestAPISource.class);
-    private static final String LOG_FILE_PATH = "json-api-latency.json";
+    private static final String LATENCY_METRICS = "json-api-latency";
+
+    /**
+     * Number of threads that run asynchronous fetches.
+     */
+    public static final String IO_THREADS_KEY = "wayang.java.restapisource.io-threads";
+
+    private static final long DEFAULT_IO_THREADS = 8L;
+
+    /**
+     * Default number of requests fetched at the same time by sources with multiple requests.
+     */
+    public static final String MAX_CONCURRENCY_KEY = "wayang.java.restapisource.fan-out.max-concurrency";
+
+    private static final long DEFAULT_MAX_CONCURRENCY = 4L;
+
+    /**
+     * Number of records that concurrent requests may buffer ahead of the consumer.
+     */
+    private static final int FAN_OUT_BUFFER_SIZE = 1024;
+
+    /**
+     * Load profile of setting up the source, e.g., the HTTP client.
+     */
+    public static final String PREPARE_LOAD_KEY = "wayang.java.restapisource.load.prepare";
+
+    /**
+     * Load profile of fetching and parsing the responses.
+     */
+    public static final String MAIN_LOAD_KEY = "wayang.java.restapisource.load.main";
+
+    static final String DEFAULT_PREPARE_LOAD_SPECIFICATION = "{" +
+            "\"in\":0, \"out\":1," +
+            "\"cpu\":\"${5400000}\"," +
+            "\"ram\":\"${0}\"," +
+            "\"p\":0.9" +
+            "}";
+
+    /**
+     * Models the latency of the source as a linear function of the number of requests (including all pages), the
+     * number of records and the number of bytes. The Java platform only converts CPU cycles into time, so the
+     * latency is expressed in cycles: the defaults correspond to 500 ms per request, 10 us per record and
+     * 0.1 us per byte at {@code wayang.java.cpu.mhz = 2700} and one core. Refit them from recorded executions
+     * with {@link RestAPILoadProfileCalibrator}.
+     */
+    static final String DEFAULT_MAIN_LOAD_SPECIFICATION = "{" +
+            "\"in\":0, \"out\":1," +
+            "\"import\":[\"numRequests\", \"bytesPerRecord\"]," +
+            "\"cpu\":\"${1350000000*numRequests + 27000*out0 + 270*out0*bytesPerRecord}\"," +
+            "\"ram\":\"${bytesPerRecord*out0}\"," +
+            "\"p\":0.7" +
+            "}";
+
+    private static ExecutorService ioExecutor;
 
     public static void logtoJSON(String stepname, Double latencyseconds, String apiurl) {
         try {
@@ -66,43 +145,87 @@ public class JavaRestAPISource extends RestAPISource implements JavaExecutionOpe
             logrecord.put("latency_seconds", latencyseconds);
             logrecord.put("url", apiurl);
 
-            appendlogtofile(logrecord);
+            MetricsSink.getInstance(LATENCY_METRICS).record(logrecord);
         } catch (Exception e) {
             logger.error("Unable to add data to JSON: {}", e.getMessage(), e);
         }
     }
 
+    /**
+     * Logs the latency of a request.
+     *
+     * @param starttime {@link System#nanoTime()} when the request was sent
+     * @param endtime   {@link System#nanoTime()} when the response was read
+     */
     public static void logAPIlatency(long starttime, long endtime, String stepname, String apiurl){
-        Double latencyseconds = (endtime - starttime) / 1000.0;
+        Double latencyseconds = (endtime - starttime) / 1_000_000_000.0;
         logtoJSON(stepname, latencyseconds, apiurl);
     }
 
-    private static void appendlogtofile(JSONObject logrecord) throws IOException {
-        JSONArray existinglogs;
+    /**
+     * Logs the latency of a request together with the size of its response, so that the log can be used to
+     * calibrate the load profile; see {@link RestAPILoadProfileCalibrator}.
+     *
+     * @param starttime {@link System#nanoTime()} when the request was sent
+     * @param endtime   {@link System#nanoTime()} when the response was read
+     */
+    public static void logAPIlatency(long starttime, long endtime, String stepname, String apiurl, long numrecords, long numbytes){
+        logAPIlatency(starttime, endtime, stepname, apiurl, numrecords, numbytes, -1L);
+    }
 
-        if (Files.exists(Paths.get(LOG_FILE_PATH))){
-            String content = new String(Files.readAllBytes(Paths.get(LOG_FILE_PATH)));
-            if (!content.isEmpty()){
-                existinglogs = new JSONArray(content);
-            } else {
-                existinglogs = new JSONArray();
-            }
-        } else {
-            existinglogs = new JSONArray();
-        }
+    /**
+     * Logs the latency of a request together with the size of its response as decoded and as transferred,
+     * which is smaller if the response was compressed.
+     *
+     * @param starttime           {@link System#nanoTime()} when the request was sent
+     * @param endtime             {@link System#nanoTime()} when the response was read
+     * @param numtransferredbytes the number of bytes read from the connection or {@code -1} if unknown
+     */
+    public static void logAPIlatency(long starttime, long endtime, String stepname, String apiurl, long numrecords, long numbytes,
+                                     long numtransferredbytes){
+        try {
+            JSONObject logrecord = new JSONObject();
+            logrecord.put("timestamp", Date.from(Instant.now()).toString());
+            logrecord.put("step", stepname);
+            logrecord.put("latency_seconds", (endtime - starttime) / 1_000_000_000.0);
+            logrecord.put("url", apiurl);
+            logrecord.put("records", numrecords);
+            logrecord.put("bytes", numbytes);
+            if (numtransferredbytes >= 0) logrecord.put("transferred_bytes", numtransferredbytes);
 
-        existinglogs.put(logrecord);
-        Files.write(
-            Paths.get(LOG_FILE_PATH),
-            existinglogs.toString(4).getBytes(),
-            StandardOpenOption.CREATE,
-            StandardOpenOption.TRUNCATE_EXISTING
-        );
+            MetricsSink.getInstance(LATENCY_METRICS).record(logrecord);
+        } catch (Exception e) {
+            logger.error("Unable to add data to JSON: {}", e.getMessage(), e);
+        }
     }
 
+    /**
+     * The {@link RestAPIClient} for the current job's {@link org.apache.wayang.core.api.Configuration}.
+     */
+    private transient RestAPIClient client;
+
+    /**
+     * The {@link RestAPIResponseCache} for the current job's {@link Configuration} if caching is enabled.
+     */
+    private transient RestAPIResponseCache responseCache;
+
+    /**
+     * Records the cardinalities and sizes of the responses for future cardinality estimates.
+     */
+    private transient RestAPIStatistics statistics;
+
+    /**
+     * Keeps latency histograms and counters per endpoint.
+     */
+    private transient MetricsRegistry metrics;
+
+    /**
+     * Responses that were already fetched during cardinality estimation and are not requested again.
+     */
+    private final Map<RestAPIRequest, JSONArray> probedResponses = new ConcurrentHashMap<>();
 
     public JavaRestAPISource(RestAPISource restAPISource) {
-        super(restAPISource.getAPIURL(), restAPISource.getAPIMethod(), restAPISource.getHeaders(), restAPISource.getPayload());
+        super(restAPISource);
     }
 
     public JavaRestAPISource(String apiURL, String apiMethod, String headers, String payload) {
@@ -110,121 +233,308 @@ public class JavaRestAPISource extends RestAPISource implements JavaExecutionOpe
     }
 
     public JSONArray fetchDataFromAPI() {
-        String hardcodedURL = "https://api.hubapi.com/crm/v3/objects/deals/search"; 
-        logger.info("Fetching data from API with method: {}", this.apiMethod);
+        return this.fetchDataFromAPI(this.getRequests().get(0));
+    }
+
+    /**
+     * Fetches and parses a single response, e.g., one page of a paginated API.
+     *
+     * @param apiURL  the URL to request
+     * @param payload the request body for POST requests
+     * @return the parsed response or an empty {@link JSONArray} if the request failed
+     */
+    public JSONArray fetchDataFromAPI(String apiURL, String payload) {
+        return this.fetchDataFromAPI(new RestAPIRequest(apiURL, this.apiMethod, this.headers, payload));
+    }
+
+    /**
+     * Fetches and parses the response to the given request.
+     *
+     * @param request the {@link RestAPIRequest} to send
+     * @return the parsed response or an empty {@link JSONArray} if the request failed
+     * @throws WayangException if the API kept throttling the request, as an empty response would go unnoticed
+     */
+    public JSONArray fetchDataFromAPI(RestAPIRequest request) {
+        return this.fetchDataFromAPI(request, false);
+    }
+
+    /**
+     * Fetches and parses the response to the given request.
+     *
+     * @param request   the {@link RestAPIRequest} to send
+     * @param isFailing whether a failed request throws instead of yielding an empty {@link JSONArray}, e.g., for a
+     *                  page, after which the pagination would otherwise stop early and go unnoticed
+     * @return the parsed response
+     */
+    private JSONArray fetchDataFromAPI(RestAPIRequest request, boolean isFailing) {
+        JSONArray probedResponse = this.probedResponses.remove(request);
+        if (probedResponse != null) {
+            logger.info("Reusing the response from cardinality estimation for {}.", request.getAPIURL());
+            return this.projectRecords(probedResponse);
+        }
+        logger.info("Fetching data from API with method: {}", request.getAPIMethod());
 
-        long apistarttime = System.currentTimeMillis();
-        HttpURLConnection connection = null;
         try {
-            if ("POST".equalsIgnoreCase(this.apiMethod) && !hardcodedURL.equals(this.apiURL)) {
-                logger.error("POST requests are only allowed to the hardcoded URL: {}", hardcodedURL);
-                throw new IllegalArgumentException("POST requests must use the hardcoded URL.");
+            if (this.isCaching()) {
+                return this.projectRecords(copyRecords(this.getResponseCache().get(request, this::loadResponse)));
             }
+            long apistarttime = System.nanoTime();
+            HttpResponse<InputStream> httpResponse = this.sendRequest(request, Collections.emptyMap());
+            String response = readResponse(httpResponse);
+
+            long apiendttime = System.nanoTime();
+            JSONArray records = this.observeSize(request, this.decodeResponse(httpResponse, response, true), response.length());
+            this.logResponse(request, httpResponse, apistarttime, apiendttime, "API Latency", records.length(), response.length());
+
+            return records;
+
+        } catch (RestAPIThrottledException e) {
+            this.getMetrics().recordError(RestAPIStatistics.getEndpoint(request));
+            throw new WayangException("REST API rejected the request due to its rate limit.", e);
+        } catch (HttpTimeoutException e) {
+            this.getMetrics().recordError(RestAPIStatistics.getEndpoint(request));
+            throw new WayangException("REST API did not respond within the deadline of the request or its response stalled.", e);
+        } catch (IOException e) {
+            logger.error("Unable to fetch data from REST API", e);
+            this.getMetrics().recordError(RestAPIStatistics.getEndpoint(request));
+            if (isFailing) throw new WayangException("Failed to fetch a page from REST API.", e);
+        }
+        return new JSONArray();
+    }
 
-            URL url = new URL(this.apiURL);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod(this.apiMethod); 
-
-            if (!this.headers.isEmpty()) {
-                for (String header : this.headers.split(";")) {
-                    String[] headerParts = header.trim().split(":", 2);
-                    if (headerParts.length == 2) {
-                        connection.setRequestProperty(headerParts[0].trim(), headerParts[1].trim());
-                    } else {
-                        logger.warn("Invalid header format: {}", header);
-                    }
-                }
-            }
+    /**
+     * Loads a response for the {@link RestAPIResponseCache}. If a cached response is given, the request is
+     * conditional and a {@code 304 Not Modified} response reuses the cached records.
+     *
+     * @param request  the {@link RestAPIRequest} to send
+     * @param previous the cached response to revalidate or {@code null}
+     * @return the new or revalidated cache entry
+     */
+    private RestAPIResponseCache.Entry loadResponse(RestAPIRequest request, RestAPIResponseCache.Entry previous) throws IOException {
+        long apistarttime = System.nanoTime();
+        HttpResponse<InputStream> httpResponse = this.sendRequest(
+                request, previous == null ? Collections.emptyMap() : previous.getConditionalHeaders()
+        );
+        if (previous != null && httpResponse.statusCode() == 304) {
+            httpResponse.body().close();
+            this.logResponse(request, httpResponse, apistarttime, System.nanoTime(), "API Revalidation Latency", 0L, 0L);
+            logger.info("Response from {} is not modified. Reusing the cached records.", request.getAPIURL());
+            return previous.revalidated();
+        }
+        String response = readResponse(httpResponse);
+        long apiendttime = System.nanoTime();
+        // Cached records are shared by all sources that send the same request, so they are projected only when read.
+        JSONArray records = this.observeSize(request, this.decodeResponse(httpResponse, response, false), response.length());
+        this.logResponse(request, httpResponse, apistarttime, apiendttime, "API Latency", records.length(), response.length());
+        return RestAPIResponseCache.Entry.of(records, httpResponse.headers(), response.length());
+    }
 
-            if ("POST".equalsIgnoreCase(this.apiMethod)) {
-                connection.setDoOutput(true); 
-                String payload = this.getPayload(); 
-                if (payload == null || payload.isEmpty()) {
-                    logger.warn("No payload provided for POST request.");
-                } else {
-                    try (OutputStream os = connection.getOutputStream()) {
-                        byte[] input = payload.getBytes("utf-8");
-                        os.write(input, 0, input.length);
-                    }
-                }
-            }
-            BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-            StringBuilder content = new StringBuilder();
+    private JSONArray observeSize(RestAPIRequest request, JSONArray records, long numBytes) {
+        if (this.statistics != null) {
+            this.statistics.recordSize(RestAPIStatistics.getEndpoint(request), records.length(), numBytes);
+        }
+        return records;
+    }
+
+    private static String readResponse(HttpResponse<InputStream> httpResponse) throws IOException {
+        StringBuilder content = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(httpResponse.body(), StandardCharsets.UTF_8))) {
             String inputLine;
             while ((inputLine = in.readLine()) != null) {
                 content.append(inputLine).append("\n");
             }
-            in.close();
+        }
+        return content.toString();
+    }
 
-            String response = content.toString();
+    /**
+     * Decodes a response with the decoder for the configured format or its {@code Content-Type}, and only
+     * if neither is known with the decoder that the first non-whitespace character of the body suggests.
+     *
+     * @param httpResponse the {@link HttpResponse} whose headers describe the body
+     * @param response     the response body
+     * @param isProjecting whether to apply the projection while decoding
+     * @return the decoded response or an empty {@link JSONArray} if it could not be decoded
+     */
+    private JSONArray decodeResponse(HttpResponse<?> httpResponse, String response, boolean isProjecting) {
+        RestAPIDecoder decoder = this.resolveDecoder(httpResponse)
+                .orElseGet(() -> RestAPIDecoders.sniff(RestAPIDecoders.firstNonWhitespace(response)));
+        if (isProjecting) decoder = this.project(decoder);
+        try {
+            return decoder.decode(response);
+        } catch (JSONException e) {
+            logger.error("Unable to decode the response from REST API.", e);
+        }
+        return new JSONArray();
+    }
 
-            long apiendttime = System.currentTimeMillis();
-            logAPIlatency(apistarttime, apiendttime, "API Latency",this.apiURL);
+    private Optional<RestAPIDecoder> resolveDecoder(HttpResponse<?> httpResponse) {
+        return RestAPIDecoders.resolve(this.getFormat(), httpResponse.headers().firstValue("Content-Type").orElse(null));
+    }
 
-            try {
-                logger.info("Attempting to parse response as JSONArray.");
-                return new JSONArray(response);
-            } catch (JSONException e) {
-                logger.info("Response is not a JSONArray. Trying as JSONObject.");
-            }
+    /**
+     * Lets the decoder apply the projection unless the responses are pages, whose records are only projected
+     * once they have been extracted.
+     */
+    private RestAPIDecoder project(RestAPIDecoder decoder) {
+        Set<String> projection = this.getProjection();
+        return projection == null || this.getPagination() != null ? decoder : decoder.project(projection);
+    }
 
-            // Attempt to parse as JSONObject
-            try {
-                JSONObject jsonObject = new JSONObject(response);
-                JSONArray jsonArray = new JSONArray();
-                jsonArray.put(jsonObject);
-                return jsonArray;
-            } catch (JSONException e) {
-                logger.info("Response is not a JSONObject. Trying as CSV string.");
-            }
+    /**
+     * Copies cached records, which are shared across sources and threads, so that tagging and downstream
+     * operators cannot modify the cache.
+     */
+    private static JSONArray copyRecords(JSONArray records) {
+        return (JSONArray) copyValue(records);
+    }
 
-            // Treat response as CSV and parse
-            try {
-                return convertCsvToJson(response);
-            } catch (Exception e) {
-                logger.error("Failed to parse response as CSV string.", e);
+    private static Object copyValue(Object value) {
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value, copy = new JSONObject();
+            for (String key : object.keySet()) {
+                copy.put(key, copyValue(object.get(key)));
             }
-
-        } catch (IOException e) {
-            logger.error("Unable to fetch data from REST API", e);
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
+            return copy;
+        } else if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value, copy = new JSONArray();
+            for (int i = 0; i < array.length(); i++) {
+                copy.put(copyValue(array.get(i)));
             }
+            return copy;
         }
-        return new JSONArray();
+        // Strings, numbers, booleans, and JSONObject.NULL are immutable.
+        return value;
     }
 
+    /**
+     * Applies the projection to records that were decoded without it, e.g., cached ones.
+     */
+    private JSONArray projectRecords(JSONArray records) {
+        Set<String> projection = this.getProjection();
+        if (projection == null || this.getPagination() != null) return records;
+        JSONArray projectedRecords = new JSONArray();
+        for (int i = 0; i < records.length(); i++) {
+            projectedRecords.put(RestAPIDecoders.project(records.getJSONObject(i), projection));
+        }
+        return projectedRecords;
+    }
 
-    private JSONArray convertCsvToJson(String dataString) {
-        String[] lines = dataString.split("\n");
+    /**
+     * Fetches the API response and parses it while it is being read: every top-level element of a JSON
+     * response is emitted as soon as it is complete, so that memory stays bounded by the largest element and
+     * downstream operators overlap with the network read. Responses in other formats are decoded
+     * as described by {@link RestAPIDecoder#stream}.
+     *
+     * @return a lazy {@link Stream} over the response elements; closing it releases the connection
+     */
+    public Stream<JSONObject> streamDataFromAPI() {
+        return this.streamDataFromAPI(this.getRequests().get(0));
+    }
 
-        if (lines.length == 0) {
-            return new JSONArray();
+    /**
+     * Fetches the response to the given request and parses it while it is being read.
+     *
+     * @param request the {@link RestAPIRequest} to send
+     * @return a lazy {@link Stream} over the response elements; closing it releases the connection
+     * @see #streamDataFromAPI()
+     */
+    public Stream<JSONObject> streamDataFromAPI(RestAPIRequest request) {
+        logger.info("Streaming data from API with method: {}", request.getAPIMethod());
+
+        long apistarttime = System.nanoTime();
+        try {
+            HttpResponse<InputStream> httpResponse = this.sendRequest(request, Collections.emptyMap());
+            BufferedReader in = new BufferedReader(new InputStreamReader(httpResponse.body(), StandardCharsets.UTF_8));
+            Closeable release = () -> {
+                long apiendtime = System.nanoTime();
+                logAPIlatency(apistarttime, apiendtime, "API Latency", request.getAPIURL());
+                this.getMetrics().recordRequest(RestAPIStatistics.getEndpoint(request), apiendtime - apistarttime, -1L, -1L);
+                this.recordTransfer(request, httpResponse);
+            };
+
+            Optional<RestAPIDecoder> decoder = this.resolveDecoder(httpResponse);
+            if (!decoder.isPresent()) {
+                decoder = Optional.of(RestAPIDecoders.sniff(peekFirstNonWhitespace(in)));
+            }
+            return this.project(decoder.get()).stream(in, release);
+
+        } catch (RestAPIThrottledException e) {
+            this.getMetrics().recordError(RestAPIStatistics.getEndpoint(request));
+            throw new WayangException("REST API rejected the request due to its rate limit.", e);
+        } catch (HttpTimeoutException e) {
+            this.getMetrics().recordError(RestAPIStatistics.getEndpoint(request));
+            throw new WayangException("REST API did not respond within the deadline of the request or its response stalled.", e);
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Unable to fetch data from REST API", e);
+            this.getMetrics().recordError(RestAPIStatistics.getEndpoint(request));
+        } catch (JSONException e) {
+            logger.error("Unable to decode the response from REST API.", e);
+            this.getMetrics().recordError(RestAPIStatistics.getEndpoint(request));
         }
+        return Stream.empty();
+    }
 
-        String[] columns = lines[0].split(",");
+    /**
+     * Sends the request through the shared {@link RestAPIClient}, which keeps connections alive across calls.
+     *
+     * @param request           the {@link RestAPIRequest} to send
+     * @param additionalHeaders further headers, e.g., for conditional requests
+     * @return the {@link HttpResponse} whose body is ready to be read
+     */
+    private HttpResponse<InputStream> sendRequest(RestAPIRequest request, Map<String, String> additionalHeaders) throws IOException {
+        String hardcodedURL = "https://api.hubapi.com/crm/v3/objects/deals/search"; 
+        if ("POST".equalsIgnoreCase(request.getAPIMethod()) && !hardcodedURL.equals(request.getAPIURL())) {
+            logger.error("POST requests are only allowed to the hardcoded URL: {}", hardcodedURL);
+            throw new IllegalArgumentException("POST requests must use the hardcoded URL.");
+        }
+        return this.getClient().send(request.getAPIURL(), request.getAPIMethod(), request.getHeaders(), request.getPayload(), additionalHeaders);
+    }
 
-        JSONArray jsonArray = new JSONArray();
+    private RestAPIClient getClient() {
+        return this.client != null ? this.client : RestAPIClient.getDefault();
+    }
 
-        for (int i = 1; i < lines.length; i++) {
-            if (lines[i].trim().isEmpty()) {
-                continue;
-            }
+    /**
+     * Logs a response to the latency log and records it in the {@link MetricsRegistry}.
+     */
+    private void logResponse(RestAPIRequest request, HttpResponse<InputStream> httpResponse, long startNanos, long endNanos,
+                             String stepname, long numRecords, long numBytes) {
+        long numTransferredBytes = this.recordTransfer(request, httpResponse);
+        logAPIlatency(startNanos, endNanos, stepname, request.getAPIURL(), numRecords, numBytes, numTransferredBytes);
+        this.getMetrics().recordRequest(RestAPIStatistics.getEndpoint(request), endNanos - startNanos, numRecords, numBytes);
+    }
 
-            String[] values = lines[i].split(",");
-            JSONObject jsonObject = new JSONObject();
+    /**
+     * Records how many bytes of the response body were transferred and decoded.
+     *
+     * @return the number of transferred bytes or {@code -1} if the body does not count them
+     */
+    private long recordTransfer(RestAPIRequest request, HttpResponse<InputStream> httpResponse) {
+        if (!(httpResponse.body() instanceof RestAPIResponseBody)) return -1L;
+        RestAPIResponseBody body = (RestAPIResponseBody) httpResponse.body();
+        this.getMetrics().recordTransfer(RestAPIStatistics.getEndpoint(request), body.getNumTransferredBytes(), body.getNumDecodedBytes());
+        return body.getNumTransferredBytes();
+    }
 
-            for (int j = 0; j < columns.length; j++) {
-                String columnName = columns[j].trim();
-                String value = j < values.length ? values[j].trim() : "";
-                jsonObject.put(columnName, value);
-            }
+    private MetricsRegistry getMetrics() {
+        return this.metrics != null ? this.metrics : MetricsRegistry.getInstance();
+    }
 
-            jsonArray.put(jsonObject);
-        }
+    private RestAPIResponseCache getResponseCache() {
+        return this.responseCache != null
+                ? this.responseCache
+                : RestAPIResponseCache.getInstance(Configuration.getDefaultConfiguration());
+    }
 
-        return jsonArray;
+    private static int peekFirstNonWhitespace(BufferedReader reader) throws IOException {
+        int c;
+        do {
+            reader.mark(1);
+            c = reader.read();
+        } while (c != -1 && Character.isWhitespace(c));
+        reader.reset();
+        return c;
     }
 
     @Override
@@ -237,10 +547,19 @@ public class JavaRestAPISource extends RestAPISource implements JavaExecutionOpe
         assert inputs.length == this.getNumInputs();
         assert outputs.length == this.getNumOutputs();
     
+        this.open(javaExecutor.getConfiguration());
+        this.takeProbedResponses(operatorContext);
         try {
-            JSONArray apiResponse = fetchDataFromAPI();
-            Stream<JSONObject> responseStream = IntStream.range(0, apiResponse.length())
-                    .mapToObj(apiResponse::getJSONObject);
+            Stream<JSONObject> responseStream;
+            if (this.isAsync()) {
+                Configuration configuration = javaExecutor.getConfiguration();
+                CompletableFuture<Stream<JSONObject>> pendingResponse = CompletableFuture.supplyAsync(
+                        () -> this.createResponseStream(configuration), getIOExecutor(configuration)
+                );
+                responseStream = Stream.of(pendingResponse).flatMap(JavaRestAPISource::awaitResponse);
+            } else {
+                responseStream = this.createResponseStream(javaExecutor.getConfiguration());
+            }
             ((StreamChannel.Instance) outputs[0]).accept(responseStream);
 
             logger.info("Successfully streamed data from REST API: {}", this.getAPIURL());
@@ -250,7 +569,158 @@ public class JavaRestAPISource extends RestAPISource implements JavaExecutionOpe
             throw new WayangException("Failed to fetch data from REST API.", e);
         }
     
-        return new Tuple<>(Collections.emptyList(), Arrays.asList(outputs));
+        Configuration configuration = javaExecutor.getConfiguration();
+        ExecutionLineageNode prepareLineageNode = new ExecutionLineageNode(operatorContext);
+        prepareLineageNode.add(createLoadProfileEstimator(PREPARE_LOAD_KEY, configuration));
+        ExecutionLineageNode mainLineageNode = new ExecutionLineageNode(operatorContext);
+        mainLineageNode.add(createLoadProfileEstimator(MAIN_LOAD_KEY, configuration));
+        outputs[0].getLineage().addPredecessor(mainLineageNode);
+
+        return prepareLineageNode.collectAndMark();
+    }
+
+    /**
+     * Hands over a response that the {@link RestAPISource.CardinalityEstimator} fetched elsewhere, e.g., on the
+     * Spark driver, so that it is not requested again.
+     *
+     * @param request  one of the {@link #getRequests() requests} of this source
+     * @param response the probed response
+     */
+    public void takeProbedResponse(RestAPIRequest request, JSONArray response) {
+        this.probedResponses.put(request, response);
+    }
+
+    /**
+     * Fetches the responses to the requests of this source outside of a {@link JavaExecutor}, e.g., for a
+     * partition of the requests on a Spark executor, with the same pagination, fan-out and parse modes.
+     *
+     * @param configuration provides the {@link RestAPIClient} and the defaults for the fan-out
+     * @return a {@link Stream} over the records
+     */
+    public Stream<JSONObject> readRecords(Configuration configuration) {
+        this.open(configuration);
+        return this.createResponseStream(configuration);
+    }
+
+    /**
+     * Binds this source to the {@link RestAPIClient}, statistics, metrics and cache of a {@link Configuration}.
+     * Executions do so themselves; callers of {@link #fetchDataFromAPI()} or {@link #streamDataFromAPI()} outside
+     * of an execution, e.g., benchmarks, use the default {@link Configuration} unless they open the source first.
+     *
+     * @param configuration the {@link Configuration}
+     */
+    public void open(Configuration configuration) {
+        this.client = RestAPIClient.getInstance(configuration);
+        this.statistics = RestAPIStatistics.getInstance(configuration);
+        this.metrics = MetricsRegistry.getInstance(configuration);
+        if (this.isCaching()) {
+            this.responseCache = RestAPIResponseCache.getInstance(configuration);
+        }
+    }
+
+    /**
+     * Fetches the API responses according to the configured requests, pagination and streaming modes.
+     *
+     * @param configuration provides defaults for the fan-out over multiple requests
+     * @return a {@link Stream} over the response elements
+     */
+    private Stream<JSONObject> createResponseStream(Configuration configuration) {
+        List<RestAPIRequest> requests = this.getRequests();
+        if (requests.size() == 1) {
+            return this.createResponseStream(requests.get(0));
+        }
+
+        int maxConcurrency = this.getMaxConcurrency() > 0
+                ? this.getMaxConcurrency()
+                : (int) configuration.getLongProperty(MAX_CONCURRENCY_KEY, DEFAULT_MAX_CONCURRENCY);
+        List<Supplier<Stream<JSONObject>>> sources = new ArrayList<>(requests.size());
+        for (RestAPIRequest request : requests) {
+            sources.add(() -> this.createResponseStream(request));
+        }
+        logger.info("Fetching {} requests with a concurrency of {}.", requests.size(), maxConcurrency);
+        return new FanOutIterator<>(sources, maxConcurrency, FAN_OUT_BUFFER_SIZE).start().stream();
+    }
+
+    /**
+     * Fetches the API response to a single request according to the configured pagination and streaming modes.
+     *
+     * @param request the {@link RestAPIRequest} to send
+     * @return a {@link Stream} over the response elements, tagged if a source tag field is configured
+     */
+    private Stream<JSONObject> createResponseStream(RestAPIRequest request) {
+        Stream<JSONObject> records = this.createUntaggedResponseStream(request);
+        for (RestAPIPredicate predicate : this.getPredicates()) {
+            // The API applied the predicate already, but possibly with a different notion of equality.
+            records = records.filter(predicate);
+        }
+        if (this.statistics != null) {
+            records = this.statistics.observeCardinality(RestAPIStatistics.getEndpoint(request), records);
+        }
+        if (this.getSourceTagField() == null) return records;
+        String tag = request.getTag() != null ? request.getTag() : request.getAPIURL();
+        return records.peek(record -> record.put(this.getSourceTagField(), tag));
+    }
+
+    private Stream<JSONObject> createUntaggedResponseStream(RestAPIRequest request) {
+        if (this.getPagination() != null) {
+            PaginatedRecordIterator records = new PaginatedRecordIterator(
+                    this.getPagination(), request.getAPIURL(), request.getPayload(),
+                    (pageURL, pagePayload) -> this.fetchDataFromAPI(request.withURLAndPayload(pageURL, pagePayload), true)
+            );
+            if (this.isAsync()) {
+                // Request the first page right away rather than when the consumer asks for it.
+                records.hasNext();
+            }
+            Set<String> projection = this.getProjection();
+            if (projection == null) return records.stream();
+            return records.stream().map(record -> RestAPIDecoders.project(record, projection));
+        } else if (this.isStreaming() && !this.isCaching() && !this.probedResponses.containsKey(request)) {
+            return streamDataFromAPI(request);
+        } else {
+            JSONArray apiResponse = fetchDataFromAPI(request);
+            return IntStream.range(0, apiResponse.length())
+                    .mapToObj(apiResponse::getJSONObject);
+        }
+    }
+
+    /**
+     * Takes over the responses that the {@link RestAPISource.CardinalityEstimator} fetched for this job.
+     */
+    private void takeProbedResponses(OptimizationContext.OperatorContext operatorContext) {
+        if (operatorContext == null) return;
+        Map<String, Object> jobCache = operatorContext.getOptimizationContext().getJob().getCache();
+        for (RestAPIRequest request : this.getRequests()) {
+            Object probedResponse = jobCache.remove(getProbeJobCacheKey(request));
+            if (probedResponse instanceof JSONArray) {
+                this.probedResponses.put(request, (JSONArray) probedResponse);
+            }
+        }
+    }
+
+    private static Stream<JSONObject> awaitResponse(CompletableFuture<Stream<JSONObject>> pendingResponse) {
+        try {
+            return pendingResponse.join();
+        } catch (CompletionException e) {
+            throw new WayangException("Failed to fetch data from REST API.", e.getCause());
+        }
+    }
+
+    /**
+     * Provides the executor that runs asynchronous fetches, so that they do not block the {@link JavaExecutor}.
+     *
+     * @param configuration provides the number of I/O threads upon first use
+     * @return the shared {@link ExecutorService}
+     */
+    private static synchronized ExecutorService getIOExecutor(Configuration configuration) {
+        if (ioExecutor == null) {
+            int numThreads = (int) configuration.getLongProperty(IO_THREADS_KEY, DEFAULT_IO_THREADS);
+            ioExecutor = Executors.newFixedThreadPool(numThreads, runnable -> {
+                Thread thread = new Thread(runnable, "rest-api-io");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return ioExecutor;
     }
 
     @Override
@@ -260,7 +730,29 @@ public class JavaRestAPISource extends RestAPISource implements JavaExecutionOpe
 
     @Override
     public Collection<String> getLoadProfileEstimatorConfigurationKeys() {
-        return Arrays.asList("wayang.java.restapisource.load.prepare", "wayang.java.restapisource.load.main");
+        return Arrays.asList(PREPARE_LOAD_KEY, MAIN_LOAD_KEY);
+    }
+
+    @Override
+    public Optional<LoadProfileEstimator> createLoadProfileEstimator(Configuration configuration) {
+        LoadProfileEstimator mainEstimator = createLoadProfileEstimator(MAIN_LOAD_KEY, configuration);
+        mainEstimator.nest(createLoadProfileEstimator(PREPARE_LOAD_KEY, configuration));
+        return Optional.of(mainEstimator);
+    }
+
+    /**
+     * Creates the {@link LoadProfileEstimator} for the given key from the {@link Configuration} or, if it does
+     * not specify one, from the default specification.
+     *
+     * @param configurationKey {@link #PREPARE_LOAD_KEY} or {@link #MAIN_LOAD_KEY}
+     * @param configuration    may override the default specification
+     * @return the {@link LoadProfileEstimator}
+     */
+    public static LoadProfileEstimator createLoadProfileEstimator(String configurationKey, Configuration configuration) {
+        String specification = configuration.getOptionalStringProperty(configurationKey).orElse(
+                MAIN_LOAD_KEY.equals(configurationKey) ? DEFAULT_MAIN_LOAD_SPECIFICATION : DEFAULT_PREPARE_LOAD_SPECIFICATION
+        );
+        return LoadProfileEstimators.createFromSpecification(configurationKey, specification);
     }
 
     @Override
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Pulls {@link JSONObject}s one by one from a JSON document on a {@link Reader}. A top-level array yields
+ * its elements as soon as each one is complete; a top-level object yields itself and any top-level objects
+ * that follow it.
+ * <p>If a projection is given, only the named fields are decoded and the values of all other fields are
+ * skipped character by character, so that they are never materialized.</p>
+ */
+public class JsonRecordIterator implements Iterator<JSONObject>, AutoCloseable {
+
+    private final JSONTokener tokener;
+
+    /**
+     * Released once the document is exhausted or this instance is closed.
+     */
+    private final Closeable resource;
+
+    private final boolean isArray;
+
+    /**
+     * The fields to decode or {@code null} to decode all fields.
+     */
+    private final Projection projection;
+
+    private int numReadElements = 0;
+
+    private JSONObject next;
+
+    private boolean isExhausted = false, isClosed = false;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param reader   provides the JSON document; must start with a JSON array or object
+     * @param resource released together with the {@code reader}, e.g., the underlying connection
+     */
+    public JsonRecordIterator(Reader reader, Closeable resource) {
+        this(reader, resource, null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param reader     provides the JSON document; must start with a JSON array or object
+     * @param resource   released together with the {@code reader}, e.g., the underlying connection
+     * @param projection the fields to keep or {@code null} to keep all fields; see
+     *                   {@link RestAPIDecoders#project(JSONObject, Set)}
+     */
+    public JsonRecordIterator(Reader reader, Closeable resource, Set<String> projection) {
+        this.tokener = new JSONTokener(reader);
+        this.projection = projection == null ? null : new Projection(projection);
+        this.resource = () -> {
+            try {
+                reader.close();
+            } finally {
+                resource.close();
+            }
+        };
+        char first = this.tokener.nextClean();
+        if (first == '{') {
+            this.tokener.back();
+            this.isArray = false;
+        } else if (first == '[') {
+            this.isArray = true;
+        } else {
+            this.close();
+            throw this.tokener.syntaxError("A JSON document must start with '[' or '{'");
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.next == null && !this.isExhausted) {
+            try {
+                this.next = this.readNext();
+            } catch (RuntimeException e) {
+                this.close();
+                throw e;
+            }
+            if (this.next == null) {
+                this.isExhausted = true;
+                this.close();
+            }
+        }
+        return this.next != null;
+    }
+
+    @Override
+    public JSONObject next() {
+        if (!this.hasNext()) throw new NoSuchElementException();
+        JSONObject element = this.next;
+        this.next = null;
+        return element;
+    }
+
+    private JSONObject readNext() {
+        if (!this.isArray) {
+            // Further top-level objects, e.g., of newline-delimited JSON, are emitted one after another.
+            if (this.numReadElements > 0) {
+                if (this.tokener.nextClean() != '{') return null;
+                this.tokener.back();
+            }
+            this.numReadElements++;
+            return this.projection == null ? new JSONObject(this.tokener) : this.readObject(this.projection);
+        }
+
+        char c = this.tokener.nextClean();
+        if (c == ']') return null;
+        if (this.numReadElements > 0) {
+            if (c != ',') throw this.tokener.syntaxError("Expected ',' or ']'");
+        } else {
+            this.tokener.back();
+        }
+
+        Object value;
+        if (this.projection == null) {
+            value = this.tokener.nextValue();
+        } else {
+            boolean isObject = this.tokener.nextClean() == '{';
+            this.tokener.back();
+            value = isObject ? this.readObject(this.projection) : null;
+        }
+        if (!(value instanceof JSONObject)) {
+            throw new JSONException(String.format("JSONArray[%d] is not a JSONObject.", this.numReadElements));
+        }
+        this.numReadElements++;
+        return (JSONObject) value;
+    }
+
+    /**
+     * Decodes the fields of an object that the given {@link Projection} keeps and skips all others.
+     *
+     * @param projection the {@link Projection}
+     * @return the decoded object
+     */
+    private JSONObject readObject(Projection projection) {
+        if (this.tokener.nextClean() != '{') throw this.tokener.syntaxError("A JSONObject text must begin with '{'");
+        JSONObject object = new JSONObject();
+        while (true) {
+            char c = this.tokener.nextClean();
+            if (c == '}') return object;
+            if (c == 0) throw this.tokener.syntaxError("A JSONObject text must end with '}'");
+            this.tokener.back();
+            String key = this.tokener.nextValue().toString();
+            if (this.tokener.nextClean() != ':') throw this.tokener.syntaxError("Expected a ':' after a key");
+
+            Projection nestedProjection = projection.nestedProjections.get(key);
+            if (projection.keys.contains(key)) {
+                object.put(key, this.tokener.nextValue());
+            } else if (nestedProjection != null && this.tokener.nextClean() == '{') {
+                this.tokener.back();
+                object.put(key, this.readObject(nestedProjection));
+            } else {
+                if (nestedProjection != null) this.tokener.back();
+                this.skipValue();
+            }
+
+            c = this.tokener.nextClean();
+            if (c == '}') return object;
+            if (c != ',') throw this.tokener.syntaxError("Expected a ',' or '}'");
+        }
+    }
+
+    /**
+     * Reads past the next value without decoding it.
+     */
+    private void skipValue() {
+        char c = this.tokener.nextClean();
+        if (c == '"' || c == '\'') {
+            this.skipString(c);
+        } else if (c == '{' || c == '[') {
+            int depth = 1;
+            while (depth > 0) {
+                c = this.tokener.next();
+                if (c == '"' || c == '\'') {
+                    this.skipString(c);
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                } else if (c == 0) {
+                    throw this.tokener.syntaxError("Unterminated JSON value");
+                }
+            }
+        } else {
+            // An unquoted literal, e.g., a number, true, false, or null.
+            while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
+                c = this.tokener.next();
+            }
+            this.tokener.back();
+        }
+    }
+
+    private void skipString(char quote) {
+        while (true) {
+            char c = this.tokener.next();
+            if (c == quote) return;
+            if (c == '\\') {
+                this.tokener.next();
+            } else if (c == 0 || c == '\n' || c == '\r') {
+                throw this.tokener.syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    /**
+     * Exposes the remaining elements as a sequential {@link Stream} that closes this instance when closed.
+     *
+     * @return the {@link Stream}
+     */
+    public Stream<JSONObject> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+        ).onClose(this::close);
+    }
+
+    /**
+     * The fields to decode from an object: the values of its {@link #keys} and the fields of nested objects.
+     */
+    private static class Projection {
+
+        private final Set<String> keys = new HashSet<>();
+
+        private final Map<String, Projection> nestedProjections = new HashMap<>();
+
+        private Projection(Collection<String> fields) {
+            fields.forEach(this::add);
+        }
+
+        private void add(String field) {
+            this.keys.add(field);
+            int separatorIndex = field.indexOf('.');
+            if (separatorIndex >= 0) {
+                this.nestedProjections
+                        .computeIfAbsent(field.substring(0, separatorIndex), key -> new Projection(Collections.emptySet()))
+                        .add(field.substring(separatorIndex + 1));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.isClosed) return;
+        this.isClosed = true;
+        try {
+            this.resource.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not release the JSON document.", e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.metrics;
+
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies with a bounded relative error, in the spirit of HdrHistogram.
+ * <p>Latencies are recorded in microseconds. Values below {@value #SUB_BUCKET_COUNT} are counted exactly; above,
+ * every power of two is split into {@value #HALF_SUB_BUCKET_COUNT} linear buckets, so that percentiles are
+ * accurate to within about 1.6%. The maximum is tracked exactly. Values of more than about 38 hours are
+ * counted in the last bucket.</p>
+ */
+public class LatencyHistogram implements LatencyHistogramMXBean {
+
+    private static final int SUB_BUCKET_BITS = 7;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+
+    private static final int MAX_EXPONENT = 30;
+
+    private static final int NUM_BUCKETS = (MAX_EXPONENT + 2) * HALF_SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+
+    private final LongAdder count = new LongAdder(), sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds, e.g., the difference of two {@link System#nanoTime()} calls
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0L, nanos / 1000L);
+        this.buckets.incrementAndGet(getBucket(micros));
+        this.count.increment();
+        this.sum.add(micros);
+        this.max.accumulateAndGet(micros, Math::max);
+    }
+
+    private static int getBucket(long micros) {
+        if (micros < SUB_BUCKET_COUNT) return (int) micros;
+        int exponent = 63 - Long.numberOfLeadingZeros(micros) - (SUB_BUCKET_BITS - 1);
+        if (exponent > MAX_EXPONENT) return NUM_BUCKETS - 1;
+        return exponent * HALF_SUB_BUCKET_COUNT + (int) (micros >>> exponent);
+    }
+
+    /**
+     * @return the largest value, in microseconds, that is counted in the given bucket
+     */
+    private static long getBucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) return bucket;
+        int exponent = bucket / HALF_SUB_BUCKET_COUNT - 1;
+        long subBucket = bucket % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << exponent) - 1;
+    }
+
+    /**
+     * Determines the latency below which the given fraction of the recorded latencies lies.
+     *
+     * @param percentile in {@code [0, 100]}
+     * @return the latency in microseconds or {@code 0} if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] counts = new long[NUM_BUCKETS];
+        long total = 0L;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            counts[bucket] = this.buckets.get(bucket);
+            total += counts[bucket];
+        }
+        if (total == 0L) return 0L;
+        long rank = Math.max(1L, (long) Math.ceil(Math.min(100d, percentile) / 100d * total));
+        long seen = 0L;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) return Math.min(getBucketUpperBound(bucket), this.max.get());
+        }
+        return this.max.get();
+    }
+
+    @Override
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long count = this.count.sum();
+        return count == 0L ? 0d : this.sum.sum() / 1000d / count;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return this.getValueAtPercentile(50d) / 1000d;
+    }
+
+    @Override
+    public double getP95Millis() {
+        return this.getValueAtPercentile(95d) / 1000d;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return this.getValueAtPercentile(99d) / 1000d;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return this.max.get() / 1000d;
+    }
+
+    /**
+     * @return the count, mean, percentiles, and maximum in milliseconds
+     */
+    public JSONObject toJSON() {
+        return new JSONObject()
+                .put("count", this.getCount())
+                .put("mean_ms", this.getMeanMillis())
+                .put("p50_ms", this.getP50Millis())
+                .put("p95_ms", this.getP95Millis())
+                .put("p99_ms", this.getP99Millis())
+                .put("max_ms", this.getMaxMillis());
+    }
+}
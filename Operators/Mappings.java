@@ -18,6 +18,7 @@
 
 package org.apache.wayang.java.mapping;
 
+import org.apache.wayang.basic.mapping.RestAPIFilterPushdownMapping;
 import org.apache.wayang.core.mapping.Mapping;
 import org.apache.wayang.java.mapping.graph.PageRankMapping;
 
@@ -34,6 +35,8 @@ public class Mappings {
             new TextFileSinkMapping(),
             new ObjectFileSourceMapping(),
             new ObjectFileSinkMapping(),
+            // Precedes the mappings of the operators whose combination it replaces.
+            new RestAPIFilterPushdownMapping(),
             new MapMapping(),
             new MapPartitionsMapping(),
             new ReduceByMapping(),
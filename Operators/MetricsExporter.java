@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Exports the JSON Lines files of a {@link MetricsSink} to a single JSON array, i.e., the layout of the files in
+ * {@code Results/}, which the analysis notebook reads.
+ * <p>Usage: {@code MetricsExporter <directory> <name> [<target>]}, where the target defaults to
+ * {@code <directory>/<name>.json}.</p>
+ */
+public class MetricsExporter {
+
+    private static final Logger logger = LogManager.getLogger(MetricsExporter.class);
+
+    /**
+     * Lists the files of the given metrics in the order in which they were written, i.e., the rolled over files
+     * followed by the current file.
+     *
+     * @param directory the directory of the {@link MetricsSink}
+     * @param name      the name of the metrics
+     * @return the existing files
+     * @throws IOException if the directory cannot be listed
+     */
+    public static List<Path> listFiles(Path directory, String name) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return files;
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, name + "*" + MetricsSink.EXTENSION)) {
+            for (Path path : paths) {
+                if (getSequenceNumber(path, name) >= 0) files.add(path);
+            }
+        }
+        files.sort(Comparator.comparingInt((Path path) -> {
+            int sequenceNumber = getSequenceNumber(path, name);
+            return sequenceNumber == 0 ? Integer.MAX_VALUE : sequenceNumber;
+        }));
+        return files;
+    }
+
+    /**
+     * Determines the position of a file among the files of the given metrics.
+     *
+     * @return the sequence number of a rolled over file, {@code 0} for the current file, or {@code -1} if the file
+     * does not belong to the metrics
+     */
+    static int getSequenceNumber(Path file, String name) {
+        String fileName = file.getFileName().toString();
+        if (fileName.equals(name + MetricsSink.EXTENSION)) return 0;
+        Matcher matcher = Pattern.compile(Pattern.quote(name) + "\\.(\\d+)" + Pattern.quote(MetricsSink.EXTENSION)).matcher(fileName);
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    /**
+     * Reads all records of the given metrics. Lines that are not valid JSON, e.g., a line that was cut off by a
+     * crash, are skipped.
+     *
+     * @param directory the directory of the {@link MetricsSink}
+     * @param name      the name of the metrics
+     * @return the records in the order in which they were written
+     * @throws IOException if the files cannot be read
+     */
+    public static JSONArray read(Path directory, String name) throws IOException {
+        JSONArray records = new JSONArray();
+        for (Path file : listFiles(directory, name)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) continue;
+                    try {
+                        records.put(new JSONObject(line));
+                    } catch (JSONException e) {
+                        logger.warn("Skipping an invalid record in {}.", file);
+                    }
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Writes all records of the given metrics to a JSON array.
+     *
+     * @param directory the directory of the {@link MetricsSink}
+     * @param name      the name of the metrics
+     * @param target    the file to write
+     * @throws IOException if the files cannot be read or written
+     */
+    public static void export(Path directory, String name, Path target) throws IOException {
+        JSONArray records = read(directory, name);
+        Path temporaryFile = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporaryFile, records.toString(4).getBytes(StandardCharsets.UTF_8));
+            Files.move(temporaryFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: MetricsExporter <directory> <name> [<target>]");
+            System.exit(1);
+        }
+        Path directory = Paths.get(args[0]);
+        Path target = args.length > 2 ? Paths.get(args[2]) : directory.resolve(args[1] + ".json");
+        export(directory, args[1], target);
+    }
+}
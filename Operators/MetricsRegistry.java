@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.wayang.core.api.Configuration;
+import org.json.JSONObject;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process latency histograms and counters for REST sources and pipeline stages.
+ * <p>Metrics are identified by names: for a REST endpoint (see
+ * {@code org.apache.wayang.basic.rest.RestAPIStatistics#getEndpoint}), they are {@code rest.<endpoint>.latency},
+ * {@code .requests}, {@code .records}, {@code .bytes}, {@code .bytes.transferred}, {@code .bytes.decoded}, and
+ * {@code .errors}; for a pipeline step, it is
+ * {@code step.<step>.latency}. Every metric is registered as an MXBean under {@value #JMX_DOMAIN}, and a
+ * snapshot of all metrics is recorded periodically and at shutdown in the {@value #SNAPSHOT_METRICS}
+ * {@link MetricsSink}.</p>
+ */
+public class MetricsRegistry {
+
+    private static final Logger logger = LogManager.getLogger(MetricsRegistry.class);
+
+    /**
+     * Interval in milliseconds in which snapshots are recorded; {@code 0} records them only at shutdown.
+     */
+    public static final String SNAPSHOT_INTERVAL_KEY = "wayang.metrics.snapshot.interval";
+
+    /**
+     * Whether the metrics are registered with the platform MBean server.
+     */
+    public static final String JMX_ENABLED_KEY = "wayang.metrics.jmx.enabled";
+
+    public static final String JMX_DOMAIN = "org.apache.wayang.metrics";
+
+    public static final String SNAPSHOT_METRICS = "metrics-snapshot";
+
+    private static MetricsRegistry instance;
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private final boolean isJMXEnabled;
+
+    private final MetricsSink snapshotSink;
+
+    private MetricsRegistry(Configuration configuration) {
+        this.isJMXEnabled = configuration.getBooleanProperty(JMX_ENABLED_KEY, true);
+        this.snapshotSink = MetricsSink.getInstance(SNAPSHOT_METRICS, configuration);
+        MetricsSink.beforeShutdown(this::recordSnapshot);
+
+        long snapshotInterval = configuration.getLongProperty(SNAPSHOT_INTERVAL_KEY, 60000L);
+        if (snapshotInterval > 0) {
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(this::recordSnapshot, snapshotInterval, snapshotInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Provides the registry of this JVM. The settings are taken from the first {@link Configuration} that is
+     * passed.
+     *
+     * @param configuration provides the settings
+     * @return the shared {@link MetricsRegistry}
+     */
+    public static synchronized MetricsRegistry getInstance(Configuration configuration) {
+        if (instance == null) {
+            instance = new MetricsRegistry(configuration);
+        }
+        return instance;
+    }
+
+    /**
+     * Provides the registry of this JVM with the default {@link Configuration}.
+     *
+     * @see #getInstance(Configuration)
+     */
+    public static MetricsRegistry getInstance() {
+        return getInstance(Configuration.getDefaultConfiguration());
+    }
+
+    /**
+     * Provides the histogram with the given name and creates it if it does not exist.
+     */
+    public LatencyHistogram getHistogram(String name) {
+        return this.histograms.computeIfAbsent(name, key -> this.register(key, "Latency", new LatencyHistogram()));
+    }
+
+    /**
+     * Provides the counter with the given name and creates it if it does not exist.
+     */
+    public Counter getCounter(String name) {
+        return this.counters.computeIfAbsent(name, key -> this.register(key, "Counter", new Counter()));
+    }
+
+    /**
+     * Records a successful request to a REST endpoint.
+     *
+     * @param endpoint     identifies the endpoint
+     * @param latencyNanos the time until the response has been read
+     * @param numRecords   the number of records in the response
+     * @param numBytes     the size of the response
+     */
+    public void recordRequest(String endpoint, long latencyNanos, long numRecords, long numBytes) {
+        this.getHistogram("rest." + endpoint + ".latency").record(latencyNanos);
+        this.getCounter("rest." + endpoint + ".requests").increment(1L);
+        if (numRecords >= 0) this.getCounter("rest." + endpoint + ".records").increment(numRecords);
+        if (numBytes >= 0) this.getCounter("rest." + endpoint + ".bytes").increment(numBytes);
+    }
+
+    /**
+     * Records the size of a response body as transferred, i.e., possibly compressed, and as decompressed; see
+     * {@code org.apache.wayang.basic.rest.RestAPIResponseBody}.
+     *
+     * @param endpoint            identifies the endpoint
+     * @param numTransferredBytes the number of bytes read from the connection
+     * @param numDecodedBytes     the number of bytes after decompression
+     */
+    public void recordTransfer(String endpoint, long numTransferredBytes, long numDecodedBytes) {
+        this.getCounter("rest." + endpoint + ".bytes.transferred").increment(numTransferredBytes);
+        this.getCounter("rest." + endpoint + ".bytes.decoded").increment(numDecodedBytes);
+    }
+
+    /**
+     * Records a failed request to a REST endpoint.
+     *
+     * @param endpoint identifies the endpoint
+     */
+    public void recordError(String endpoint) {
+        this.getCounter("rest." + endpoint + ".errors").increment(1L);
+    }
+
+    /**
+     * Records the duration of a pipeline step.
+     *
+     * @param step         the name of the step, e.g., {@code HubSpot Query}
+     * @param latencyNanos the duration
+     */
+    public void recordStep(String step, long latencyNanos) {
+        this.getHistogram("step." + step + ".latency").record(latencyNanos);
+    }
+
+    /**
+     * @return the current values of all metrics
+     */
+    public JSONObject snapshot() {
+        JSONObject histograms = new JSONObject();
+        new TreeMap<>(this.histograms).forEach((name, histogram) -> histograms.put(name, histogram.toJSON()));
+        JSONObject counters = new JSONObject();
+        new TreeMap<>(this.counters).forEach((name, counter) -> counters.put(name, counter.getCount()));
+        return new JSONObject()
+                .put("timestamp", Instant.now().toString())
+                .put("histograms", histograms)
+                .put("counters", counters);
+    }
+
+    /**
+     * Records a {@link #snapshot()} in the {@value #SNAPSHOT_METRICS} {@link MetricsSink} unless there are no
+     * metrics yet.
+     */
+    public void recordSnapshot() {
+        if (this.histograms.isEmpty() && this.counters.isEmpty()) return;
+        this.snapshotSink.record(this.snapshot());
+    }
+
+    private <T> T register(String name, String type, T metric) {
+        if (!this.isJMXEnabled) return metric;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(String.format("%s:type=%s,name=%s", JMX_DOMAIN, type, ObjectName.quote(name)));
+            if (!server.isRegistered(objectName)) server.registerMBean(metric, objectName);
+        } catch (JMException | RuntimeException e) {
+            logger.warn("Could not register the metric {} with JMX.", name, e);
+        }
+        return metric;
+    }
+
+    /**
+     * Thread-safe, monotonic counter.
+     */
+    public static class Counter implements CounterMXBean {
+
+        private final LongAdder count = new LongAdder();
+
+        public void increment(long delta) {
+            this.count.add(delta);
+        }
+
+        @Override
+        public long getCount() {
+            return this.count.sum();
+        }
+    }
+}
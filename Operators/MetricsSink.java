@@ -0,0 +1,395 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.wayang.core.api.Configuration;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous, append-only writer for metrics records, e.g., API latencies and query times.
+ * <p>Records are queued by the caller and written as JSON Lines ({@code <name>.jsonl}) by a background thread
+ * that flushes periodically, so that logging a record costs neither I/O nor time proportional to the size of
+ * the log. Once the file exceeds its maximum size, it is rolled over to {@code <name>.<n>.jsonl}. If the queue
+ * is full, records are dropped rather than blocking the caller.</p>
+ * <p>Instances are shared by all callers that write to the same file; see
+ * {@link #getInstance(String, Configuration)}. They are flushed and closed at JVM shutdown, at which point the
+ * records are also exported to the JSON array in {@code <name>.json} that the analysis expects unless
+ * {@link #EXPORT_ON_CLOSE_KEY} is disabled; see {@link MetricsExporter}.</p>
+ */
+public class MetricsSink implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(MetricsSink.class);
+
+    /**
+     * Directory in which the metrics files are written.
+     */
+    public static final String DIRECTORY_KEY = "wayang.metrics.directory";
+
+    /**
+     * Interval in milliseconds in which written records are flushed to the file.
+     */
+    public static final String FLUSH_INTERVAL_KEY = "wayang.metrics.flush-interval";
+
+    /**
+     * Size in bytes after which a metrics file is rolled over.
+     */
+    public static final String MAX_FILE_SIZE_KEY = "wayang.metrics.max-file-size";
+
+    /**
+     * Maximum number of records that are queued for writing.
+     */
+    public static final String QUEUE_CAPACITY_KEY = "wayang.metrics.queue-capacity";
+
+    /**
+     * Whether the records are exported to a JSON array when the sink is closed.
+     */
+    public static final String EXPORT_ON_CLOSE_KEY = "wayang.metrics.export-on-close";
+
+    static final String EXTENSION = ".jsonl";
+
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    private static final Map<Path, MetricsSink> instances = new ConcurrentHashMap<>();
+
+    private static final List<Runnable> shutdownListeners = new CopyOnWriteArrayList<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(MetricsSink::closeAll, "metrics-shutdown"));
+    }
+
+    private final Path directory;
+
+    private final String name;
+
+    private final long flushInterval, maxFileSize;
+
+    private final boolean isExportOnClose;
+
+    private final BlockingQueue<Object> queue;
+
+    private final Thread writerThread;
+
+    private final AtomicLong numDropped = new AtomicLong();
+
+    private volatile boolean isClosed = false;
+
+    /**
+     * The current file; only accessed by the {@link #writerThread}.
+     */
+    private BufferedWriter writer;
+
+    private long fileSize;
+
+    private MetricsSink(Path file, Configuration configuration) {
+        this.directory = file.getParent();
+        this.name = file.getFileName().toString().substring(0, file.getFileName().toString().length() - EXTENSION.length());
+        this.flushInterval = Math.max(1L, configuration.getLongProperty(FLUSH_INTERVAL_KEY, 1000L));
+        this.maxFileSize = configuration.getLongProperty(MAX_FILE_SIZE_KEY, 64L * 1024 * 1024);
+        this.isExportOnClose = configuration.getBooleanProperty(EXPORT_ON_CLOSE_KEY, true);
+        this.queue = new ArrayBlockingQueue<>((int) configuration.getLongProperty(QUEUE_CAPACITY_KEY, 65536L));
+        this.writerThread = new Thread(this::run, "metrics-" + this.name);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Provides the sink for the given metrics.
+     *
+     * @param name          the name of the metrics, e.g., {@code json-api-latency}
+     * @param configuration provides the settings of the sink if it does not exist yet
+     * @return the shared {@link MetricsSink}
+     */
+    public static MetricsSink getInstance(String name, Configuration configuration) {
+        Path directory = Paths.get(configuration.getStringProperty(DIRECTORY_KEY, ".")).toAbsolutePath().normalize();
+        return instances.computeIfAbsent(
+                directory.resolve(name + EXTENSION),
+                file -> new MetricsSink(file, configuration)
+        );
+    }
+
+    /**
+     * Provides the sink for the given metrics with the default {@link Configuration}.
+     *
+     * @see #getInstance(String, Configuration)
+     */
+    public static MetricsSink getInstance(String name) {
+        return getInstance(name, Configuration.getDefaultConfiguration());
+    }
+
+    /**
+     * Queues a record for writing. This method does not block.
+     *
+     * @param record the record
+     */
+    public void record(JSONObject record) {
+        if (this.isClosed) {
+            logger.warn("Dropping a record for the closed metrics sink {}.", this.name);
+            return;
+        }
+        if (!this.queue.offer(record.toString()) && this.numDropped.getAndIncrement() % 1000 == 0) {
+            logger.warn("The metrics queue for {} is full; {} records have been dropped so far.",
+                    this.name, this.numDropped.get());
+        }
+    }
+
+    /**
+     * Waits until all records queued so far have been written and flushed.
+     */
+    public void flush() {
+        Marker marker = new Marker(false);
+        synchronized (this) {
+            // Checked under the lock of close(), so that the marker is queued ahead of the closing one.
+            if (this.isClosed || !this.enqueue(marker)) return;
+        }
+        this.await(marker);
+    }
+
+    /**
+     * Writes and flushes all queued records and stops the sink. Records that are queued afterwards are dropped.
+     */
+    @Override
+    public void close() {
+        Marker marker = new Marker(true);
+        synchronized (this) {
+            if (this.isClosed) return;
+            this.isClosed = true;
+            if (!this.enqueue(marker)) return;
+        }
+        this.await(marker);
+        instances.remove(this.getFile(), this);
+        if (this.isExportOnClose) {
+            try {
+                MetricsExporter.export(this.directory, this.name, this.directory.resolve(this.name + ".json"));
+            } catch (IOException e) {
+                logger.warn("Could not export the metrics {}.", this.name, e);
+            }
+        }
+    }
+
+    /**
+     * Registers an action that records final metrics when the JVM shuts down, before the sinks are closed.
+     */
+    static void beforeShutdown(Runnable listener) {
+        shutdownListeners.add(listener);
+    }
+
+    private static void closeAll() {
+        for (Runnable listener : shutdownListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                logger.warn("Could not record the final metrics.", e);
+            }
+        }
+        for (MetricsSink sink : new ArrayList<>(instances.values())) {
+            sink.close();
+        }
+    }
+
+    private boolean enqueue(Marker marker) {
+        try {
+            this.queue.put(marker);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Waits until the writer thread has processed a marker or has stopped without processing it.
+     */
+    private void await(Marker marker) {
+        try {
+            while (!marker.done.await(this.flushInterval, TimeUnit.MILLISECONDS)) {
+                if (!this.writerThread.isAlive()) return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * @return the file that is currently written
+     */
+    public Path getFile() {
+        return this.directory.resolve(this.name + EXTENSION);
+    }
+
+    /**
+     * @return the number of records that have been dropped because the queue was full
+     */
+    public long getNumDropped() {
+        return this.numDropped.get();
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        long nextFlush = System.currentTimeMillis() + this.flushInterval;
+        boolean isRunning = true;
+        while (isRunning) {
+            try {
+                Object item = this.queue.poll(Math.max(0L, nextFlush - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (item != null) {
+                    batch.add(item);
+                    this.queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                }
+                for (Object element : batch) {
+                    if (element instanceof Marker) {
+                        Marker marker = (Marker) element;
+                        this.flushFile();
+                        if (marker.isClose) {
+                            this.closeFile();
+                            isRunning = false;
+                        }
+                        marker.done.countDown();
+                    } else if (isRunning) {
+                        this.write((String) element);
+                    }
+                }
+                batch.clear();
+                if (System.currentTimeMillis() >= nextFlush) {
+                    this.flushFile();
+                    nextFlush = System.currentTimeMillis() + this.flushInterval;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Could not write the metrics {}: {}", this.name, e.getMessage(), e);
+                for (Object element : batch) {
+                    if (element instanceof Marker) ((Marker) element).done.countDown();
+                }
+                batch.clear();
+                this.closeFile();
+            }
+        }
+    }
+
+    private void write(String line) throws IOException {
+        long numBytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+        if (this.writer == null) {
+            this.openFile();
+        } else if (this.fileSize > 0 && this.fileSize + numBytes > this.maxFileSize) {
+            this.rollOver();
+        }
+        this.writer.write(line);
+        this.writer.newLine();
+        this.fileSize += numBytes;
+    }
+
+    private void openFile() throws IOException {
+        Files.createDirectories(this.directory);
+        Path file = this.getFile();
+        if (!Files.exists(file) && MetricsExporter.listFiles(this.directory, this.name).isEmpty()) {
+            this.importLegacyFile(file);
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.fileSize = Files.size(file);
+    }
+
+    /**
+     * Carries over the records of a JSON array that was written before this sink existed, so that exporting
+     * does not lose them.
+     */
+    private void importLegacyFile(Path file) throws IOException {
+        Path legacyFile = this.directory.resolve(this.name + ".json");
+        if (!Files.exists(legacyFile)) return;
+        try {
+            JSONArray records = new JSONArray(new String(Files.readAllBytes(legacyFile), StandardCharsets.UTF_8));
+            try (BufferedWriter legacyWriter = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < records.length(); i++) {
+                    legacyWriter.write(records.get(i).toString());
+                    legacyWriter.newLine();
+                }
+            }
+        } catch (JSONException e) {
+            logger.warn("Could not import the metrics in {}.", legacyFile, e);
+        }
+    }
+
+    private void rollOver() throws IOException {
+        this.writer.close();
+        this.writer = null;
+        int sequenceNumber = 1;
+        for (Path rolledFile : MetricsExporter.listFiles(this.directory, this.name)) {
+            sequenceNumber = Math.max(sequenceNumber, MetricsExporter.getSequenceNumber(rolledFile, this.name) + 1);
+        }
+        Files.move(this.getFile(), this.directory.resolve(String.format("%s.%d%s", this.name, sequenceNumber, EXTENSION)));
+        this.openFile();
+    }
+
+    private void flushFile() throws IOException {
+        if (this.writer != null) this.writer.flush();
+    }
+
+    private void closeFile() {
+        if (this.writer == null) return;
+        try {
+            this.writer.close();
+        } catch (IOException e) {
+            logger.warn("Could not close the metrics file for {}.", this.name, e);
+        }
+        this.writer = null;
+    }
+
+    /**
+     * Asks the {@link #writerThread} to flush or close once it has written all previously queued records.
+     */
+    private static class Marker {
+
+        private final boolean isClose;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private Marker(boolean isClose) {
+            this.isClose = isClose;
+        }
+    }
+}
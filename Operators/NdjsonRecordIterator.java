@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Pulls {@link JSONObject}s one by one from newline-delimited JSON (NDJSON, JSON Lines) on a
+ * {@link BufferedReader}: every non-blank line is a record and is emitted as soon as it has been read.
+ */
+public class NdjsonRecordIterator implements Iterator<JSONObject>, AutoCloseable {
+
+    private final BufferedReader reader;
+
+    /**
+     * Released once the input is exhausted or this instance is closed.
+     */
+    private final Closeable resource;
+
+    private int numReadLines = 0;
+
+    private JSONObject next;
+
+    private boolean isExhausted = false, isClosed = false;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param reader   provides the lines
+     * @param resource released together with the {@code reader}, e.g., the underlying connection
+     */
+    public NdjsonRecordIterator(BufferedReader reader, Closeable resource) {
+        this.reader = reader;
+        this.resource = () -> {
+            try {
+                reader.close();
+            } finally {
+                resource.close();
+            }
+        };
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.next == null && !this.isExhausted) {
+            try {
+                this.next = this.readNext();
+            } catch (IOException e) {
+                this.close();
+                throw new UncheckedIOException("Could not read the next NDJSON line.", e);
+            } catch (RuntimeException e) {
+                this.close();
+                throw e;
+            }
+            if (this.next == null) {
+                this.isExhausted = true;
+                this.close();
+            }
+        }
+        return this.next != null;
+    }
+
+    @Override
+    public JSONObject next() {
+        if (!this.hasNext()) throw new NoSuchElementException();
+        JSONObject record = this.next;
+        this.next = null;
+        return record;
+    }
+
+    private JSONObject readNext() throws IOException {
+        String line;
+        do {
+            line = this.reader.readLine();
+            if (line == null) return null;
+            this.numReadLines++;
+        } while (line.trim().isEmpty());
+        try {
+            return new JSONObject(line);
+        } catch (JSONException e) {
+            throw new JSONException(String.format("Line %d is not a JSON object.", this.numReadLines), e);
+        }
+    }
+
+    /**
+     * Exposes the remaining records as a sequential {@link Stream} that closes this instance when closed.
+     *
+     * @return the {@link Stream}
+     */
+    public Stream<JSONObject> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+        ).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (this.isClosed) return;
+        this.isClosed = true;
+        try {
+            this.resource.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not release the NDJSON input.", e);
+        }
+    }
+}
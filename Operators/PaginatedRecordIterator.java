@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.wayang.core.api.exception.WayangException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Walks all pages of a cursor-paginated REST API as described by a {@link RestAPIPagination} and provides
+ * their records as one lazy sequence. Unless prefetching is enabled, a page is only requested once the records
+ * of the previous page have been consumed.
+ */
+public class PaginatedRecordIterator implements Iterator<JSONObject>, AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(PaginatedRecordIterator.class);
+
+    /**
+     * Interval in which the prefetcher and the consumer check whether the other side has gone away.
+     */
+    private static final long HANDOVER_POLL_MILLIS = 100L;
+
+    /**
+     * Time after which the prefetcher stops waiting for a consumer that does not take its pages, e.g., because
+     * the downstream operator stopped early without closing the iterator.
+     */
+    private static final long PREFETCH_IDLE_TIMEOUT_MILLIS = 30_000L;
+
+    /**
+     * Fetches a single page of the API.
+     */
+    @FunctionalInterface
+    public interface PageFetcher {
+
+        /**
+         * @param apiURL  the URL to request
+         * @param payload the request body or {@code null}
+         * @return the parsed response
+         */
+        JSONArray fetch(String apiURL, String payload);
+
+    }
+
+    private final RestAPIPagination pagination;
+
+    private final String apiURL;
+
+    private final String payload;
+
+    private final PageFetcher pageFetcher;
+
+    private Iterator<JSONObject> currentRecords = Collections.emptyIterator();
+
+    private String cursor;
+
+    private boolean hasMorePages = true;
+
+    private volatile int numPages = 0;
+
+    /**
+     * Pages that have been fetched ahead of the consumer if prefetching is enabled.
+     */
+    private BlockingQueue<Page> prefetchedPages;
+
+    private Thread prefetcher;
+
+    private boolean isPrefetchExhausted = false;
+
+    /**
+     * The page that the prefetcher could not hand over before it stopped waiting for the consumer.
+     */
+    private Page pendingPage;
+
+    private volatile boolean isClosed = false;
+
+    public PaginatedRecordIterator(RestAPIPagination pagination, String apiURL, String payload, PageFetcher pageFetcher) {
+        this.pagination = pagination;
+        this.apiURL = apiURL;
+        this.payload = payload;
+        this.pageFetcher = pageFetcher;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!this.currentRecords.hasNext()) {
+            List<JSONObject> records;
+            if (this.pagination.getPrefetchDepth() > 0) {
+                records = this.takePrefetchedPage();
+            } else {
+                records = this.hasMorePages ? this.loadNextPage() : null;
+            }
+            if (records == null) return false;
+            this.currentRecords = records.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public JSONObject next() {
+        if (!this.hasNext()) throw new NoSuchElementException();
+        return this.currentRecords.next();
+    }
+
+    /**
+     * Requests the next page and advances the cursor.
+     *
+     * @return the records of the page
+     */
+    private List<JSONObject> loadNextPage() {
+        String pageURL = this.cursor == null ? this.apiURL : this.pagination.applyToURL(this.apiURL, this.cursor);
+        String pagePayload = this.cursor == null ? this.payload : this.pagination.applyToPayload(this.payload, this.cursor);
+        JSONArray response = this.pageFetcher.fetch(pageURL, pagePayload);
+        int pageNumber = ++this.numPages;
+
+        List<JSONObject> records = new ArrayList<>();
+        String nextCursor = null;
+        boolean isStop = false;
+        for (int i = 0; i < response.length(); i++) {
+            JSONObject page = response.getJSONObject(i);
+            records.addAll(this.pagination.extractRecords(page));
+            if (nextCursor == null) nextCursor = this.pagination.extractCursor(page);
+            isStop |= this.pagination.isStop(page, pageNumber);
+        }
+        logger.info("Fetched page {} with {} records from {}.", pageNumber, records.size(), this.apiURL);
+
+        if (nextCursor != null && nextCursor.equals(this.cursor)) {
+            logger.warn("Cursor {} repeated on page {} of {}; stopping pagination.", nextCursor, pageNumber, this.apiURL);
+            nextCursor = null;
+        }
+        this.hasMorePages = !isStop && nextCursor != null;
+        this.cursor = nextCursor;
+        return records;
+    }
+
+    /**
+     * Takes the next page from the prefetcher, which requests page N+1 as soon as the cursor of page N is
+     * known and stays at most {@link RestAPIPagination#getPrefetchDepth()} pages ahead of the consumer.
+     *
+     * @return the records of the next page or {@code null} if there are no more pages
+     */
+    private List<JSONObject> takePrefetchedPage() {
+        if (this.isPrefetchExhausted) return null;
+        if (this.prefetcher == null) this.startPrefetcher();
+
+        Page page;
+        try {
+            while ((page = this.prefetchedPages.poll(HANDOVER_POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                if (this.prefetcher.isAlive()) continue;
+                // The prefetcher stopped waiting for this consumer, so its last pages are resumed from here.
+                page = this.prefetchedPages.poll();
+                if (page == null && this.pendingPage != null) {
+                    page = this.pendingPage;
+                    this.pendingPage = null;
+                    if (page.records != null) this.startPrefetcher();
+                }
+                if (page != null) break;
+                this.startPrefetcher();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WayangException("Interrupted while waiting for the next page of " + this.apiURL, e);
+        }
+        if (page.failure != null) {
+            this.isPrefetchExhausted = true;
+            throw new WayangException("Could not prefetch the next page of " + this.apiURL, page.failure);
+        }
+        if (page.records == null) {
+            this.isPrefetchExhausted = true;
+            return null;
+        }
+        return page.records;
+    }
+
+    private void startPrefetcher() {
+        if (this.prefetchedPages == null) {
+            this.prefetchedPages = new ArrayBlockingQueue<>(this.pagination.getPrefetchDepth());
+        }
+        this.prefetcher = new Thread(() -> {
+            try {
+                Page page;
+                do {
+                    try {
+                        page = this.hasMorePages ? new Page(this.loadNextPage(), null) : new Page(null, null);
+                    } catch (Throwable t) {
+                        // Errors, too, must reach the consumer, which would otherwise wait for the page forever.
+                        page = new Page(null, t);
+                    }
+                } while (this.handOver(page) && page.records != null && page.failure == null);
+            } catch (InterruptedException e) {
+                logger.debug("Stopped prefetching pages of {}.", this.apiURL);
+            }
+        }, "rest-api-prefetch");
+        this.prefetcher.setDaemon(true);
+        this.prefetcher.start();
+    }
+
+    /**
+     * Queues a page for the consumer unless this instance is closed or the consumer has not taken a page for
+     * {@link #PREFETCH_IDLE_TIMEOUT_MILLIS}, in which case the page is kept as {@link #pendingPage}.
+     *
+     * @return whether the page was queued
+     */
+    private boolean handOver(Page page) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        while (!this.isClosed) {
+            if (this.prefetchedPages.offer(page, HANDOVER_POLL_MILLIS, TimeUnit.MILLISECONDS)) return true;
+            if (System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(PREFETCH_IDLE_TIMEOUT_MILLIS)) {
+                logger.debug("Paused prefetching pages of {} as none were consumed for {} ms.", this.apiURL, PREFETCH_IDLE_TIMEOUT_MILLIS);
+                this.pendingPage = page;
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops prefetching further pages.
+     */
+    @Override
+    public void close() {
+        this.isClosed = true;
+        if (this.prefetcher != null) {
+            this.prefetcher.interrupt();
+        }
+    }
+
+    /**
+     * A fetched page as handed over by the prefetcher; {@code records == null} marks the end of the pages.
+     */
+    private static class Page {
+
+        private final List<JSONObject> records;
+
+        private final Throwable failure;
+
+        private Page(List<JSONObject> records, Throwable failure) {
+            this.records = records;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * @return the number of pages requested so far
+     */
+    public int getNumPages() {
+        return this.numPages;
+    }
+
+    /**
+     * Exposes the records of all pages as a lazy, sequential {@link Stream}.
+     *
+     * @return the {@link Stream}
+     */
+    public Stream<JSONObject> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+        ).onClose(this::close);
+    }
+}
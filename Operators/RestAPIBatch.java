@@ -0,0 +1,406 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.wayang.basic.rest;
+
+import org.apache.wayang.basic.rest.RestAPISchema.FieldType;
+import org.apache.wayang.core.api.exception.WayangException;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * A batch of REST API records in columnar layout: {@code long} and {@code double} columns are primitive
+ * arrays, {@link LocalDate}s are stored as epoch days, and strings are dictionary-encoded, i.e., stored as
+ * codes into the distinct values of the batch. The filters, maps, and aggregates of this class run as loops
+ * over these arrays, so that a plan can process whole batches per operator invocation instead of one
+ * {@code JSONObject} at a time.
+ * <p>Batches are immutable. Filters do not copy any column but select the remaining rows.</p>
+ *
+ * @see RestAPISchema#toBatches(int)
+ */
+public class RestAPIBatch implements Serializable {
+
+    private final List<String> columnNames;
+
+    private final List<FieldType> columnTypes;
+
+    /**
+     * Per column a {@code long[]} for {@link FieldType#LONG} and {@link FieldType#DATE}, a {@code double[]},
+     * a {@code boolean[]}, or an {@code int[]} of dictionary codes for {@link FieldType#STRING}.
+     */
+    private final Object[] columns;
+
+    /**
+     * Per {@link FieldType#STRING} column the distinct values, indexed by their codes.
+     */
+    private final String[][] dictionaries;
+
+    /**
+     * Per column the rows without a value.
+     */
+    private final BitSet[] nulls;
+
+    /**
+     * The selected rows in ascending order or {@code null} if all {@link #numRows} rows are selected.
+     */
+    private final int[] selection;
+
+    private final int numRows;
+
+    private RestAPIBatch(List<String> columnNames, List<FieldType> columnTypes, Object[] columns,
+                         String[][] dictionaries, BitSet[] nulls, int[] selection, int numRows) {
+        this.columnNames = columnNames;
+        this.columnTypes = columnTypes;
+        this.columns = columns;
+        this.dictionaries = dictionaries;
+        this.nulls = nulls;
+        this.selection = selection;
+        this.numRows = numRows;
+    }
+
+    public List<String> getColumnNames() {
+        return this.columnNames;
+    }
+
+    public List<FieldType> getColumnTypes() {
+        return this.columnTypes;
+    }
+
+    /**
+     * @return the number of selected rows
+     */
+    public int size() {
+        return this.selection == null ? this.numRows : this.selection.length;
+    }
+
+    private int row(int index) {
+        return this.selection == null ? index : this.selection[index];
+    }
+
+    private int getColumnIndex(String column, FieldType expectedType) {
+        int columnIndex = this.columnNames.indexOf(column);
+        if (columnIndex < 0) {
+            throw new WayangException(String.format("Unknown column %s; the batch has %s.", column, this.columnNames));
+        }
+        if (expectedType != null && this.columnTypes.get(columnIndex) != expectedType) {
+            throw new WayangException(String.format("Column %s is of type %s, not %s.",
+                    column, this.columnTypes.get(columnIndex), expectedType));
+        }
+        return columnIndex;
+    }
+
+    /**
+     * Tells whether the selected row at the given index has no value in a column.
+     */
+    public boolean isNull(String column, int index) {
+        return this.nulls[this.getColumnIndex(column, null)].get(this.row(index));
+    }
+
+    public long getLong(String column, int index) {
+        return ((long[]) this.columns[this.getColumnIndex(column, FieldType.LONG)])[this.row(index)];
+    }
+
+    public double getDouble(String column, int index) {
+        return ((double[]) this.columns[this.getColumnIndex(column, FieldType.DOUBLE)])[this.row(index)];
+    }
+
+    public boolean getBoolean(String column, int index) {
+        return ((boolean[]) this.columns[this.getColumnIndex(column, FieldType.BOOLEAN)])[this.row(index)];
+    }
+
+    public String getString(String column, int index) {
+        int columnIndex = this.getColumnIndex(column, FieldType.STRING);
+        int row = this.row(index);
+        return this.nulls[columnIndex].get(row) ? null : this.dictionaries[columnIndex][((int[]) this.columns[columnIndex])[row]];
+    }
+
+    public LocalDate getDate(String column, int index) {
+        int columnIndex = this.getColumnIndex(column, FieldType.DATE);
+        int row = this.row(index);
+        return this.nulls[columnIndex].get(row) ? null : LocalDate.ofEpochDay(((long[]) this.columns[columnIndex])[row]);
+    }
+
+    /**
+     * Selects the rows whose value in a {@link FieldType#LONG} column satisfies the predicate.
+     * Rows without a value are dropped.
+     */
+    public RestAPIBatch filterLongs(String column, LongPredicate predicate) {
+        int columnIndex = this.getColumnIndex(column, FieldType.LONG);
+        long[] values = (long[]) this.columns[columnIndex];
+        BitSet nulls = this.nulls[columnIndex];
+        int[] selection = new int[this.size()];
+        int numSelected = 0;
+        for (int i = 0; i < selection.length; i++) {
+            int row = this.row(i);
+            if (!nulls.get(row) && predicate.test(values[row])) selection[numSelected++] = row;
+        }
+        return this.withSelection(selection, numSelected);
+    }
+
+    /**
+     * Selects the rows whose value in a {@link FieldType#DOUBLE} column satisfies the predicate.
+     * Rows without a value are dropped.
+     */
+    public RestAPIBatch filterDoubles(String column, DoublePredicate predicate) {
+        int columnIndex = this.getColumnIndex(column, FieldType.DOUBLE);
+        double[] values = (double[]) this.columns[columnIndex];
+        BitSet nulls = this.nulls[columnIndex];
+        int[] selection = new int[this.size()];
+        int numSelected = 0;
+        for (int i = 0; i < selection.length; i++) {
+            int row = this.row(i);
+            if (!nulls.get(row) && predicate.test(values[row])) selection[numSelected++] = row;
+        }
+        return this.withSelection(selection, numSelected);
+    }
+
+    /**
+     * Selects the rows whose value in a {@link FieldType#STRING} column satisfies the predicate, which is
+     * evaluated only once per distinct value. Rows without a value are dropped.
+     */
+    public RestAPIBatch filterStrings(String column, Predicate<String> predicate) {
+        int columnIndex = this.getColumnIndex(column, FieldType.STRING);
+        String[] dictionary = this.dictionaries[columnIndex];
+        boolean[] isAccepted = new boolean[dictionary.length];
+        for (int code = 0; code < dictionary.length; code++) {
+            isAccepted[code] = predicate.test(dictionary[code]);
+        }
+        int[] codes = (int[]) this.columns[columnIndex];
+        BitSet nulls = this.nulls[columnIndex];
+        int[] selection = new int[this.size()];
+        int numSelected = 0;
+        for (int i = 0; i < selection.length; i++) {
+            int row = this.row(i);
+            if (!nulls.get(row) && isAccepted[codes[row]]) selection[numSelected++] = row;
+        }
+        return this.withSelection(selection, numSelected);
+    }
+
+    /**
+     * Selects the rows whose value in a {@link FieldType#DATE} column, in epoch days, satisfies the predicate.
+     * Rows without a value are dropped.
+     */
+    public RestAPIBatch filterEpochDays(String column, LongPredicate predicate) {
+        int columnIndex = this.getColumnIndex(column, FieldType.DATE);
+        long[] values = (long[]) this.columns[columnIndex];
+        BitSet nulls = this.nulls[columnIndex];
+        int[] selection = new int[this.size()];
+        int numSelected = 0;
+        for (int i = 0; i < selection.length; i++) {
+            int row = this.row(i);
+            if (!nulls.get(row) && predicate.test(values[row])) selection[numSelected++] = row;
+        }
+        return this.withSelection(selection, numSelected);
+    }
+
+    private RestAPIBatch withSelection(int[] selection, int numSelected) {
+        if (this.selection == null && numSelected == this.numRows) return this;
+        return new RestAPIBatch(this.columnNames, this.columnTypes, this.columns, this.dictionaries, this.nulls,
+                Arrays.copyOf(selection, numSelected), this.numRows);
+    }
+
+    /**
+     * Replaces the values of a {@link FieldType#DOUBLE} column in the selected rows.
+     */
+    public RestAPIBatch mapDoubles(String column, DoubleUnaryOperator function) {
+        int columnIndex = this.getColumnIndex(column, FieldType.DOUBLE);
+        double[] values = ((double[]) this.columns[columnIndex]).clone();
+        BitSet nulls = this.nulls[columnIndex];
+        for (int i = 0; i < this.size(); i++) {
+            int row = this.row(i);
+            if (!nulls.get(row)) values[row] = function.applyAsDouble(values[row]);
+        }
+        Object[] columns = this.columns.clone();
+        columns[columnIndex] = values;
+        return new RestAPIBatch(this.columnNames, this.columnTypes, columns, this.dictionaries, this.nulls,
+                this.selection, this.numRows);
+    }
+
+    /**
+     * Sums up the values of a {@link FieldType#LONG} column in the selected rows, skipping rows without a value.
+     */
+    public long sumLongs(String column) {
+        int columnIndex = this.getColumnIndex(column, FieldType.LONG);
+        long[] values = (long[]) this.columns[columnIndex];
+        BitSet nulls = this.nulls[columnIndex];
+        long sum = 0L;
+        for (int i = 0; i < this.size(); i++) {
+            int row = this.row(i);
+            if (!nulls.get(row)) sum += values[row];
+        }
+        return sum;
+    }
+
+    /**
+     * Sums up the values of a {@link FieldType#DOUBLE} column in the selected rows, skipping rows without a value.
+     */
+    public double sumDoubles(String column) {
+        return this.reduceDoubles(column, 0d, Double::sum);
+    }
+
+    /**
+     * Folds the values of a {@link FieldType#DOUBLE} column in the selected rows, skipping rows without a value.
+     */
+    public double reduceDoubles(String column, double identity, DoubleBinaryOperator operator) {
+        int columnIndex = this.getColumnIndex(column, FieldType.DOUBLE);
+        double[] values = (double[]) this.columns[columnIndex];
+        BitSet nulls = this.nulls[columnIndex];
+        double result = identity;
+        for (int i = 0; i < this.size(); i++) {
+            int row = this.row(i);
+            if (!nulls.get(row)) result = operator.applyAsDouble(result, values[row]);
+        }
+        return result;
+    }
+
+    /**
+     * Collects the distinct values of a {@link FieldType#STRING} column in the selected rows.
+     */
+    public Set<String> distinctStrings(String column) {
+        int columnIndex = this.getColumnIndex(column, FieldType.STRING);
+        String[] dictionary = this.dictionaries[columnIndex];
+        int[] codes = (int[]) this.columns[columnIndex];
+        BitSet nulls = this.nulls[columnIndex];
+        BitSet usedCodes = new BitSet(dictionary.length);
+        for (int i = 0; i < this.size(); i++) {
+            int row = this.row(i);
+            if (!nulls.get(row)) usedCodes.set(codes[row]);
+        }
+        Set<String> distinctValues = new LinkedHashSet<>();
+        for (int code = usedCodes.nextSetBit(0); code >= 0; code = usedCodes.nextSetBit(code + 1)) {
+            distinctValues.add(dictionary[code]);
+        }
+        return distinctValues;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[%d of %d rows, %s]", this.getClass().getSimpleName(), this.size(), this.numRows, this.columnNames);
+    }
+
+    /**
+     * Collects converted values row by row into the columns of a {@link RestAPIBatch}.
+     */
+    static class Builder {
+
+        private final List<String> columnNames;
+
+        private final List<FieldType> columnTypes;
+
+        private final Object[] columns;
+
+        private final BitSet[] nulls;
+
+        private final List<Map<String, Integer>> dictionaries;
+
+        private int numRows = 0;
+
+        Builder(List<String> columnNames, List<FieldType> columnTypes, int capacity) {
+            this.columnNames = Collections.unmodifiableList(columnNames);
+            this.columnTypes = Collections.unmodifiableList(columnTypes);
+            this.columns = new Object[columnTypes.size()];
+            this.nulls = new BitSet[columnTypes.size()];
+            this.dictionaries = new ArrayList<>(columnTypes.size());
+            for (int i = 0; i < this.columns.length; i++) {
+                switch (columnTypes.get(i)) {
+                    case LONG:
+                    case DATE:
+                        this.columns[i] = new long[capacity];
+                        break;
+                    case DOUBLE:
+                        this.columns[i] = new double[capacity];
+                        break;
+                    case BOOLEAN:
+                        this.columns[i] = new boolean[capacity];
+                        break;
+                    default:
+                        this.columns[i] = new int[capacity];
+                }
+                this.nulls[i] = new BitSet();
+                this.dictionaries.add(columnTypes.get(i) == FieldType.STRING ? new HashMap<>() : null);
+            }
+        }
+
+        int size() {
+            return this.numRows;
+        }
+
+        /**
+         * Sets a value of the current row, which must have been converted by the type of its column.
+         */
+        void set(int columnIndex, Object value) {
+            if (value == null) {
+                this.nulls[columnIndex].set(this.numRows);
+                return;
+            }
+            switch (this.columnTypes.get(columnIndex)) {
+                case LONG:
+                    ((long[]) this.columns[columnIndex])[this.numRows] = (Long) value;
+                    break;
+                case DATE:
+                    ((long[]) this.columns[columnIndex])[this.numRows] = ((LocalDate) value).toEpochDay();
+                    break;
+                case DOUBLE:
+                    ((double[]) this.columns[columnIndex])[this.numRows] = (Double) value;
+                    break;
+                case BOOLEAN:
+                    ((boolean[]) this.columns[columnIndex])[this.numRows] = (Boolean) value;
+                    break;
+                default:
+                    Map<String, Integer> dictionary = this.dictionaries.get(columnIndex);
+                    Integer code = dictionary.computeIfAbsent((String) value, key -> dictionary.size());
+                    ((int[]) this.columns[columnIndex])[this.numRows] = code;
+            }
+        }
+
+        /**
+         * Completes the current row.
+         */
+        void nextRow() {
+            this.numRows++;
+        }
+
+        RestAPIBatch build() {
+            String[][] dictionaries = new String[this.columns.length][];
+            for (int i = 0; i < this.columns.length; i++) {
+                Map<String, Integer> dictionary = this.dictionaries.get(i);
+                if (dictionary == null) continue;
+                String[] values = dictionaries[i] = new String[dictionary.size()];
+                dictionary.forEach((value, code) -> values[code] = value);
+            }
+            return new RestAPIBatch(this.columnNames, this.columnTypes, this.columns, dictionaries, this.nulls,
+                    null, this.numRows);
+        }
+    }
+}
@@ -0,0 +1,612 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.wayang.core.api.Configuration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared HTTP client for REST sources. Connections are pooled per host and kept alive across requests, and
+ * HTTP/2 is negotiated where the server supports it, so that consecutive requests (e.g., the pages of a
+ * paginated API) do not pay for TCP and TLS setup again. Responses are requested compressed and their bodies
+ * are {@link RestAPIResponseBody}s, which decompress them on the fly. Requests are scheduled per host by a
+ * {@link RestAPIRateLimiter}, and throttled requests are retried. Safe requests that take longer than most recent
+ * ones are hedged, every request has a deadline for its response, and response bodies must not stall; see
+ * {@link #HEDGE_PERCENTILE_KEY}, {@link #DEADLINE_KEY}, and {@link #STALL_TIMEOUT_KEY}.
+ * <p>Instances are shared by all callers with the same settings; see {@link #getInstance(Configuration)}.</p>
+ */
+public class RestAPIClient {
+
+    private static final Logger logger = LogManager.getLogger(RestAPIClient.class);
+
+    /**
+     * Connect timeout in milliseconds.
+     */
+    public static final String CONNECT_TIMEOUT_KEY = "wayang.restapisource.http.connect-timeout";
+
+    /**
+     * Time in milliseconds to wait for the response headers of a request.
+     */
+    public static final String READ_TIMEOUT_KEY = "wayang.restapisource.http.read-timeout";
+
+    /**
+     * Preferred HTTP version, {@code HTTP_2} or {@code HTTP_1_1}.
+     */
+    public static final String HTTP_VERSION_KEY = "wayang.restapisource.http.version";
+
+    /**
+     * Maximum number of idle connections kept in the pool; {@code 0} means unbounded.
+     */
+    public static final String POOL_SIZE_KEY = "wayang.restapisource.http.pool-size";
+
+    /**
+     * Time in seconds that idle connections are kept alive.
+     */
+    public static final String KEEP_ALIVE_KEY = "wayang.restapisource.http.keep-alive";
+
+    /**
+     * Number of threads that serve the client's asynchronous work.
+     */
+    public static final String THREADS_KEY = "wayang.restapisource.http.threads";
+
+    /**
+     * Whether to ask for compressed responses with {@code Accept-Encoding: gzip, deflate}. Compressed responses
+     * are decompressed while they are being read, see {@link RestAPIResponseBody}, no matter whether they were
+     * asked for.
+     */
+    public static final String COMPRESSION_KEY = "wayang.restapisource.http.compression";
+
+    /**
+     * Requests per second per host until the API announces its rate limit; {@code 0} means unlimited.
+     */
+    public static final String RATE_LIMIT_KEY = "wayang.restapisource.http.rate-limit";
+
+    /**
+     * Maximum number of concurrent requests per host, which is reduced while the host throttles requests.
+     */
+    public static final String HOST_CONCURRENCY_KEY = "wayang.restapisource.http.host-concurrency";
+
+    /**
+     * Number of times a throttled request is retried before it fails.
+     */
+    public static final String MAX_RETRIES_KEY = "wayang.restapisource.http.max-retries";
+
+    /**
+     * Percentile of the recent latencies of a host after which a safe request, e.g., a {@code GET}, is sent a
+     * second time if it has not been answered; {@code 0} disables hedging.
+     */
+    public static final String HEDGE_PERCENTILE_KEY = "wayang.restapisource.http.hedge-percentile";
+
+    /**
+     * Time in milliseconds by which a request must have been answered with its response headers, including any
+     * hedged attempt; {@code 0} means no deadline. Reading the response body is bounded by
+     * {@link #STALL_TIMEOUT_KEY} instead, so that long streamed responses do not fail.
+     */
+    public static final String DEADLINE_KEY = "wayang.restapisource.http.deadline";
+
+    /**
+     * Time in milliseconds that a read of a response body may wait for further bytes before the body is closed;
+     * {@code 0} means no stall timeout.
+     */
+    public static final String STALL_TIMEOUT_KEY = "wayang.restapisource.http.stall-timeout";
+
+    /**
+     * Time zone, e.g., {@code America/New_York}, in which the daily request quota of the APIs resets at midnight;
+     * HubSpot resets it in the time zone of the account.
+     */
+    public static final String QUOTA_TIME_ZONE_KEY = "wayang.restapisource.http.quota-time-zone";
+
+    private static final long DEFAULT_CONNECT_TIMEOUT = 10_000L;
+
+    private static final long DEFAULT_READ_TIMEOUT = 60_000L;
+
+    private static final long DEFAULT_POOL_SIZE = 0L;
+
+    private static final long DEFAULT_KEEP_ALIVE = 1_200L;
+
+    private static final long DEFAULT_THREADS = 4L;
+
+    private static final double DEFAULT_RATE_LIMIT = 0d;
+
+    private static final long DEFAULT_HOST_CONCURRENCY = 16L;
+
+    private static final long DEFAULT_MAX_RETRIES = 5L;
+
+    private static final double DEFAULT_HEDGE_PERCENTILE = 95d;
+
+    private static final long DEFAULT_DEADLINE = 300_000L;
+
+    private static final long DEFAULT_STALL_TIMEOUT = 60_000L;
+
+    private static final String DEFAULT_QUOTA_TIME_ZONE = "UTC";
+
+    /**
+     * Methods without side effects, whose requests may be sent twice.
+     */
+    private static final Set<String> HEDGEABLE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    /**
+     * Headers that {@link HttpClient} manages itself and refuses to set.
+     */
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private static final Map<Settings, RestAPIClient> instances = new ConcurrentHashMap<>();
+
+    private final Settings settings;
+
+    private final HttpClient httpClient;
+
+    private final Map<String, RestAPIRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    private RestAPIClient(Settings settings) {
+        this.settings = settings;
+        applyPoolSettings(settings);
+        ExecutorService executor = Executors.newFixedThreadPool(settings.numThreads, runnable -> {
+            Thread thread = new Thread(runnable, "rest-api-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .version(settings.version)
+                .connectTimeout(Duration.ofMillis(settings.connectTimeout))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Provides the client for the settings in the given {@link Configuration}.
+     *
+     * @param configuration provides the {@code wayang.restapisource.http.*} settings
+     * @return the shared {@link RestAPIClient}
+     */
+    public static RestAPIClient getInstance(Configuration configuration) {
+        return instances.computeIfAbsent(new Settings(configuration), RestAPIClient::new);
+    }
+
+    /**
+     * Provides the client for the settings in the default {@link Configuration}.
+     *
+     * @return the shared {@link RestAPIClient}
+     */
+    public static RestAPIClient getDefault() {
+        return getInstance(Configuration.getDefaultConfiguration());
+    }
+
+    /**
+     * The JDK client reads its pool settings from system properties once per JVM, so they only take effect if
+     * they are set before the first client is created and the user has not set them explicitly.
+     */
+    private static void applyPoolSettings(Settings settings) {
+        if (System.getProperty("jdk.httpclient.connectionPoolSize") == null) {
+            System.setProperty("jdk.httpclient.connectionPoolSize", String.valueOf(settings.poolSize));
+        }
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(settings.keepAlive));
+        }
+    }
+
+    /**
+     * Sends a request and provides the response body as a stream. The connection goes back to the pool once
+     * the body has been read or closed.
+     *
+     * @param apiURL    the URL to request
+     * @param apiMethod the HTTP method
+     * @param headers   request headers in the format {@code Key1:Value1;Key2:Value2}
+     * @param payload   the request body or {@code null}; not sent with GET requests
+     * @return the {@link HttpResponse} with a status code below 400
+     * @throws IOException if the request failed or the server answered with an error status
+     */
+    public HttpResponse<InputStream> send(String apiURL, String apiMethod, String headers, String payload) throws IOException {
+        return this.send(apiURL, apiMethod, headers, payload, Collections.emptyMap());
+    }
+
+    /**
+     * Sends a request with additional headers, e.g., for a conditional request. Note that a
+     * {@code 304 Not Modified} response is returned like any other successful response.
+     *
+     * @param apiURL            the URL to request
+     * @param apiMethod         the HTTP method
+     * @param headers           request headers in the format {@code Key1:Value1;Key2:Value2}
+     * @param payload           the request body or {@code null}; not sent with GET requests
+     * @param additionalHeaders further headers that override those in {@code headers}
+     * @return the {@link HttpResponse} with a status code below 400
+     * @throws RestAPIThrottledException if the request was still throttled after all retries
+     * @throws IOException               if the request failed or the server answered with an error status
+     * @see #send(String, String, String, String)
+     */
+    public HttpResponse<InputStream> send(String apiURL, String apiMethod, String headers, String payload,
+                                          Map<String, String> additionalHeaders) throws IOException {
+        return this.send(apiURL, apiMethod, headers, payload, additionalHeaders, this.settings.deadline);
+    }
+
+    /**
+     * Sends a request with additional headers and its own deadline instead of the configured
+     * {@link #DEADLINE_KEY}, e.g., for requests during the optimization that are only worth a short wait.
+     *
+     * @param apiURL            the URL to request
+     * @param apiMethod         the HTTP method
+     * @param headers           request headers in the format {@code Key1:Value1;Key2:Value2}
+     * @param payload           the request body or {@code null}; not sent with GET requests
+     * @param additionalHeaders further headers that override those in {@code headers}
+     * @param deadline          time in milliseconds by which each attempt must have been answered with its response
+     *                          headers; {@code 0} means no deadline
+     * @return the {@link HttpResponse} with a status code below 400
+     * @throws RestAPIThrottledException if the request was still throttled after all retries
+     * @throws IOException               if the request failed or the server answered with an error status
+     */
+    public HttpResponse<InputStream> send(String apiURL, String apiMethod, String headers, String payload,
+                                          Map<String, String> additionalHeaders, long deadline) throws IOException {
+        long readTimeout = deadline > 0
+                ? Math.min(this.settings.readTimeout, deadline)
+                : this.settings.readTimeout;
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(URI.create(apiURL))
+                .timeout(Duration.ofMillis(readTimeout));
+        Map<String, String> allHeaders = parseHeaders(headers);
+        allHeaders.putAll(additionalHeaders);
+        if (this.settings.isCompressing && allHeaders.keySet().stream().noneMatch("Accept-Encoding"::equalsIgnoreCase)) {
+            allHeaders.put("Accept-Encoding", ACCEPTED_ENCODINGS);
+        }
+        for (Map.Entry<String, String> header : allHeaders.entrySet()) {
+            if (RESTRICTED_HEADERS.contains(header.getKey().toLowerCase())) {
+                logger.warn("Ignoring header {}, which is managed by the HTTP client.", header.getKey());
+                continue;
+            }
+            requestBuilder.header(header.getKey(), header.getValue());
+        }
+        if (payload == null || payload.isEmpty() || "GET".equalsIgnoreCase(apiMethod)) {
+            if ("POST".equalsIgnoreCase(apiMethod)) {
+                logger.warn("No payload provided for POST request.");
+            }
+            requestBuilder.method(apiMethod.toUpperCase(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            requestBuilder.method(apiMethod.toUpperCase(), HttpRequest.BodyPublishers.ofString(payload, StandardCharsets.UTF_8));
+        }
+
+        HttpRequest request = requestBuilder.build();
+        RestAPIRateLimiter rateLimiter = this.getRateLimiter(request.uri());
+        HttpResponse<InputStream> response;
+        for (int numRetries = 0; ; numRetries++) {
+            rateLimiter.acquire();
+            response = this.exchange(request, rateLimiter, deadline);
+            if (!RestAPIRateLimiter.isThrottled(response)) break;
+            response.body().close();
+            if (numRetries >= this.settings.maxRetries) {
+                throw new RestAPIThrottledException(String.format(
+                        "Server kept throttling requests to URL: %s after %d retries", apiURL, numRetries
+                ));
+            }
+        }
+        if (response.statusCode() >= 400) {
+            response.body().close();
+            throw new IOException(String.format(
+                    "Server returned HTTP response code: %d for URL: %s", response.statusCode(), apiURL
+            ));
+        }
+        return response;
+    }
+
+    /**
+     * Sends a request whose slot in the schedule of its host has been acquired. If the request is safe and has not
+     * been answered within the hedging percentile of the recent latencies of its host, it is sent a second time;
+     * the first response wins and the other one is discarded once it arrives.
+     *
+     * @param request     the request to send
+     * @param rateLimiter the {@link RestAPIRateLimiter} of the host
+     * @param deadline    time in milliseconds by which the response headers must have arrived or {@code 0}
+     * @return the first response, whose body is closed when it stalls
+     * @throws HttpTimeoutException if there is no response by the deadline
+     */
+    private HttpResponse<InputStream> exchange(HttpRequest request, RestAPIRateLimiter rateLimiter, long deadline) throws IOException {
+        long startNanos = System.nanoTime();
+        long deadlineNanos = deadline > 0
+                ? startNanos + TimeUnit.MILLISECONDS.toNanos(deadline)
+                : Long.MAX_VALUE;
+        LatencyWindow latencyWindow = this.latencies.computeIfAbsent(getHost(request.uri()), key -> new LatencyWindow());
+        Exchange exchange = new Exchange(request, rateLimiter, latencyWindow);
+        exchange.send();
+        try {
+            long hedgeDelayNanos = HEDGEABLE_METHODS.contains(request.method())
+                    ? latencyWindow.getValueAtPercentile(this.settings.hedgePercentile)
+                    : -1L;
+            HttpResponse<InputStream> response = null;
+            if (hedgeDelayNanos > 0 && deadlineNanos - (startNanos + hedgeDelayNanos) > 0) {
+                try {
+                    response = exchange.await(startNanos + hedgeDelayNanos);
+                } catch (TimeoutException e) {
+                    if (rateLimiter.tryAcquire()) {
+                        logger.debug("Hedging the request to {} after {} ms.", request.uri(), TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos));
+                        exchange.send();
+                    }
+                }
+            }
+            if (response == null) response = exchange.await(deadlineNanos);
+            if (this.settings.stallTimeout > 0 && response.body() instanceof RestAPIResponseBody) {
+                ((RestAPIResponseBody) response.body()).expireWhenStalled(TimeUnit.MILLISECONDS.toNanos(this.settings.stallTimeout));
+            }
+            return response;
+        } catch (TimeoutException e) {
+            throw new HttpTimeoutException(String.format(
+                    "Request to %s was not answered within its deadline of %d ms", request.uri(), deadline
+            ));
+        } finally {
+            exchange.discardLosers();
+        }
+    }
+
+    /**
+     * The attempts to get a response to a request, of which the first successful one wins. Attempts are not
+     * cancelled, as {@link HttpClient} does not abort an exchange when its future is cancelled (before Java 16), so
+     * each attempt holds its slot of the {@link RestAPIRateLimiter} until it has completed.
+     */
+    private class Exchange {
+
+        private final HttpRequest request;
+
+        private final RestAPIRateLimiter rateLimiter;
+
+        private final LatencyWindow latencyWindow;
+
+        private final CompletableFuture<HttpResponse<InputStream>> winner = new CompletableFuture<>();
+
+        private final AtomicInteger numPendingAttempts = new AtomicInteger();
+
+        private Exchange(HttpRequest request, RestAPIRateLimiter rateLimiter, LatencyWindow latencyWindow) {
+            this.request = request;
+            this.rateLimiter = rateLimiter;
+            this.latencyWindow = latencyWindow;
+        }
+
+        /**
+         * Sends another attempt, whose slot must have been acquired.
+         */
+        private void send() {
+            long sendNanos = System.nanoTime();
+            this.numPendingAttempts.incrementAndGet();
+            RestAPIClient.this.httpClient.sendAsync(this.request, RestAPIClient::decodeBody).whenComplete((response, failure) -> {
+                if (response == null) {
+                    this.rateLimiter.onFailure();
+                    if (this.numPendingAttempts.decrementAndGet() == 0) {
+                        this.winner.completeExceptionally(failure instanceof CompletionException ? failure.getCause() : failure);
+                    }
+                    return;
+                }
+                this.rateLimiter.onResponse(response);
+                if (!RestAPIRateLimiter.isThrottled(response)) this.latencyWindow.record(System.nanoTime() - sendNanos);
+                if (!this.winner.complete(response)) closeQuietly(response);
+            });
+        }
+
+        /**
+         * Waits for the first response.
+         *
+         * @param timeoutNanos {@link System#nanoTime()} until which to wait
+         */
+        private HttpResponse<InputStream> await(long timeoutNanos) throws IOException, TimeoutException {
+            HttpResponse<InputStream> response;
+            try {
+                response = this.winner.get(Math.max(0L, timeoutNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while requesting " + this.request.uri());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) throw (IOException) cause;
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                throw new IOException(cause);
+            }
+            return response;
+        }
+
+        /**
+         * Lets the attempts that are still pending close their responses when they arrive, e.g., after the deadline.
+         */
+        private void discardLosers() {
+            this.winner.cancel(false);
+        }
+    }
+
+    private static void closeQuietly(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException e) {
+            logger.debug("Could not discard a response from {}.", response.uri(), e);
+        }
+    }
+
+    private static String getHost(URI uri) {
+        return uri.getHost() == null ? uri.toString() : uri.getHost();
+    }
+
+    /**
+     * Provides the {@link RestAPIRateLimiter} for the host of the given URI.
+     */
+    public RestAPIRateLimiter getRateLimiter(URI uri) {
+        return this.rateLimiters.computeIfAbsent(
+                getHost(uri), key -> new RestAPIRateLimiter(
+                        key, this.settings.rateLimit, this.settings.hostConcurrency, this.settings.quotaTimeZone
+                )
+        );
+    }
+
+    /**
+     * Provides the body as a {@link RestAPIResponseBody}, which decompresses it according to the
+     * {@code Content-Encoding} of the response once it is read.
+     */
+    private static HttpResponse.BodySubscriber<InputStream> decodeBody(HttpResponse.ResponseInfo responseInfo) {
+        String contentEncoding = responseInfo.headers().firstValue("Content-Encoding").orElse(null);
+        return HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofInputStream(), body -> new RestAPIResponseBody(body, contentEncoding)
+        );
+    }
+
+    /**
+     * Parses headers in the format {@code Key1:Value1;Key2:Value2}.
+     *
+     * @param headers the headers; may be {@code null} or empty
+     * @return the header names and values in their original order
+     */
+    public static Map<String, String> parseHeaders(String headers) {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (headers == null || headers.isEmpty()) return result;
+        for (String header : headers.split(";")) {
+            String[] headerParts = header.trim().split(":", 2);
+            if (headerParts.length == 2) {
+                result.put(headerParts[0].trim(), headerParts[1].trim());
+            } else {
+                logger.warn("Invalid header format: {}", header);
+            }
+        }
+        return result;
+    }
+
+    public HttpClient getHttpClient() {
+        return this.httpClient;
+    }
+
+    /**
+     * The latencies of the most recent responses from a host.
+     */
+    private static class LatencyWindow {
+
+        private static final int SIZE = 128;
+
+        /**
+         * Hedging starts only once the latencies are representative.
+         */
+        private static final int MIN_SIZE = 20;
+
+        private final long[] latencies = new long[SIZE];
+
+        private int numLatencies = 0, next = 0;
+
+        private synchronized void record(long nanos) {
+            this.latencies[this.next] = nanos;
+            this.next = (this.next + 1) % SIZE;
+            this.numLatencies = Math.min(SIZE, this.numLatencies + 1);
+        }
+
+        /**
+         * @return the latency in nanoseconds or {@code -1} if there are too few latencies or the percentile is not positive
+         */
+        private synchronized long getValueAtPercentile(double percentile) {
+            if (this.numLatencies < MIN_SIZE || percentile <= 0) return -1L;
+            long[] sortedLatencies = Arrays.copyOf(this.latencies, this.numLatencies);
+            Arrays.sort(sortedLatencies);
+            int rank = (int) Math.ceil(Math.min(100d, percentile) / 100d * this.numLatencies);
+            return sortedLatencies[Math.max(0, rank - 1)];
+        }
+    }
+
+    /**
+     * The client settings as read from a {@link Configuration}; instances with equal settings share a client.
+     */
+    private static class Settings {
+
+        private final long connectTimeout, readTimeout, poolSize, keepAlive;
+
+        private final int numThreads;
+
+        private final boolean isCompressing;
+
+        private final double rateLimit;
+
+        private final int hostConcurrency, maxRetries;
+
+        private final double hedgePercentile;
+
+        private final long deadline, stallTimeout;
+
+        private final HttpClient.Version version;
+
+        private final ZoneId quotaTimeZone;
+
+        private Settings(Configuration configuration) {
+            this.connectTimeout = configuration.getLongProperty(CONNECT_TIMEOUT_KEY, DEFAULT_CONNECT_TIMEOUT);
+            this.readTimeout = configuration.getLongProperty(READ_TIMEOUT_KEY, DEFAULT_READ_TIMEOUT);
+            this.poolSize = configuration.getLongProperty(POOL_SIZE_KEY, DEFAULT_POOL_SIZE);
+            this.keepAlive = configuration.getLongProperty(KEEP_ALIVE_KEY, DEFAULT_KEEP_ALIVE);
+            this.numThreads = (int) configuration.getLongProperty(THREADS_KEY, DEFAULT_THREADS);
+            this.isCompressing = configuration.getBooleanProperty(COMPRESSION_KEY, true);
+            this.rateLimit = configuration.getDoubleProperty(RATE_LIMIT_KEY, DEFAULT_RATE_LIMIT);
+            this.hostConcurrency = (int) configuration.getLongProperty(HOST_CONCURRENCY_KEY, DEFAULT_HOST_CONCURRENCY);
+            this.maxRetries = (int) configuration.getLongProperty(MAX_RETRIES_KEY, DEFAULT_MAX_RETRIES);
+            this.hedgePercentile = configuration.getDoubleProperty(HEDGE_PERCENTILE_KEY, DEFAULT_HEDGE_PERCENTILE);
+            this.deadline = configuration.getLongProperty(DEADLINE_KEY, DEFAULT_DEADLINE);
+            this.stallTimeout = configuration.getLongProperty(STALL_TIMEOUT_KEY, DEFAULT_STALL_TIMEOUT);
+            this.quotaTimeZone = ZoneId.of(configuration.getStringProperty(QUOTA_TIME_ZONE_KEY, DEFAULT_QUOTA_TIME_ZONE));
+            this.version = HttpClient.Version.valueOf(
+                    configuration.getStringProperty(HTTP_VERSION_KEY, HttpClient.Version.HTTP_2.name())
+            );
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || this.getClass() != o.getClass()) return false;
+            Settings that = (Settings) o;
+            return this.connectTimeout == that.connectTimeout && this.readTimeout == that.readTimeout
+                    && this.poolSize == that.poolSize && this.keepAlive == that.keepAlive
+                    && this.numThreads == that.numThreads && this.version == that.version
+                    && this.isCompressing == that.isCompressing && this.rateLimit == that.rateLimit
+                    && this.hostConcurrency == that.hostConcurrency && this.maxRetries == that.maxRetries
+                    && this.hedgePercentile == that.hedgePercentile && this.deadline == that.deadline
+                    && this.stallTimeout == that.stallTimeout && this.quotaTimeZone.equals(that.quotaTimeZone);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.connectTimeout, this.readTimeout, this.poolSize, this.keepAlive, this.numThreads, this.version,
+                    this.isCompressing, this.rateLimit, this.hostConcurrency, this.maxRetries, this.hedgePercentile, this.deadline,
+                    this.stallTimeout, this.quotaTimeZone);
+        }
+    }
+}
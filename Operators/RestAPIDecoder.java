@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Turns the body of a REST API response into {@link JSONObject} records. Implementations are registered for a
+ * format name and the media types that identify it in {@link RestAPIDecoders}.
+ */
+public interface RestAPIDecoder extends Serializable {
+
+    /**
+     * Decodes a complete response body.
+     *
+     * @param body the response body
+     * @return the records
+     * @throws org.json.JSONException if the body does not conform to the format
+     */
+    JSONArray decode(String body);
+
+    /**
+     * Provides a decoder that only keeps the given fields of each record. Decoders that cannot skip fields
+     * while decoding return themselves, so that the records may contain further fields.
+     *
+     * @param fields the names of the fields to keep
+     * @return the projecting decoder
+     */
+    default RestAPIDecoder project(Set<String> fields) {
+        return this;
+    }
+
+    /**
+     * Decodes a response body while it is being read. By default, the whole body is read before it is
+     * decoded; formats that can emit records one by one should override this.
+     *
+     * @param reader   provides the response body
+     * @param resource released once the body has been read, e.g., the underlying connection
+     * @return a lazy {@link Stream} over the records; closing it releases the {@code resource}
+     * @throws IOException if the body could not be read
+     */
+    default Stream<JSONObject> stream(BufferedReader reader, Closeable resource) throws IOException {
+        StringBuilder body = new StringBuilder();
+        try (Closeable ignored = resource; BufferedReader in = reader) {
+            char[] buffer = new char[8192];
+            int numChars;
+            while ((numChars = in.read(buffer)) != -1) {
+                body.append(buffer, 0, numChars);
+            }
+        }
+        JSONArray records = this.decode(body.toString());
+        return IntStream.range(0, records.length()).mapToObj(records::getJSONObject);
+    }
+}
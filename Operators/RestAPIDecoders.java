@@ -0,0 +1,329 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.apache.wayang.core.api.exception.WayangException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Registry of the {@link RestAPIDecoder}s by format name and media type. A response is decoded with the
+ * decoder of an explicitly configured format, otherwise with the decoder for its {@code Content-Type}, and
+ * only if neither is known with the decoder that its first non-whitespace character suggests.
+ */
+public class RestAPIDecoders {
+
+    /**
+     * Format of JSON documents whose top-level array elements or single top-level object are the records.
+     */
+    public static final String JSON = "json";
+
+    /**
+     * Format of comma-separated values with a header line.
+     */
+    public static final String CSV = "csv";
+
+    /**
+     * Format of newline-delimited JSON, i.e., one JSON object per line.
+     */
+    public static final String NDJSON = "ndjson";
+
+    private static final Map<String, RestAPIDecoder> decodersByFormat = new ConcurrentHashMap<>();
+
+    private static final Map<String, String> formatsByMediaType = new ConcurrentHashMap<>();
+
+    static {
+        register(JSON, new JsonDecoder(null), "application/json", "text/json");
+        register(CSV, new CsvDecoder(null), "text/csv", "application/csv");
+        register(NDJSON, new NdjsonDecoder(null),
+                "application/x-ndjson", "application/ndjson", "application/jsonl", "application/x-jsonlines");
+    }
+
+    private RestAPIDecoders() {
+    }
+
+    /**
+     * Registers a {@link RestAPIDecoder}, replacing any previous one for the same format or media types.
+     *
+     * @param format     the name of the format, e.g., {@code csv}
+     * @param decoder    the {@link RestAPIDecoder}
+     * @param mediaTypes the media types of responses in this format, e.g., {@code text/csv}
+     */
+    public static void register(String format, RestAPIDecoder decoder, String... mediaTypes) {
+        String normalizedFormat = normalize(format);
+        decodersByFormat.put(normalizedFormat, decoder);
+        for (String mediaType : mediaTypes) {
+            formatsByMediaType.put(normalize(mediaType), normalizedFormat);
+        }
+    }
+
+    /**
+     * Provides the {@link RestAPIDecoder} for a format.
+     *
+     * @param format the name of the format
+     * @return the {@link RestAPIDecoder}
+     * @throws WayangException if no decoder is registered for the format
+     */
+    public static RestAPIDecoder forFormat(String format) {
+        RestAPIDecoder decoder = decodersByFormat.get(normalize(format));
+        if (decoder == null) {
+            throw new WayangException(String.format("No REST API decoder is registered for format \"%s\".", format));
+        }
+        return decoder;
+    }
+
+    /**
+     * Looks up the {@link RestAPIDecoder} for a {@code Content-Type}. Parameters such as {@code charset} are
+     * ignored and structured syntax suffixes, e.g., {@code application/hal+json}, fall back to the suffix.
+     *
+     * @param contentType the value of the {@code Content-Type} header
+     * @return the {@link RestAPIDecoder} or nothing if the media type is unknown
+     */
+    public static Optional<RestAPIDecoder> forContentType(String contentType) {
+        if (contentType == null) return Optional.empty();
+        int parametersStart = contentType.indexOf(';');
+        String mediaType = normalize(parametersStart < 0 ? contentType : contentType.substring(0, parametersStart));
+        String format = formatsByMediaType.get(mediaType);
+        if (format == null) {
+            int suffixStart = mediaType.lastIndexOf('+');
+            if (suffixStart >= 0) {
+                String suffix = mediaType.substring(suffixStart + 1);
+                format = decodersByFormat.containsKey(suffix) ? suffix : null;
+            }
+        }
+        return Optional.ofNullable(format).map(decodersByFormat::get);
+    }
+
+    /**
+     * Resolves the {@link RestAPIDecoder} from what is known before the body is read.
+     *
+     * @param format      the explicitly configured format or {@code null}
+     * @param contentType the value of the {@code Content-Type} header or {@code null}
+     * @return the {@link RestAPIDecoder} or nothing if the body has to be sniffed
+     * @see #sniff(int)
+     */
+    public static Optional<RestAPIDecoder> resolve(String format, String contentType) {
+        if (format != null) return Optional.of(forFormat(format));
+        return forContentType(contentType);
+    }
+
+    /**
+     * Guesses the {@link RestAPIDecoder} from the first non-whitespace character of a body: JSON if it opens
+     * an array or object, CSV otherwise.
+     *
+     * @param firstNonWhitespace the character or {@code -1} for an empty body
+     * @return the {@link RestAPIDecoder}
+     */
+    public static RestAPIDecoder sniff(int firstNonWhitespace) {
+        return forFormat(firstNonWhitespace == '[' || firstNonWhitespace == '{' ? JSON : CSV);
+    }
+
+    /**
+     * Finds the first non-whitespace character of a body.
+     *
+     * @param body the body
+     * @return the character or {@code -1} for a blank body
+     */
+    public static int firstNonWhitespace(CharSequence body) {
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (!Character.isWhitespace(c)) return c;
+        }
+        return -1;
+    }
+
+    /**
+     * Tells whether the given {@link RestAPIDecoder} is the built-in JSON decoder.
+     *
+     * @param decoder the {@link RestAPIDecoder}
+     * @return whether it decodes JSON
+     */
+    public static boolean isJson(RestAPIDecoder decoder) {
+        return decoder instanceof JsonDecoder;
+    }
+
+    /**
+     * Copies the given fields of a record into a new record. A field that is not a key of the record itself is
+     * looked up as dot-separated path, e.g., {@code properties.start_date}, and keeps its nesting.
+     *
+     * @param record the record
+     * @param fields the fields to copy
+     * @return the new record
+     */
+    public static JSONObject project(JSONObject record, Set<String> fields) {
+        JSONObject projectedRecord = new JSONObject();
+        for (String field : fields) {
+            copyField(record, projectedRecord, field);
+        }
+        return projectedRecord;
+    }
+
+    private static void copyField(JSONObject from, JSONObject to, String path) {
+        Object value = from.opt(path);
+        if (value != null) {
+            to.put(path, value);
+            return;
+        }
+        int separatorIndex = path.indexOf('.');
+        if (separatorIndex < 0) return;
+        String key = path.substring(0, separatorIndex);
+        JSONObject nestedFrom = from.optJSONObject(key);
+        if (nestedFrom == null) return;
+        JSONObject nestedTo = to.optJSONObject(key);
+        if (nestedTo == null) {
+            nestedTo = new JSONObject();
+            to.put(key, nestedTo);
+        }
+        copyField(nestedFrom, nestedTo, path.substring(separatorIndex + 1));
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Decodes a JSON array into its elements and a JSON object into a single record in one pass.
+     */
+    private static class JsonDecoder implements RestAPIDecoder {
+
+        /**
+         * The fields to keep or {@code null} to keep all fields.
+         */
+        private final Set<String> projection;
+
+        private JsonDecoder(Set<String> projection) {
+            this.projection = projection;
+        }
+
+        @Override
+        public JSONArray decode(String body) {
+            if (this.projection != null) {
+                // Skips the other fields while decoding instead of decoding whole records.
+                JSONArray records = new JSONArray();
+                new JsonRecordIterator(new StringReader(body), () -> { }, this.projection).forEachRemaining(records::put);
+                return records;
+            }
+            JSONTokener tokener = new JSONTokener(body);
+            Object document = tokener.nextValue();
+            JSONArray records;
+            if (document instanceof JSONArray) {
+                records = (JSONArray) document;
+            } else if (document instanceof JSONObject) {
+                // Further top-level objects, e.g., of newline-delimited JSON without a Content-Type, are records, too.
+                records = new JSONArray().put(document);
+                while (tokener.nextClean() == '{') {
+                    tokener.back();
+                    records.put(new JSONObject(tokener));
+                }
+            } else {
+                throw new JSONException("A JSON response must be an array or an object.");
+            }
+            return records;
+        }
+
+        @Override
+        public Stream<JSONObject> stream(BufferedReader reader, Closeable resource) {
+            return new JsonRecordIterator(reader, resource, this.projection).stream();
+        }
+
+        @Override
+        public RestAPIDecoder project(Set<String> fields) {
+            return new JsonDecoder(new HashSet<>(fields));
+        }
+    }
+
+    /**
+     * Decodes newline-delimited JSON line by line.
+     */
+    private static class NdjsonDecoder implements RestAPIDecoder {
+
+        /**
+         * The fields to keep or {@code null} to keep all fields.
+         */
+        private final Set<String> projection;
+
+        private NdjsonDecoder(Set<String> projection) {
+            this.projection = projection;
+        }
+
+        @Override
+        public JSONArray decode(String body) {
+            JSONArray records = new JSONArray();
+            this.stream(new BufferedReader(new StringReader(body)), () -> { }).forEachOrdered(records::put);
+            return records;
+        }
+
+        @Override
+        public Stream<JSONObject> stream(BufferedReader reader, Closeable resource) {
+            Stream<JSONObject> records = new NdjsonRecordIterator(reader, resource).stream();
+            // Each line is a complete object, so the projection applies per line after parsing it.
+            return this.projection == null ? records : records.map(record -> RestAPIDecoders.project(record, this.projection));
+        }
+
+        @Override
+        public RestAPIDecoder project(Set<String> fields) {
+            return new NdjsonDecoder(new HashSet<>(fields));
+        }
+    }
+
+    /**
+     * Decodes comma-separated values with a {@link CsvRecordIterator} in a single pass over the body.
+     */
+    private static class CsvDecoder implements RestAPIDecoder {
+
+        /**
+         * The names of the fields to keep or {@code null} to keep all fields.
+         */
+        private final Set<String> projection;
+
+        private CsvDecoder(Set<String> projection) {
+            this.projection = projection;
+        }
+
+        @Override
+        public JSONArray decode(String body) {
+            JSONArray records = new JSONArray();
+            new CsvRecordIterator(new StringReader(body), () -> { }, this.projection).forEachRemaining(records::put);
+            return records;
+        }
+
+        @Override
+        public Stream<JSONObject> stream(BufferedReader reader, Closeable resource) {
+            return new CsvRecordIterator(reader, resource, this.projection).stream();
+        }
+
+        @Override
+        public RestAPIDecoder project(Set<String> fields) {
+            return new CsvDecoder(new HashSet<>(fields));
+        }
+    }
+}
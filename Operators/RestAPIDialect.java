@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import java.io.Serializable;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Describes which parts of a query a particular REST API can evaluate itself and how they are written into its
+ * requests. Each rewrite is optional: by default, the request is sent as it is and the records are processed
+ * after they have been fetched.
+ */
+public interface RestAPIDialect extends Serializable {
+
+    /**
+     * Rewrites a request so that the API only returns the given fields.
+     *
+     * @param request the {@link RestAPIRequest} to rewrite
+     * @param fields  dot-separated paths of the fields that are read from the records
+     * @return the rewritten {@link RestAPIRequest} or {@code request} if the API cannot project
+     */
+    default RestAPIRequest project(RestAPIRequest request, Set<String> fields) {
+        return request;
+    }
+
+    /**
+     * Rewrites a request so that the API only returns the records that satisfy the given predicate in
+     * addition to any predicates that the request already applies.
+     *
+     * @param request   the {@link RestAPIRequest} to rewrite
+     * @param predicate the {@link RestAPIPredicate} to push down
+     * @return the rewritten {@link RestAPIRequest} or nothing if the API cannot evaluate the predicate
+     */
+    default Optional<RestAPIRequest> pushDown(RestAPIRequest request, RestAPIPredicate predicate) {
+        return Optional.empty();
+    }
+}
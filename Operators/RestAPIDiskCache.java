@@ -0,0 +1,411 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONTokener;
+
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent tier of the {@link RestAPIResponseCache} that keeps parsed responses across JVM runs.
+ * <p>Each response is stored as an immutable, gzip-compressed segment file that is read via a memory mapping.
+ * An index file maps request keys to segments and tracks their sizes and access times for LRU eviction once the
+ * directory exceeds its size bound. Segments and the index are written to temporary files and moved into place
+ * atomically, and all modifications are serialized by a lock file, so that several JVMs can use the same
+ * directory at the same time. Readers do not take the lock. Files that the index does not reference, e.g.,
+ * after a crash between moving a segment into place and updating the index, are deleted once they are old enough
+ * to not belong to a pending write.</p>
+ * <p>Request keys are hashes, so credentials in request headers are not written to disk. The records
+ * themselves are, though, so the directory should be protected accordingly.</p>
+ */
+public class RestAPIDiskCache {
+
+    private static final Logger logger = LogManager.getLogger(RestAPIDiskCache.class);
+
+    private static final int SEGMENT_MAGIC = 0x57524331;
+
+    private static final String INDEX_FILE_NAME = "index";
+
+    private static final String LOCK_FILE_NAME = "index.lock";
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /**
+     * Age in milliseconds after which segments and temporary files that the index does not reference are deleted.
+     * Younger ones may belong to a write that has not updated the index yet.
+     */
+    private static final long ORPHAN_GRACE_MILLIS = 10 * 60_000L;
+
+    /**
+     * Serializes modifications of a directory within this JVM, as {@link FileLock}s are held per JVM.
+     */
+    private static final Map<Path, Object> directoryMonitors = new ConcurrentHashMap<>();
+
+    private final Path directory;
+
+    private final long maxBytes;
+
+    private final Object monitor;
+
+    /**
+     * The index as last read from disk.
+     */
+    private Map<String, IndexEntry> index = new HashMap<>();
+
+    /**
+     * Identifies the version of the index file that {@link #index} was read from. The index is always replaced
+     * by a new file, so its file key changes even if the file system's timestamps are coarse.
+     */
+    private List<Object> indexVersion;
+
+    /**
+     * Accesses since the last write of the index, which are merged into the index with the next modification.
+     */
+    private final Map<String, Long> pendingAccessTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param directory the directory for the index and segments; created if it does not exist
+     * @param maxBytes  the maximum total size of the segments
+     * @throws IOException if the directory cannot be created
+     */
+    public RestAPIDiskCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.monitor = directoryMonitors.computeIfAbsent(this.directory, path -> new Object());
+        Files.createDirectories(this.directory);
+    }
+
+    /**
+     * Reads a cached response.
+     *
+     * @param key identifies the request; see {@link RestAPIResponseCache}
+     * @return the cached {@link RestAPIResponseCache.Entry} or {@code null} if there is none
+     */
+    public RestAPIResponseCache.Entry read(String key) {
+        try {
+            IndexEntry indexEntry = this.refreshIndex().get(key);
+            if (indexEntry == null) return null;
+            RestAPIResponseCache.Entry entry = this.readSegment(this.directory.resolve(indexEntry.segment), indexEntry.storedAt);
+            this.pendingAccessTimes.put(key, System.currentTimeMillis());
+            logger.debug("Read {} from the disk cache.", indexEntry.segment);
+            return entry;
+        } catch (NoSuchFileException e) {
+            // The segment was evicted concurrently.
+            return null;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read {} from the disk cache in {}.", key, this.directory, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a response, replacing any previous response for the same key.
+     *
+     * @param key   identifies the request; see {@link RestAPIResponseCache}
+     * @param entry the {@link RestAPIResponseCache.Entry} to store
+     */
+    public void write(String key, RestAPIResponseCache.Entry entry) {
+        try {
+            String segment = String.format("%s-%d%s", key, entry.getStoredAt(), SEGMENT_SUFFIX);
+            Path temporaryFile = Files.createTempFile(this.directory, key, TEMPORARY_SUFFIX);
+            try {
+                this.writeSegment(temporaryFile, entry);
+                Files.move(temporaryFile, this.directory.resolve(segment), StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+            long numBytes = Files.size(this.directory.resolve(segment));
+            this.modifyIndex(index -> index.put(key, new IndexEntry(segment, numBytes, entry.getStoredAt(), System.currentTimeMillis())));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not write {} to the disk cache in {}.", key, this.directory, e);
+        }
+    }
+
+    /**
+     * Marks a stored response as fresh again, e.g., after a {@code 304 Not Modified} response, without
+     * rewriting its segment.
+     *
+     * @param key      identifies the request; see {@link RestAPIResponseCache}
+     * @param storedAt the new time of storage
+     */
+    public void touch(String key, long storedAt) {
+        try {
+            this.modifyIndex(index -> {
+                IndexEntry indexEntry = index.get(key);
+                if (indexEntry != null) {
+                    index.put(key, new IndexEntry(indexEntry.segment, indexEntry.numBytes, storedAt, System.currentTimeMillis()));
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not update {} in the disk cache in {}.", key, this.directory, e);
+        }
+    }
+
+    private RestAPIResponseCache.Entry readSegment(Path file, long storedAt) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            DataInputStream in = new DataInputStream(new ByteBufferInputStream(buffer));
+            if (in.readInt() != SEGMENT_MAGIC) {
+                throw new IOException("Not a cache segment: " + file);
+            }
+            String eTag = emptyToNull(in.readUTF());
+            String lastModified = emptyToNull(in.readUTF());
+            long numBytes = in.readLong();
+            try (InputStreamReader reader = new InputStreamReader(new GZIPInputStream(in), StandardCharsets.UTF_8)) {
+                JSONArray records = new JSONArray(new JSONTokener(reader));
+                return RestAPIResponseCache.Entry.restore(records, eTag, lastModified, numBytes, storedAt);
+            }
+        }
+    }
+
+    private void writeSegment(Path file, RestAPIResponseCache.Entry entry) throws IOException {
+        try (OutputStream fileOut = Files.newOutputStream(file)) {
+            DataOutputStream out = new DataOutputStream(fileOut);
+            out.writeInt(SEGMENT_MAGIC);
+            out.writeUTF(entry.getETag() == null ? "" : entry.getETag());
+            out.writeUTF(entry.getLastModified() == null ? "" : entry.getLastModified());
+            out.writeLong(entry.getNumBytes());
+            out.flush();
+            try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(fileOut), StandardCharsets.UTF_8)) {
+                entry.getRecords().write(writer);
+            }
+        }
+    }
+
+    /**
+     * Re-reads the index if another writer has replaced it.
+     *
+     * @return the current index
+     */
+    private synchronized Map<String, IndexEntry> refreshIndex() throws IOException {
+        Path indexFile = this.directory.resolve(INDEX_FILE_NAME);
+        if (!Files.exists(indexFile)) {
+            this.index = new HashMap<>();
+            this.indexVersion = null;
+            return this.index;
+        }
+        List<Object> version = readVersion(indexFile);
+        if (!version.equals(this.indexVersion)) {
+            Map<String, IndexEntry> index = new HashMap<>();
+            for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t");
+                if (fields.length != 5) continue;
+                index.put(fields[0], new IndexEntry(fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3]), Long.parseLong(fields[4])));
+            }
+            this.index = index;
+            this.indexVersion = version;
+        }
+        return this.index;
+    }
+
+    private static List<Object> readVersion(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return Arrays.asList(attributes.fileKey(), attributes.lastModifiedTime(), attributes.size());
+    }
+
+    /**
+     * Applies a modification to the latest index under the directory lock, evicts the least recently used
+     * segments if the size bound is exceeded, writes the index back, and deletes the segments that the index no
+     * longer references, including those that the modification added and the eviction removed right away.
+     */
+    private void modifyIndex(Consumer<Map<String, IndexEntry>> modification) throws IOException {
+        synchronized (this.monitor) {
+            try (FileChannel lockChannel = FileChannel.open(
+                    this.directory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = lockChannel.lock()) {
+                Map<String, IndexEntry> index = new HashMap<>(this.refreshIndex());
+                Set<String> touchedSegments = new HashSet<>();
+                index.values().forEach(indexEntry -> touchedSegments.add(indexEntry.segment));
+
+                this.pendingAccessTimes.forEach((key, accessTime) -> index.computeIfPresent(
+                        key, (k, indexEntry) -> indexEntry.withLastAccess(Math.max(indexEntry.lastAccess, accessTime))
+                ));
+                this.pendingAccessTimes.clear();
+                modification.accept(index);
+                index.values().forEach(indexEntry -> touchedSegments.add(indexEntry.segment));
+                this.evict(index);
+
+                this.writeIndex(index);
+                Set<String> referencedSegments = new HashSet<>();
+                index.values().forEach(indexEntry -> referencedSegments.add(indexEntry.segment));
+                for (String segment : touchedSegments) {
+                    if (!referencedSegments.contains(segment)) {
+                        Files.deleteIfExists(this.directory.resolve(segment));
+                    }
+                }
+                this.deleteOrphans(referencedSegments);
+            }
+        }
+    }
+
+    /**
+     * Deletes old segments and temporary files that the index does not reference, e.g., because a JVM crashed
+     * between moving a segment into place and updating the index.
+     */
+    private void deleteOrphans(Set<String> referencedSegments) throws IOException {
+        long maxLastModified = System.currentTimeMillis() - ORPHAN_GRACE_MILLIS;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                if (!fileName.endsWith(SEGMENT_SUFFIX) && !fileName.endsWith(TEMPORARY_SUFFIX)) continue;
+                if (referencedSegments.contains(fileName)) continue;
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() > maxLastModified) continue;
+                    logger.debug("Deleting the orphaned file {} from the disk cache.", fileName);
+                    Files.deleteIfExists(file);
+                } catch (NoSuchFileException e) {
+                    // Deleted concurrently.
+                }
+            }
+        }
+    }
+
+    private void evict(Map<String, IndexEntry> index) {
+        long numBytes = index.values().stream().mapToLong(indexEntry -> indexEntry.numBytes).sum();
+        if (numBytes <= this.maxBytes) return;
+        List<Map.Entry<String, IndexEntry>> indexEntries = new ArrayList<>(index.entrySet());
+        indexEntries.sort(Comparator.comparingLong(indexEntry -> indexEntry.getValue().lastAccess));
+        for (Map.Entry<String, IndexEntry> indexEntry : indexEntries) {
+            if (numBytes <= this.maxBytes) break;
+            index.remove(indexEntry.getKey());
+            numBytes -= indexEntry.getValue().numBytes;
+            logger.debug("Evicting {} from the disk cache.", indexEntry.getValue().segment);
+        }
+    }
+
+    private void writeIndex(Map<String, IndexEntry> index) throws IOException {
+        Path temporaryFile = Files.createTempFile(this.directory, INDEX_FILE_NAME, TEMPORARY_SUFFIX);
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, IndexEntry> indexEntry : index.entrySet()) {
+                    IndexEntry value = indexEntry.getValue();
+                    writer.write(String.join("\t", indexEntry.getKey(), value.segment, String.valueOf(value.numBytes),
+                            String.valueOf(value.storedAt), String.valueOf(value.lastAccess)));
+                    writer.newLine();
+                }
+            }
+            Files.move(temporaryFile, this.directory.resolve(INDEX_FILE_NAME),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            synchronized (this) {
+                this.index = index;
+                this.indexVersion = readVersion(this.directory.resolve(INDEX_FILE_NAME));
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * A line of the index.
+     */
+    private static class IndexEntry {
+
+        private final String segment;
+
+        private final long numBytes, storedAt, lastAccess;
+
+        private IndexEntry(String segment, long numBytes, long storedAt, long lastAccess) {
+            this.segment = segment;
+            this.numBytes = numBytes;
+            this.storedAt = storedAt;
+            this.lastAccess = lastAccess;
+        }
+
+        private IndexEntry withLastAccess(long lastAccess) {
+            return new IndexEntry(this.segment, this.numBytes, this.storedAt, lastAccess);
+        }
+    }
+
+    /**
+     * Reads a (memory-mapped) {@link ByteBuffer}.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!this.buffer.hasRemaining()) return -1;
+            int numBytes = Math.min(length, this.buffer.remaining());
+            this.buffer.get(bytes, offset, numBytes);
+            return numBytes;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.apache.wayang.basic.mapping;
+
+import org.apache.wayang.basic.operators.FilterOperator;
+import org.apache.wayang.basic.operators.RestAPISource;
+import org.apache.wayang.basic.rest.RestAPIPredicate;
+import org.apache.wayang.core.function.PredicateDescriptor;
+import org.apache.wayang.core.mapping.Mapping;
+import org.apache.wayang.core.mapping.OperatorPattern;
+import org.apache.wayang.core.mapping.PlanTransformation;
+import org.apache.wayang.core.mapping.ReplacementSubplanFactory;
+import org.apache.wayang.core.mapping.SubplanMatch;
+import org.apache.wayang.core.mapping.SubplanPattern;
+import org.apache.wayang.core.plan.wayangplan.InputSlot;
+import org.apache.wayang.core.plan.wayangplan.Operator;
+import org.apache.wayang.core.types.DataSetType;
+import org.json.JSONObject;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Replaces a {@link RestAPISource} followed by a {@link FilterOperator} with a {@link RestAPIPredicate} by a
+ * {@link RestAPISource} that pushes the predicate down into its requests, provided that its
+ * {@link org.apache.wayang.basic.rest.RestAPIDialect} supports it. The transformation is platform-independent:
+ * each platform that implements the {@link RestAPISource} registers it ahead of its mappings for the
+ * {@link RestAPISource} and the {@link FilterOperator}.
+ */
+public class RestAPIFilterPushdownMapping implements Mapping {
+
+    @Override
+    public Collection<PlanTransformation> getTransformations() {
+        return Collections.singleton(new PlanTransformation(
+                this.createSubplanPattern(),
+                new ReplacementFactory()
+        ).thatReplaces());
+    }
+
+    @SuppressWarnings("unchecked")
+    private SubplanPattern createSubplanPattern() {
+        final OperatorPattern<RestAPISource> sourcePattern = new OperatorPattern<>(
+                "source", new RestAPISource((String) null, (String) null, (String) null, (String) null), false
+        ).withAdditionalTest(RestAPIFilterPushdownMapping::canPushDownConsumer);
+        final OperatorPattern<FilterOperator<JSONObject>> filterPattern = new OperatorPattern<>(
+                "filter", new FilterOperator<>((PredicateDescriptor<JSONObject>) null, DataSetType.createDefault(JSONObject.class)), false
+        ).withAdditionalTest(filter -> filter.getPredicateDescriptor().getJavaImplementation() instanceof RestAPIPredicate);
+        sourcePattern.connectTo(0, filterPattern, 0);
+        return SubplanPattern.fromOperatorPatterns(sourcePattern, filterPattern);
+    }
+
+    /**
+     * Tells whether the only consumer of a {@link RestAPISource} is a {@link FilterOperator} whose predicate the
+     * source can push down. Other consumers would otherwise lose records.
+     */
+    private static boolean canPushDownConsumer(RestAPISource source) {
+        if (source.getDialect() == null) return false;
+        Collection<? extends InputSlot<?>> consumers = source.getOutput(0).getOccupiedSlots();
+        if (consumers.size() != 1) return false;
+        Operator consumer = consumers.iterator().next().getOwner();
+        if (!(consumer instanceof FilterOperator)) return false;
+        Object predicate = ((FilterOperator<?>) consumer).getPredicateDescriptor().getJavaImplementation();
+        return predicate instanceof RestAPIPredicate && source.canPushDown((RestAPIPredicate) predicate);
+    }
+
+    /**
+     * Creates the {@link RestAPISource} with the pushed-down predicate.
+     */
+    private static class ReplacementFactory extends ReplacementSubplanFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Operator translate(SubplanMatch subplanMatch, int epoch) {
+            final RestAPISource source = (RestAPISource) subplanMatch.getMatch("source").getOperator();
+            final FilterOperator<JSONObject> filter = (FilterOperator<JSONObject>) subplanMatch.getMatch("filter").getOperator();
+            final RestAPIPredicate predicate = (RestAPIPredicate) filter.getPredicateDescriptor().getJavaImplementation();
+
+            final RestAPISource pushedDownSource = new RestAPISource(source);
+            pushedDownSource.pushDown(predicate);
+            return pushedDownSource.at(epoch);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.java.operators;
+
+import org.apache.wayang.basic.metrics.MetricsExporter;
+import org.apache.wayang.basic.metrics.MetricsSink;
+import org.apache.wayang.basic.operators.RestAPISource;
+import org.apache.wayang.core.api.Configuration;
+import org.apache.wayang.core.optimizer.costs.EstimationContext;
+import org.apache.wayang.core.platform.AtomicExecution;
+import org.apache.wayang.core.platform.AtomicExecutionGroup;
+import org.apache.wayang.core.platform.PartialExecution;
+import org.apache.wayang.core.profiling.ExecutionLog;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Fits the {@link JavaRestAPISource#MAIN_LOAD_KEY} load profile to measured executions.
+ * <p>The latency of the source is modeled as {@code a * requests + b * records + c * kilobytes}. The coefficients
+ * are fitted by least squares to the rows of the API latency log that {@link JavaRestAPISource} writes and/or to
+ * the partial executions of a Wayang execution log ({@code wayang.core.log.executions}), in which case the
+ * estimated time of the other operators is subtracted from the measured time. The result is printed as a
+ * property that can be put into a {@code wayang.properties} file.</p>
+ * <p>Usage: {@code RestAPILoadProfileCalibrator [--latency-log <file>] [--execution-log <file>]
+ * [--cpu-mhz <mhz>] [--cores <cores>] [--output <file>]}</p>
+ */
+public class RestAPILoadProfileCalibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestAPILoadProfileCalibrator.class);
+
+    /**
+     * The number of features, i.e., requests, records, and kilobytes.
+     */
+    private static final int NUM_FEATURES = 3;
+
+    private final List<double[]> features = new ArrayList<>();
+
+    private final List<Double> millis = new ArrayList<>();
+
+    /**
+     * Adds an observation.
+     *
+     * @param numRequests the number of requests, including all pages
+     * @param numRecords  the number of records
+     * @param numBytes    the size of the responses
+     * @param millis      the measured latency
+     */
+    public void addObservation(double numRequests, double numRecords, double numBytes, double millis) {
+        if (Double.isNaN(numRequests) || Double.isNaN(numRecords) || Double.isNaN(numBytes) || !(millis >= 0)) return;
+        this.features.add(new double[]{numRequests, numRecords, numBytes / 1024d});
+        this.millis.add(millis);
+    }
+
+    public int getNumObservations() {
+        return this.millis.size();
+    }
+
+    /**
+     * Adds the rows of the API latency log that record the size of their responses.
+     *
+     * @param path the latency log, either the JSON Lines file of the {@link MetricsSink} (including its rolled
+     *             over files) or an exported JSON array
+     * @throws IOException if the log cannot be read
+     */
+    public void addLatencyLog(String path) throws IOException {
+        Path file = Paths.get(path).toAbsolutePath();
+        String fileName = file.getFileName().toString();
+        JSONArray rows = fileName.endsWith(".jsonl")
+                ? MetricsExporter.read(file.getParent(), fileName.substring(0, fileName.length() - ".jsonl".length()))
+                : new JSONArray(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        for (int i = 0; i < rows.length(); i++) {
+            JSONObject row = rows.optJSONObject(i);
+            if (row == null || !row.has("records") || !row.has("latency_seconds")) continue;
+            this.addObservation(1d, row.getDouble("records"), row.optDouble("bytes", 0d), row.getDouble("latency_seconds") * 1000d);
+        }
+    }
+
+    /**
+     * Adds the partial executions of a Wayang execution log that contain exactly one REST API source.
+     *
+     * @param configuration provides the load profiles of the other operators
+     * @param path          the execution log
+     */
+    public void addExecutionLog(Configuration configuration, String path) {
+        try (ExecutionLog executionLog = ExecutionLog.open(configuration, path);
+             Stream<PartialExecution> partialExecutions = executionLog.stream()) {
+            partialExecutions.forEach(this::addPartialExecution);
+        } catch (Exception e) {
+            logger.error("Could not read the execution log {}: {}", path, e.getMessage(), e);
+        }
+    }
+
+    private void addPartialExecution(PartialExecution partialExecution) {
+        EstimationContext sourceContext = null;
+        double otherMillis = 0d;
+        for (AtomicExecutionGroup group : partialExecution.getAtomicExecutionGroups()) {
+            if (isRestAPISource(group)) {
+                if (sourceContext != null) return;
+                sourceContext = group.getEstimationContext();
+            } else {
+                otherMillis += group.estimateExecutionTime().getGeometricMeanEstimate();
+            }
+        }
+        if (sourceContext == null || sourceContext.getOutputCardinalities().length == 0) return;
+
+        double numRecords = sourceContext.getOutputCardinalities()[0].getGeometricMeanEstimate();
+        double numRequests = sourceContext.getDoubleProperty("numRequests", 1d);
+        double bytesPerRecord = sourceContext.getDoubleProperty("bytesPerRecord", RestAPISource.CardinalityEstimator.DEFAULT_BYTES_PER_RECORD);
+        this.addObservation(numRequests, numRecords, numRecords * bytesPerRecord,
+                partialExecution.getMeasuredExecutionTime() - otherMillis);
+    }
+
+    private static boolean isRestAPISource(AtomicExecutionGroup group) {
+        for (AtomicExecution atomicExecution : group.getAtomicExecutions()) {
+            String key = atomicExecution.getLoadProfileEstimator().getConfigurationKey();
+            if (JavaRestAPISource.MAIN_LOAD_KEY.equals(key)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Fits the coefficients by solving the normal equations. Negative coefficients are not meaningful for
+     * latencies and are clamped to {@code 0}.
+     *
+     * @return the milliseconds per request, per record, and per kilobyte
+     */
+    public double[] fit() {
+        double[][] xtx = new double[NUM_FEATURES][NUM_FEATURES + 1];
+        for (int row = 0; row < this.features.size(); row++) {
+            double[] x = this.features.get(row);
+            for (int i = 0; i < NUM_FEATURES; i++) {
+                for (int j = 0; j < NUM_FEATURES; j++) {
+                    xtx[i][j] += x[i] * x[j];
+                }
+                xtx[i][NUM_FEATURES] += x[i] * this.millis.get(row);
+            }
+        }
+
+        // Gauss-Jordan elimination with partial pivoting; features without variance get a coefficient of 0.
+        double[] coefficients = new double[NUM_FEATURES];
+        for (int column = 0; column < NUM_FEATURES; column++) {
+            int pivot = column;
+            for (int row = column + 1; row < NUM_FEATURES; row++) {
+                if (Math.abs(xtx[row][column]) > Math.abs(xtx[pivot][column])) pivot = row;
+            }
+            if (Math.abs(xtx[pivot][column]) < 1e-9) continue;
+            double[] swap = xtx[column];
+            xtx[column] = xtx[pivot];
+            xtx[pivot] = swap;
+            for (int row = 0; row < NUM_FEATURES; row++) {
+                if (row == column) continue;
+                double factor = xtx[row][column] / xtx[column][column];
+                for (int j = column; j <= NUM_FEATURES; j++) {
+                    xtx[row][j] -= factor * xtx[column][j];
+                }
+            }
+        }
+        for (int i = 0; i < NUM_FEATURES; i++) {
+            coefficients[i] = Math.abs(xtx[i][i]) < 1e-9 ? 0d : Math.max(0d, xtx[i][NUM_FEATURES] / xtx[i][i]);
+        }
+        return coefficients;
+    }
+
+    /**
+     * Converts fitted coefficients into a load profile specification.
+     *
+     * @param coefficients    see {@link #fit()}
+     * @param cyclesPerMillis the CPU cycles per millisecond of the Java platform
+     * @return the specification for {@link JavaRestAPISource#MAIN_LOAD_KEY}
+     */
+    public static String toSpecification(double[] coefficients, double cyclesPerMillis) {
+        return String.format(Locale.ROOT,
+                "{\"in\":0, \"out\":1, \"import\":[\"numRequests\", \"bytesPerRecord\"], " +
+                        "\"cpu\":\"${%d*numRequests + %d*out0 + %.4f*out0*bytesPerRecord}\", " +
+                        "\"ram\":\"${bytesPerRecord*out0}\", \"p\":0.7}",
+                Math.round(coefficients[0] * cyclesPerMillis),
+                Math.round(coefficients[1] * cyclesPerMillis),
+                coefficients[2] / 1024d * cyclesPerMillis
+        );
+    }
+
+    public static void main(String[] args) throws IOException {
+        String latencyLog = null, executionLog = null, output = null;
+        double mhz = 2700d, cores = 1d;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--latency-log": latencyLog = args[i + 1]; break;
+                case "--execution-log": executionLog = args[i + 1]; break;
+                case "--cpu-mhz": mhz = Double.parseDouble(args[i + 1]); break;
+                case "--cores": cores = Double.parseDouble(args[i + 1]); break;
+                case "--output": output = args[i + 1]; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        Configuration configuration = new Configuration();
+        if (configuration.getOptionalStringProperty(JavaRestAPISource.PREPARE_LOAD_KEY).isEmpty()) {
+            configuration.setProperty(JavaRestAPISource.PREPARE_LOAD_KEY, JavaRestAPISource.DEFAULT_PREPARE_LOAD_SPECIFICATION);
+        }
+        if (configuration.getOptionalStringProperty(JavaRestAPISource.MAIN_LOAD_KEY).isEmpty()) {
+            configuration.setProperty(JavaRestAPISource.MAIN_LOAD_KEY, JavaRestAPISource.DEFAULT_MAIN_LOAD_SPECIFICATION);
+        }
+
+        RestAPILoadProfileCalibrator calibrator = new RestAPILoadProfileCalibrator();
+        if (latencyLog != null) calibrator.addLatencyLog(latencyLog);
+        if (executionLog != null) calibrator.addExecutionLog(configuration, executionLog);
+
+        String specification;
+        if (calibrator.getNumObservations() < NUM_FEATURES) {
+            logger.warn("Only {} observations available; keeping the default load profile.", calibrator.getNumObservations());
+            specification = JavaRestAPISource.DEFAULT_MAIN_LOAD_SPECIFICATION;
+        } else {
+            double[] coefficients = calibrator.fit();
+            logger.info("Fitted {} ms per request, {} ms per record, and {} ms per kB from {} observations.",
+                    coefficients[0], coefficients[1], coefficients[2], calibrator.getNumObservations());
+            specification = toSpecification(coefficients, mhz * cores * 1000d);
+        }
+
+        String property = JavaRestAPISource.MAIN_LOAD_KEY + " = " + specification + System.lineSeparator();
+        if (output != null) {
+            Files.write(Paths.get(output), property.getBytes(StandardCharsets.UTF_8));
+        } else {
+            System.out.print(property);
+        }
+    }
+}
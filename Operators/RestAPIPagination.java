@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.wayang.core.function.PredicateDescriptor;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes how a cursor-paginated REST API is walked: where the cursor for the next page is found in a
+ * response, where it has to be placed in the next request, and when to stop.
+ */
+public class RestAPIPagination implements Serializable {
+
+    /**
+     * Where the cursor is put into the request for the next page.
+     */
+    public enum CursorLocation {
+        QUERY_PARAMETER,
+        BODY_FIELD
+    }
+
+    /**
+     * Dot-separated path to the cursor in a page, e.g., {@code paging.next.after}.
+     */
+    private final String cursorPath;
+
+    private final CursorLocation cursorLocation;
+
+    /**
+     * Name of the query parameter or body field that carries the cursor.
+     */
+    private final String cursorName;
+
+    /**
+     * Dot-separated path to the array of records in a page or {@code null} to emit whole pages.
+     */
+    private String recordsPath;
+
+    private int maxPages = Integer.MAX_VALUE;
+
+    /**
+     * Number of pages that may be fetched ahead of the consumer; {@code 0} disables prefetching.
+     */
+    private int prefetchDepth = 0;
+
+    /**
+     * Optional condition on a page after which no further page is requested.
+     */
+    private PredicateDescriptor.SerializablePredicate<JSONObject> stopCondition;
+
+    /**
+     * Dot-separated path to the total number of records across all pages or {@code null} if the API does not
+     * report it.
+     */
+    private String totalPath;
+
+    public RestAPIPagination(String cursorPath, CursorLocation cursorLocation, String cursorName) {
+        this.cursorPath = cursorPath;
+        this.cursorLocation = cursorLocation;
+        this.cursorName = cursorName;
+    }
+
+    /**
+     * Creates an instance that passes the cursor as URL query parameter.
+     *
+     * @param cursorPath     dot-separated path to the cursor in a page
+     * @param parameterName  name of the query parameter
+     * @return the new instance
+     */
+    public static RestAPIPagination inQueryParameter(String cursorPath, String parameterName) {
+        return new RestAPIPagination(cursorPath, CursorLocation.QUERY_PARAMETER, parameterName);
+    }
+
+    /**
+     * Creates an instance that passes the cursor as top-level field of a JSON request body.
+     *
+     * @param cursorPath dot-separated path to the cursor in a page
+     * @param fieldName  name of the body field
+     * @return the new instance
+     */
+    public static RestAPIPagination inBodyField(String cursorPath, String fieldName) {
+        return new RestAPIPagination(cursorPath, CursorLocation.BODY_FIELD, fieldName);
+    }
+
+    /**
+     * Emit the elements of the array at the given path instead of whole pages.
+     *
+     * @param recordsPath dot-separated path to the records, e.g., {@code results}
+     * @return this instance
+     */
+    public RestAPIPagination withRecordsPath(String recordsPath) {
+        this.recordsPath = recordsPath;
+        return this;
+    }
+
+    /**
+     * Stop after the given number of pages.
+     *
+     * @param maxPages the maximum number of pages to request
+     * @return this instance
+     */
+    public RestAPIPagination withMaxPages(int maxPages) {
+        this.maxPages = maxPages;
+        return this;
+    }
+
+    /**
+     * Request page N+1 as soon as the cursor of page N is known, so that downstream work on page N overlaps
+     * with the round trip for page N+1.
+     *
+     * @param prefetchDepth the maximum number of pages buffered ahead of the consumer; {@code 0} disables prefetching
+     * @return this instance
+     */
+    public RestAPIPagination withPrefetchDepth(int prefetchDepth) {
+        Validate.isTrue(prefetchDepth >= 0, "Prefetch depth must not be negative.");
+        this.prefetchDepth = prefetchDepth;
+        return this;
+    }
+
+    /**
+     * Stop after the first page that satisfies the given condition.
+     *
+     * @param stopCondition tested on each page
+     * @return this instance
+     */
+    public RestAPIPagination withStopCondition(PredicateDescriptor.SerializablePredicate<JSONObject> stopCondition) {
+        this.stopCondition = stopCondition;
+        return this;
+    }
+
+    /**
+     * Read the total number of records across all pages from each page, e.g., for cardinality estimation.
+     *
+     * @param totalPath dot-separated path to the total, e.g., {@code total}
+     * @return this instance
+     */
+    public RestAPIPagination withTotalPath(String totalPath) {
+        this.totalPath = totalPath;
+        return this;
+    }
+
+    public String getCursorPath() {
+        return this.cursorPath;
+    }
+
+    public CursorLocation getCursorLocation() {
+        return this.cursorLocation;
+    }
+
+    public String getCursorName() {
+        return this.cursorName;
+    }
+
+    public String getRecordsPath() {
+        return this.recordsPath;
+    }
+
+    public int getMaxPages() {
+        return this.maxPages;
+    }
+
+    public String getTotalPath() {
+        return this.totalPath;
+    }
+
+    public int getPrefetchDepth() {
+        return this.prefetchDepth;
+    }
+
+    /**
+     * Tells whether no further page should be requested after the given one.
+     *
+     * @param page       a page of the API response
+     * @param pageNumber the 1-based number of the {@code page}
+     * @return whether to stop
+     */
+    public boolean isStop(JSONObject page, int pageNumber) {
+        return pageNumber >= this.maxPages || (this.stopCondition != null && this.stopCondition.test(page));
+    }
+
+    /**
+     * Looks up the cursor for the next page.
+     *
+     * @param page a page of the API response
+     * @return the cursor or {@code null} if there is no next page
+     */
+    public String extractCursor(JSONObject page) {
+        Object cursor = resolvePath(page, this.cursorPath);
+        if (cursor == null || JSONObject.NULL.equals(cursor)) return null;
+        String cursorString = cursor.toString();
+        return cursorString.isEmpty() ? null : cursorString;
+    }
+
+    /**
+     * Looks up the total number of records across all pages.
+     *
+     * @param page a page of the API response
+     * @return the total or {@code -1} if it is not reported
+     */
+    public long extractTotal(JSONObject page) {
+        if (this.totalPath == null) return -1L;
+        Object total = resolvePath(page, this.totalPath);
+        return total instanceof Number ? ((Number) total).longValue() : -1L;
+    }
+
+    /**
+     * Extracts the records from a page.
+     *
+     * @param page a page of the API response
+     * @return the records in the {@code page} or the {@code page} itself if no records path is configured
+     */
+    public List<JSONObject> extractRecords(JSONObject page) {
+        if (this.recordsPath == null) return Collections.singletonList(page);
+        Object records = resolvePath(page, this.recordsPath);
+        if (!(records instanceof JSONArray)) return Collections.emptyList();
+        JSONArray recordArray = (JSONArray) records;
+        List<JSONObject> result = new ArrayList<>(recordArray.length());
+        for (int i = 0; i < recordArray.length(); i++) {
+            result.add(recordArray.getJSONObject(i));
+        }
+        return result;
+    }
+
+    /**
+     * Places the cursor into the URL of the next request.
+     *
+     * @param apiURL the URL of the first request
+     * @param cursor the cursor for the next page
+     * @return the URL for the next request
+     */
+    public String applyToURL(String apiURL, String cursor) {
+        if (this.cursorLocation != CursorLocation.QUERY_PARAMETER) return apiURL;
+        try {
+            return apiURL + (apiURL.contains("?") ? "&" : "?")
+                    + this.cursorName + "=" + URLEncoder.encode(cursor, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Places the cursor into the JSON body of the next request.
+     *
+     * @param payload the body of the first request
+     * @param cursor  the cursor for the next page
+     * @return the body for the next request
+     */
+    public String applyToPayload(String payload, String cursor) {
+        if (this.cursorLocation != CursorLocation.BODY_FIELD) return payload;
+        JSONObject body = payload == null || payload.trim().isEmpty() ? new JSONObject() : new JSONObject(payload);
+        body.put(this.cursorName, cursor);
+        return body.toString();
+    }
+
+    /**
+     * Resolves a dot-separated path in a {@link JSONObject}.
+     *
+     * @return the value at the path or {@code null} if the path does not exist
+     */
+    public static Object resolvePath(JSONObject object, String path) {
+        Object current = object;
+        for (String key : path.split("\\.")) {
+            if (!(current instanceof JSONObject)) return null;
+            current = ((JSONObject) current).opt(key);
+        }
+        return current;
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.apache.commons.lang3.Validate;
+import org.json.JSONObject;
+
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Splits the request space of a REST API into partitions that can be fetched independently, e.g., by the
+ * executors of a distributed platform: each partition is a copy of a request with its own values for some
+ * query parameters or body fields, such as a page number, a date window, or an account ID. Each partition
+ * follows its own pagination.
+ */
+public class RestAPIPartitioning implements Serializable {
+
+    /**
+     * Where the values of a partition are put into a request.
+     */
+    public enum Placement {
+
+        /**
+         * Appended to the URL as query parameters.
+         */
+        QUERY_PARAMETERS,
+
+        /**
+         * Put into the top-level fields of a JSON request body.
+         */
+        BODY_FIELDS,
+
+        /**
+         * Substituted for the placeholders {@code ${name}} in the URL and the body, e.g., in a filter of a search
+         * request.
+         */
+        TEMPLATE
+    }
+
+    /**
+     * The parameter values of each partition.
+     */
+    private final List<Map<String, String>> partitions;
+
+    private Placement placement = Placement.QUERY_PARAMETERS;
+
+    private RestAPIPartitioning(List<Map<String, String>> partitions) {
+        Validate.notEmpty(partitions, "At least one partition is required.");
+        this.partitions = Collections.unmodifiableList(partitions);
+    }
+
+    /**
+     * Creates an instance with one partition per page of an API that takes the page number as parameter.
+     *
+     * @param parameterName the name of the parameter, e.g., {@code page}
+     * @param firstPage     the first page
+     * @param lastPage      the last page (inclusive)
+     * @return the new instance
+     */
+    public static RestAPIPartitioning byPages(String parameterName, int firstPage, int lastPage) {
+        Validate.isTrue(firstPage <= lastPage, "The first page %d is after the last page %d.", firstPage, lastPage);
+        List<Map<String, String>> partitions = new ArrayList<>(lastPage - firstPage + 1);
+        for (int page = firstPage; page <= lastPage; page++) {
+            partitions.add(Collections.singletonMap(parameterName, Integer.toString(page)));
+        }
+        return new RestAPIPartitioning(partitions);
+    }
+
+    /**
+     * Creates an instance with one partition per date window of an API that takes the start and end of a period
+     * as parameters, formatted as ISO-8601 dates, e.g., {@code 2025-01-01}.
+     *
+     * @param fromParameter the name of the parameter for the first day of a window
+     * @param toParameter   the name of the parameter for the day after a window
+     * @param from          the first day of the first window
+     * @param to            the day after the last window
+     * @param window        the length of the windows; the last one may be shorter
+     * @return the new instance
+     */
+    public static RestAPIPartitioning byDateWindows(String fromParameter, String toParameter,
+                                                    LocalDate from, LocalDate to, Period window) {
+        Validate.isTrue(from.isBefore(to), "The period from %s to %s is empty.", from, to);
+        Validate.isTrue(from.plus(window).isAfter(from), "The window %s is not positive.", window);
+        List<Map<String, String>> partitions = new ArrayList<>();
+        for (LocalDate windowStart = from; windowStart.isBefore(to); windowStart = windowStart.plus(window)) {
+            LocalDate windowEnd = windowStart.plus(window).isBefore(to) ? windowStart.plus(window) : to;
+            Map<String, String> partition = new LinkedHashMap<>();
+            partition.put(fromParameter, windowStart.toString());
+            partition.put(toParameter, windowEnd.toString());
+            partitions.add(partition);
+        }
+        return new RestAPIPartitioning(partitions);
+    }
+
+    /**
+     * Creates an instance with one partition per range of a numeric parameter, e.g., of offsets or of
+     * timestamps in milliseconds.
+     *
+     * @param fromParameter the name of the parameter for the start of a range
+     * @param toParameter   the name of the parameter for the end of a range (exclusive)
+     * @param from          the start of the first range
+     * @param to            the end of the last range (exclusive)
+     * @param step          the length of the ranges; the last one may be shorter
+     * @return the new instance
+     */
+    public static RestAPIPartitioning byRanges(String fromParameter, String toParameter, long from, long to, long step) {
+        Validate.isTrue(from < to, "The range from %d to %d is empty.", from, to);
+        Validate.isTrue(step > 0, "The step %d is not positive.", step);
+        List<Map<String, String>> partitions = new ArrayList<>();
+        for (long rangeStart = from, rangeEnd; rangeStart < to; rangeStart = rangeEnd) {
+            rangeEnd = to - rangeStart > step ? rangeStart + step : to;
+            Map<String, String> partition = new LinkedHashMap<>();
+            partition.put(fromParameter, Long.toString(rangeStart));
+            partition.put(toParameter, Long.toString(rangeEnd));
+            partitions.add(partition);
+        }
+        return new RestAPIPartitioning(partitions);
+    }
+
+    /**
+     * Creates an instance with one partition per value of a parameter, e.g., per account.
+     *
+     * @param parameterName the name of the parameter
+     * @param values        the values
+     * @return the new instance
+     */
+    public static RestAPIPartitioning byValues(String parameterName, Collection<String> values) {
+        List<Map<String, String>> partitions = new ArrayList<>(values.size());
+        for (String value : values) {
+            partitions.add(Collections.singletonMap(parameterName, value));
+        }
+        return new RestAPIPartitioning(partitions);
+    }
+
+    /**
+     * Put the values into the top-level fields of the JSON request body instead of the query, e.g., for search
+     * requests.
+     *
+     * @return this instance
+     */
+    public RestAPIPartitioning inBodyFields() {
+        this.placement = Placement.BODY_FIELDS;
+        return this;
+    }
+
+    /**
+     * Substitute the values for the placeholders {@code ${name}} in the URL and the body instead of adding them,
+     * e.g., for the bounds of a filter in a search body.
+     *
+     * @return this instance
+     */
+    public RestAPIPartitioning inTemplate() {
+        this.placement = Placement.TEMPLATE;
+        return this;
+    }
+
+    public Placement getPlacement() {
+        return this.placement;
+    }
+
+    public int getNumPartitions() {
+        return this.partitions.size();
+    }
+
+    /**
+     * Splits requests into one request per partition. Requests without a tag are tagged with the values of their
+     * partition, e.g., {@code 2025-01-01/2025-02-01}.
+     *
+     * @param requests the {@link RestAPIRequest}s to split
+     * @return the requests of all partitions, partition by partition for each request
+     */
+    public List<RestAPIRequest> split(List<RestAPIRequest> requests) {
+        List<RestAPIRequest> partitionRequests = new ArrayList<>(requests.size() * this.partitions.size());
+        for (RestAPIRequest request : requests) {
+            for (Map<String, String> partition : this.partitions) {
+                partitionRequests.add(this.apply(request, partition));
+            }
+        }
+        return partitionRequests;
+    }
+
+    private RestAPIRequest apply(RestAPIRequest request, Map<String, String> partition) {
+        String apiURL = request.getAPIURL(), payload = request.getPayload();
+        if (this.placement == Placement.TEMPLATE) {
+            for (Map.Entry<String, String> parameter : partition.entrySet()) {
+                String placeholder = "${" + parameter.getKey() + "}";
+                apiURL = apiURL.replace(placeholder, encode(parameter.getValue()));
+                if (payload != null) payload = payload.replace(placeholder, parameter.getValue());
+            }
+            // Otherwise, every partition would fetch the same records.
+            Validate.isTrue(!apiURL.equals(request.getAPIURL()) || !Objects.equals(payload, request.getPayload()),
+                    "%s does not contain any of the placeholders for %s.", request, partition.keySet());
+        } else if (this.placement == Placement.BODY_FIELDS) {
+            JSONObject body = payload == null || payload.trim().isEmpty() ? new JSONObject() : new JSONObject(payload);
+            partition.forEach(body::put);
+            payload = body.toString();
+        } else {
+            StringBuilder url = new StringBuilder(apiURL);
+            char separator = apiURL.contains("?") ? '&' : '?';
+            for (Map.Entry<String, String> parameter : partition.entrySet()) {
+                url.append(separator).append(parameter.getKey()).append('=').append(encode(parameter.getValue()));
+                separator = '&';
+            }
+            apiURL = url.toString();
+        }
+        String tag = request.getTag() != null ? request.getTag() : String.join("/", partition.values());
+        return new RestAPIRequest(apiURL, request.getAPIMethod(), request.getHeaders(), payload, tag);
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.wayang.core.function.PredicateDescriptor;
+import org.json.JSONObject;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * A comparison of a record field with constants. Unlike an arbitrary lambda, it can be inspected and
+ * therefore be pushed down into the request of a {@link org.apache.wayang.basic.operators.RestAPISource}
+ * whose {@link RestAPIDialect} supports it.
+ * <p>Values are compared as numbers if both sides are numbers or numeric strings, otherwise as strings, so
+ * that ISO-8601 dates compare chronologically. Records that lack the field never match.</p>
+ */
+public class RestAPIPredicate implements PredicateDescriptor.SerializablePredicate<JSONObject> {
+
+    private static final Pattern NUMBER = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+
+    /**
+     * The comparison operators.
+     */
+    public enum Operator {
+        EQ, NEQ, LT, LTE, GT, GTE, BETWEEN
+    }
+
+    /**
+     * Dot-separated path to the field, e.g., {@code properties.start_date}.
+     */
+    private final String field;
+
+    private final Operator operator;
+
+    private final Object value;
+
+    /**
+     * The inclusive upper bound for {@link Operator#BETWEEN}, whose {@link #value} is the inclusive lower bound.
+     */
+    private final Object highValue;
+
+    private RestAPIPredicate(String field, Operator operator, Object value, Object highValue) {
+        this.field = Validate.notNull(field);
+        this.operator = operator;
+        this.value = Validate.notNull(value);
+        this.highValue = highValue;
+    }
+
+    public static RestAPIPredicate eq(String field, Object value) {
+        return new RestAPIPredicate(field, Operator.EQ, value, null);
+    }
+
+    public static RestAPIPredicate neq(String field, Object value) {
+        return new RestAPIPredicate(field, Operator.NEQ, value, null);
+    }
+
+    public static RestAPIPredicate lt(String field, Object value) {
+        return new RestAPIPredicate(field, Operator.LT, value, null);
+    }
+
+    public static RestAPIPredicate lte(String field, Object value) {
+        return new RestAPIPredicate(field, Operator.LTE, value, null);
+    }
+
+    public static RestAPIPredicate gt(String field, Object value) {
+        return new RestAPIPredicate(field, Operator.GT, value, null);
+    }
+
+    public static RestAPIPredicate gte(String field, Object value) {
+        return new RestAPIPredicate(field, Operator.GTE, value, null);
+    }
+
+    /**
+     * Creates a range predicate that includes both bounds.
+     */
+    public static RestAPIPredicate between(String field, Object lowValue, Object highValue) {
+        return new RestAPIPredicate(field, Operator.BETWEEN, lowValue, Validate.notNull(highValue));
+    }
+
+    @Override
+    public boolean test(JSONObject record) {
+        Object fieldValue = RestAPIPagination.resolvePath(record, this.field);
+        if (fieldValue == null || JSONObject.NULL.equals(fieldValue)) return false;
+        switch (this.operator) {
+            case EQ: return compare(fieldValue, this.value) == 0;
+            case NEQ: return compare(fieldValue, this.value) != 0;
+            case LT: return compare(fieldValue, this.value) < 0;
+            case LTE: return compare(fieldValue, this.value) <= 0;
+            case GT: return compare(fieldValue, this.value) > 0;
+            case GTE: return compare(fieldValue, this.value) >= 0;
+            case BETWEEN: return compare(fieldValue, this.value) >= 0 && compare(fieldValue, this.highValue) <= 0;
+            default: throw new IllegalStateException("Unknown operator " + this.operator);
+        }
+    }
+
+    private static int compare(Object fieldValue, Object constant) {
+        BigDecimal fieldNumber = toNumber(fieldValue), constantNumber = toNumber(constant);
+        if (fieldNumber != null && constantNumber != null) {
+            return fieldNumber.compareTo(constantNumber);
+        }
+        return fieldValue.toString().compareTo(constant.toString());
+    }
+
+    private static BigDecimal toNumber(Object value) {
+        if (value instanceof BigDecimal) return (BigDecimal) value;
+        if (value instanceof Number || value instanceof String) {
+            // Check the format first, so that comparing dates or other strings does not throw and catch exceptions.
+            String string = value.toString().trim();
+            return NUMBER.matcher(string).matches() ? new BigDecimal(string) : null;
+        }
+        return null;
+    }
+
+    public String getField() {
+        return this.field;
+    }
+
+    public Operator getOperator() {
+        return this.operator;
+    }
+
+    public Object getValue() {
+        return this.value;
+    }
+
+    public Object getHighValue() {
+        return this.highValue;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || this.getClass() != o.getClass()) return false;
+        RestAPIPredicate that = (RestAPIPredicate) o;
+        return this.field.equals(that.field) && this.operator == that.operator
+                && this.value.equals(that.value) && Objects.equals(this.highValue, that.highValue);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.field, this.operator, this.value, this.highValue);
+    }
+
+    @Override
+    public String toString() {
+        return this.operator == Operator.BETWEEN
+                ? String.format("%s BETWEEN %s AND %s", this.field, this.value, this.highValue)
+                : String.format("%s %s %s", this.field, this.operator, this.value);
+    }
+}
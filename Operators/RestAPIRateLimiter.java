@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.wayang.basic.rest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.InterruptedIOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules the requests to a single host of a REST API so that they stay within its rate limits:
+ * <ul>
+ *     <li>a token bucket spaces the requests according to the configured rate or the rate that the API announces
+ *     in its {@code X-HubSpot-RateLimit-*} headers,</li>
+ *     <li>throttled responses ({@code 429}) block further requests for their {@code Retry-After} or an
+ *     exponential backoff, and</li>
+ *     <li>the number of concurrent requests adapts to the throttling: it is halved on every throttled response and
+ *     grows by one per round of successful requests (AIMD), and</li>
+ *     <li>a used-up daily quota ({@code X-HubSpot-RateLimit-Daily-Remaining: 0}) rejects further requests until the
+ *     quota resets at the next midnight in the time zone of the API or after the {@code Retry-After} of the
+ *     response.</li>
+ * </ul>
+ * <p>Instances are thread-safe and shared by all requests to the same host; see {@link RestAPIClient}.</p>
+ */
+public class RestAPIRateLimiter {
+
+    private static final Logger logger = LogManager.getLogger(RestAPIRateLimiter.class);
+
+    private static final long INITIAL_BACKOFF_MILLIS = 1_000L;
+
+    private static final long MAX_BACKOFF_MILLIS = 60_000L;
+
+    private final String host;
+
+    private final int maxConcurrency;
+
+    /**
+     * The current number of concurrent requests that are allowed; fractional so that it can grow additively.
+     */
+    private double concurrencyLimit;
+
+    private int numInFlight = 0;
+
+    /**
+     * Requests per second or {@code 0} if the rate is unlimited.
+     */
+    private double rate;
+
+    /**
+     * The burst size of the token bucket.
+     */
+    private double capacity;
+
+    /**
+     * Available tokens; negative if requests have reserved future tokens.
+     */
+    private double tokens;
+
+    private long lastRefillNanos = System.nanoTime();
+
+    /**
+     * {@link System#nanoTime()} until which no request may be sent.
+     */
+    private long blockedUntilNanos = this.lastRefillNanos;
+
+    private int numConsecutiveThrottles = 0;
+
+    /**
+     * The time zone in which the daily quota resets at midnight.
+     */
+    private final ZoneId quotaTimeZone;
+
+    /**
+     * {@link System#currentTimeMillis()} at which the used-up daily quota resets or {@code 0} if it is not used up.
+     */
+    private long quotaResetMillis = 0L;
+
+    /**
+     * Creates a new instance whose daily quota resets at midnight UTC.
+     *
+     * @param host           the host whose requests are scheduled
+     * @param rate           initial requests per second or {@code 0} until the API announces its rate
+     * @param maxConcurrency the maximum number of concurrent requests
+     */
+    public RestAPIRateLimiter(String host, double rate, int maxConcurrency) {
+        this(host, rate, maxConcurrency, ZoneId.of("UTC"));
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param host           the host whose requests are scheduled
+     * @param rate           initial requests per second or {@code 0} until the API announces its rate
+     * @param maxConcurrency the maximum number of concurrent requests
+     * @param quotaTimeZone  the time zone in which the daily quota of the API resets at midnight
+     */
+    public RestAPIRateLimiter(String host, double rate, int maxConcurrency, ZoneId quotaTimeZone) {
+        this.host = host;
+        this.quotaTimeZone = quotaTimeZone;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.concurrencyLimit = this.maxConcurrency;
+        this.setRate(rate, Math.max(1d, rate));
+    }
+
+    /**
+     * Waits until a request may be sent. Every call must be followed by {@link #onResponse(HttpResponse)} or
+     * {@link #onFailure()}.
+     *
+     * @throws InterruptedIOException     if interrupted while waiting
+     * @throws RestAPIThrottledException if the daily quota of the API is used up
+     */
+    public void acquire() throws InterruptedIOException, RestAPIThrottledException {
+        long waitNanos;
+        synchronized (this) {
+            if (this.isQuotaExhausted()) {
+                throw new RestAPIThrottledException(String.format(
+                        "The daily request quota of %s is used up until %s.", this.host, Instant.ofEpochMilli(this.quotaResetMillis)
+                ));
+            }
+            try {
+                while (this.numInFlight >= (int) this.concurrencyLimit) {
+                    this.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to send a request to " + this.host);
+            }
+            this.numInFlight++;
+            waitNanos = this.reserveToken();
+        }
+        if (waitNanos <= 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            this.onFailure();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to send a request to " + this.host);
+        }
+    }
+
+    /**
+     * Takes a slot and a token only if both are available right away, e.g., for a hedged request, which is
+     * pointless if it has to wait. Like {@link #acquire()}, a successful call must be followed by
+     * {@link #onResponse(HttpResponse)} or {@link #onFailure()}.
+     *
+     * @return whether the request may be sent
+     */
+    public synchronized boolean tryAcquire() {
+        if (this.isQuotaExhausted() || this.numInFlight >= (int) this.concurrencyLimit) return false;
+        long now = System.nanoTime();
+        this.refill(now);
+        if (this.blockedUntilNanos - now > 0 || (this.rate > 0 && this.tokens < 1d)) return false;
+        this.numInFlight++;
+        this.reserveToken();
+        return true;
+    }
+
+    /**
+     * Tells whether the daily quota is used up and clears that state once the quota has reset.
+     */
+    private boolean isQuotaExhausted() {
+        if (this.quotaResetMillis == 0L) return false;
+        if (System.currentTimeMillis() < this.quotaResetMillis) return true;
+        logger.info("The daily request quota of {} has reset.", this.host);
+        this.quotaResetMillis = 0L;
+        return false;
+    }
+
+    private void refill(long now) {
+        if (this.rate > 0) {
+            this.tokens = Math.min(this.capacity, this.tokens + (now - this.lastRefillNanos) / 1e9 * this.rate);
+        }
+        this.lastRefillNanos = now;
+    }
+
+    /**
+     * Takes a token from the bucket, going into debt if there is none.
+     *
+     * @return the time to wait until the token is available and the host accepts requests again
+     */
+    private long reserveToken() {
+        long now = System.nanoTime();
+        this.refill(now);
+        long waitNanos = this.blockedUntilNanos - now;
+        if (this.rate > 0) {
+            this.tokens -= 1d;
+            if (this.tokens < 0) waitNanos = Math.max(waitNanos, (long) (-this.tokens / this.rate * 1e9));
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Adapts the schedule to a response and frees its slot.
+     *
+     * @param response the response, of which only the status code and headers are inspected
+     * @return whether the request was throttled and may be retried after another {@link #acquire()}
+     */
+    public synchronized boolean onResponse(HttpResponse<?> response) {
+        this.release();
+        HttpHeaders headers = response.headers();
+        this.applyRateLimitHeaders(headers);
+        parseLong(headers, "X-HubSpot-RateLimit-Daily-Remaining").ifPresent(remaining -> {
+            // The response that reports the last request of the day is still valid; only later requests are rejected.
+            if (remaining <= 0 && this.quotaResetMillis == 0L) {
+                long waitMillis = parseRetryAfter(headers.firstValue("Retry-After").orElse(null))
+                        .orElse(this.getMillisUntilMidnight());
+                this.quotaResetMillis = System.currentTimeMillis() + waitMillis;
+                logger.error("The daily request quota of {} is used up until {}.", this.host, Instant.ofEpochMilli(this.quotaResetMillis));
+            }
+        });
+
+        if (!isThrottled(response)) {
+            this.numConsecutiveThrottles = 0;
+            this.concurrencyLimit = Math.min(this.maxConcurrency, this.concurrencyLimit + 1d / this.concurrencyLimit);
+            return false;
+        }
+
+        this.concurrencyLimit = Math.max(1d, Math.floor(this.concurrencyLimit / 2));
+        long backoffMillis = parseRetryAfter(headers.firstValue("Retry-After").orElse(null)).orElse(
+                Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(this.numConsecutiveThrottles, 16))
+        );
+        this.numConsecutiveThrottles++;
+        this.blockedUntilNanos = Math.max(this.blockedUntilNanos, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis));
+        if (this.rate > 0) this.tokens = Math.min(this.tokens, 0d);
+        logger.warn("{} throttled a request. Backing off for {} ms with at most {} concurrent requests.",
+                this.host, backoffMillis, (int) this.concurrencyLimit);
+        return true;
+    }
+
+    /**
+     * Tells whether the server rejected a request for exceeding its rate limit.
+     */
+    public static boolean isThrottled(HttpResponse<?> response) {
+        return response.statusCode() == 429
+                || (response.statusCode() == 503 && response.headers().firstValue("Retry-After").isPresent());
+    }
+
+    /**
+     * Frees the slot of a request that did not receive a response.
+     */
+    public synchronized void onFailure() {
+        this.release();
+    }
+
+    private void release() {
+        this.numInFlight--;
+        this.notifyAll();
+    }
+
+    /**
+     * Applies the HubSpot headers {@code X-HubSpot-RateLimit-Max} and {@code -Interval-Milliseconds} or
+     * {@code -Secondly} to the rate and their {@code -Remaining} counterparts to the available tokens.
+     */
+    private void applyRateLimitHeaders(HttpHeaders headers) {
+        OptionalLong max = parseLong(headers, "X-HubSpot-RateLimit-Max");
+        OptionalLong interval = parseLong(headers, "X-HubSpot-RateLimit-Interval-Milliseconds");
+        OptionalLong secondly = parseLong(headers, "X-HubSpot-RateLimit-Secondly");
+        if (max.isPresent() && interval.isPresent() && interval.getAsLong() > 0) {
+            this.setRate(max.getAsLong() * 1000d / interval.getAsLong(), max.getAsLong());
+        } else if (secondly.isPresent()) {
+            this.setRate(secondly.getAsLong(), secondly.getAsLong());
+        }
+        if (this.rate > 0) {
+            parseLong(headers, "X-HubSpot-RateLimit-Remaining").ifPresent(remaining -> this.tokens = Math.min(this.tokens, remaining));
+            parseLong(headers, "X-HubSpot-RateLimit-Secondly-Remaining").ifPresent(remaining -> this.tokens = Math.min(this.tokens, remaining));
+        }
+    }
+
+    private long getMillisUntilMidnight() {
+        ZonedDateTime now = ZonedDateTime.now(this.quotaTimeZone);
+        ZonedDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay(this.quotaTimeZone);
+        return Duration.between(now, midnight).toMillis();
+    }
+
+    private void setRate(double rate, double capacity) {
+        if (rate == this.rate && capacity == this.capacity) return;
+        // A bucket that was unlimited starts out full.
+        this.tokens = this.rate > 0 ? Math.min(this.tokens, capacity) : capacity;
+        this.rate = Math.max(0d, rate);
+        this.capacity = Math.max(1d, capacity);
+    }
+
+    private static OptionalLong parseLong(HttpHeaders headers, String name) {
+        try {
+            return headers.firstValueAsLong(name);
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * Parses a {@code Retry-After} header, which is either a number of seconds or an HTTP date.
+     *
+     * @return the time to wait in milliseconds or nothing if the header is missing or malformed
+     */
+    static OptionalLong parseRetryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) return OptionalLong.empty();
+        try {
+            return OptionalLong.of(Math.max(0L, Long.parseLong(retryAfter.trim()) * 1000L));
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, so it should be a date.
+        }
+        try {
+            ZonedDateTime retryTime = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return OptionalLong.of(Math.max(0L, Duration.between(ZonedDateTime.now(retryTime.getZone()), retryTime).toMillis()));
+        } catch (DateTimeParseException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * @return the current number of concurrent requests that are allowed
+     */
+    public synchronized int getConcurrencyLimit() {
+        return (int) this.concurrencyLimit;
+    }
+
+    /**
+     * @return the current requests per second or {@code 0} if unlimited
+     */
+    public synchronized double getRate() {
+        return this.rate;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Specifies a single request against a REST API.
+ */
+public class RestAPIRequest implements Serializable {
+
+    private final String apiURL;
+
+    private final String apiMethod;
+
+    /**
+     * Request headers in the format {@code Key1:Value1;Key2:Value2}.
+     */
+    private final String headers;
+
+    private final String payload;
+
+    /**
+     * Optional label for the records of this request, e.g., the account or date window it covers.
+     */
+    private final String tag;
+
+    public RestAPIRequest(String apiURL, String apiMethod, String headers, String payload) {
+        this(apiURL, apiMethod, headers, payload, null);
+    }
+
+    public RestAPIRequest(String apiURL, String apiMethod, String headers, String payload, String tag) {
+        this.apiURL = apiURL;
+        this.apiMethod = apiMethod;
+        this.headers = headers;
+        this.payload = payload;
+        this.tag = tag;
+    }
+
+    /**
+     * Creates a copy of this instance that targets a different URL and payload, e.g., for the next page.
+     *
+     * @param apiURL  the new URL
+     * @param payload the new payload
+     * @return the new instance
+     */
+    public RestAPIRequest withURLAndPayload(String apiURL, String payload) {
+        return new RestAPIRequest(apiURL, this.apiMethod, this.headers, payload, this.tag);
+    }
+
+    public String getAPIURL() {
+        return this.apiURL;
+    }
+
+    public String getAPIMethod() {
+        return this.apiMethod;
+    }
+
+    public String getHeaders() {
+        return this.headers;
+    }
+
+    public String getPayload() {
+        return this.payload;
+    }
+
+    public String getTag() {
+        return this.tag;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || this.getClass() != o.getClass()) return false;
+        RestAPIRequest that = (RestAPIRequest) o;
+        return Objects.equals(this.apiURL, that.apiURL) && Objects.equals(this.apiMethod, that.apiMethod)
+                && Objects.equals(this.headers, that.headers) && Objects.equals(this.payload, that.payload)
+                && Objects.equals(this.tag, that.tag);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.apiURL, this.apiMethod, this.headers, this.payload, this.tag);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[%s %s]", this.getClass().getSimpleName(), this.apiMethod, this.apiURL);
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.wayang.basic.rest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.http.HttpTimeoutException;
+import java.util.Locale;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The body of a REST API response, decompressed on the fly according to its {@code Content-Encoding}
+ * ({@code gzip} or {@code deflate}) while it is being read, so that streaming parsers never see the compressed
+ * bytes and the response is never buffered as a whole. It counts the bytes as transferred and as decompressed.
+ * <p>If a read waits for the connection longer than the stall timeout of its request, the body is closed, so that
+ * a stalled connection fails the read with an {@link HttpTimeoutException} instead of blocking it forever. A body
+ * that keeps arriving may take arbitrarily long, e.g., a large export that is streamed.</p>
+ *
+ * @see RestAPIClient#COMPRESSION_KEY
+ * @see RestAPIClient#STALL_TIMEOUT_KEY
+ */
+public class RestAPIResponseBody extends InputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Closes bodies whose reads have stalled.
+     */
+    private static final ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "rest-api-stall-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // Bodies that are closed should not linger until their next check.
+        watchdog.setRemoveOnCancelPolicy(true);
+    }
+
+    private final CountingInputStream transferredBody;
+
+    private final String contentEncoding;
+
+    /**
+     * Decompresses the {@link #transferredBody}; created upon the first read, as the decompressors already read
+     * the header of the body.
+     */
+    private InputStream decodedBody;
+
+    private Inflater inflater;
+
+    private long numDecodedBytes = 0L;
+
+    /**
+     * Checks whether a read has stalled or {@code null} if there is no stall timeout.
+     */
+    private ScheduledFuture<?> expiration;
+
+    private long stallTimeoutNanos;
+
+    /**
+     * {@link System#nanoTime()} at which the pending read started or {@code 0} if no read is pending.
+     */
+    private volatile long readStartNanos = 0L;
+
+    private volatile boolean isExpired = false, isClosed = false;
+
+    /**
+     * Creates a new instance without reading from the body yet.
+     *
+     * @param body            the body as transferred
+     * @param contentEncoding the {@code Content-Encoding} of the response or {@code null}
+     */
+    public RestAPIResponseBody(InputStream body, String contentEncoding) {
+        this.transferredBody = new CountingInputStream(body);
+        this.contentEncoding = contentEncoding == null ? "identity" : contentEncoding.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Closes the body once a read has waited for the connection for the given time unless the body has been closed
+     * before. Time in which the body is not read does not count.
+     *
+     * @param stallTimeoutNanos the stall timeout in nanoseconds
+     */
+    synchronized void expireWhenStalled(long stallTimeoutNanos) {
+        if (this.isClosed) return;
+        this.stallTimeoutNanos = stallTimeoutNanos;
+        this.expiration = watchdog.schedule(this::checkStall, stallTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void checkStall() {
+        if (this.isClosed) return;
+        long waitingSinceNanos = this.readStartNanos;
+        long transferNanos = this.transferredBody.transferNanos;
+        // A decompressing read may take several reads of the connection, each of which is progress.
+        if (waitingSinceNanos != 0L && transferNanos != 0L && transferNanos - waitingSinceNanos > 0) {
+            waitingSinceNanos = transferNanos;
+        }
+        long nowNanos = System.nanoTime();
+        if (waitingSinceNanos != 0L && nowNanos - waitingSinceNanos >= this.stallTimeoutNanos) {
+            this.expire();
+            return;
+        }
+        long delayNanos = waitingSinceNanos == 0L ? this.stallTimeoutNanos : waitingSinceNanos + this.stallTimeoutNanos - nowNanos;
+        this.expiration = watchdog.schedule(this::checkStall, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void expire() {
+        this.isExpired = true;
+        try {
+            // Unblocks a pending read of the connection.
+            this.transferredBody.close();
+        } catch (IOException e) {
+            // The read fails either way.
+        }
+    }
+
+    private IOException translate(IOException e) {
+        if (!this.isExpired) return e;
+        return new HttpTimeoutException(String.format(
+                "Response body stalled for more than %d ms", TimeUnit.NANOSECONDS.toMillis(this.stallTimeoutNanos)
+        ));
+    }
+
+    private InputStream getDecodedBody() throws IOException {
+        if (this.isExpired) throw this.translate(new IOException("closed"));
+        if (this.decodedBody != null) return this.decodedBody;
+        PushbackInputStream body = new PushbackInputStream(this.transferredBody, 2);
+        int first = body.read();
+        if (first == -1) {
+            // E.g., a HEAD request or an empty page, whose headers still announce the encoding.
+            return this.decodedBody = body;
+        }
+        int second = body.read();
+        if (second != -1) body.unread(second);
+        body.unread(first);
+        switch (this.contentEncoding) {
+            case "identity":
+            case "":
+                return this.decodedBody = body;
+            case "gzip":
+            case "x-gzip":
+                return this.decodedBody = new GZIPInputStream(body, BUFFER_SIZE);
+            case "deflate":
+                // Deflate is meant to be zlib-wrapped, but some servers send the raw format.
+                boolean isZlibWrapped = second != -1 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+                this.inflater = new Inflater(!isZlibWrapped);
+                return this.decodedBody = new InflaterInputStream(body, this.inflater, BUFFER_SIZE);
+            default:
+                throw new IOException(String.format("Unsupported Content-Encoding: %s", this.contentEncoding));
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        this.readStartNanos = System.nanoTime();
+        try {
+            int b = this.getDecodedBody().read();
+            if (b != -1) this.numDecodedBytes++;
+            return b;
+        } catch (IOException e) {
+            throw this.translate(e);
+        } finally {
+            this.readStartNanos = 0L;
+        }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        this.readStartNanos = System.nanoTime();
+        try {
+            int numBytes = this.getDecodedBody().read(buffer, offset, length);
+            if (numBytes > 0) this.numDecodedBytes += numBytes;
+            return numBytes;
+        } catch (IOException e) {
+            throw this.translate(e);
+        } finally {
+            this.readStartNanos = 0L;
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return this.decodedBody == null ? 0 : this.decodedBody.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            this.isClosed = true;
+            if (this.expiration != null) this.expiration.cancel(false);
+        }
+        try {
+            if (this.decodedBody != null) this.decodedBody.close();
+            else this.transferredBody.close();
+        } finally {
+            if (this.inflater != null) this.inflater.end();
+        }
+    }
+
+    /**
+     * @return the {@code Content-Encoding} of the response, {@code identity} if it has none
+     */
+    public String getContentEncoding() {
+        return this.contentEncoding;
+    }
+
+    /**
+     * @return the number of bytes read from the connection so far
+     */
+    public long getNumTransferredBytes() {
+        return this.transferredBody.numBytes;
+    }
+
+    /**
+     * @return the number of decompressed bytes read so far
+     */
+    public long getNumDecodedBytes() {
+        return this.numDecodedBytes;
+    }
+
+    /**
+     * Counts the bytes that pass through and notes when they did.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long numBytes = 0L;
+
+        /**
+         * {@link System#nanoTime()} of the last read that returned bytes or {@code 0} if there was none.
+         */
+        private volatile long transferNanos = 0L;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                this.numBytes++;
+                this.transferNanos = System.nanoTime();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int numBytes = super.read(buffer, offset, length);
+            if (numBytes > 0) {
+                this.numBytes += numBytes;
+                this.transferNanos = System.nanoTime();
+            }
+            return numBytes;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long numSkipped = super.skip(n);
+            this.numBytes += numSkipped;
+            return numSkipped;
+        }
+    }
+}
@@ -0,0 +1,454 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.wayang.core.api.Configuration;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-memory cache of parsed REST API responses. Entries are fresh for a configurable time; afterwards they are
+ * revalidated with a conditional request ({@code If-None-Match}/{@code If-Modified-Since}), so that a
+ * {@code 304 Not Modified} response reuses the cached records without downloading and parsing the body again.
+ * Optionally, entries that just went stale are served right away while they are revalidated in the background.
+ * <p>The cache is bounded by the approximate size of the cached response bodies and evicts the least recently
+ * used entries first. If a directory is configured, entries are also kept in a {@link RestAPIDiskCache}, so that
+ * they survive the JVM. Instances are shared by all callers with the same settings; see
+ * {@link #getInstance(Configuration)}.</p>
+ */
+public class RestAPIResponseCache {
+
+    private static final Logger logger = LogManager.getLogger(RestAPIResponseCache.class);
+
+    /**
+     * Time in milliseconds for which a cached response is served without revalidation.
+     */
+    public static final String TTL_KEY = "wayang.java.restapisource.cache.ttl";
+
+    /**
+     * Time in milliseconds after the TTL during which a stale response is served while it is revalidated in the
+     * background; {@code 0} disables stale-while-revalidate.
+     */
+    public static final String STALE_WHILE_REVALIDATE_KEY = "wayang.java.restapisource.cache.stale-while-revalidate";
+
+    /**
+     * Maximum total size in bytes of the cached response bodies.
+     */
+    public static final String MAX_BYTES_KEY = "wayang.java.restapisource.cache.max-bytes";
+
+    /**
+     * Directory of the persistent {@link RestAPIDiskCache}; if not set, responses are only cached in memory.
+     */
+    public static final String DISK_DIRECTORY_KEY = "wayang.java.restapisource.cache.disk.dir";
+
+    /**
+     * Maximum total size in bytes of the compressed responses in the {@link RestAPIDiskCache}.
+     */
+    public static final String DISK_MAX_BYTES_KEY = "wayang.java.restapisource.cache.disk.max-bytes";
+
+    private static final long DEFAULT_TTL = 300_000L;
+
+    private static final long DEFAULT_STALE_WHILE_REVALIDATE = 0L;
+
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final long DEFAULT_DISK_MAX_BYTES = 1024L * 1024 * 1024;
+
+    private static final Map<Settings, RestAPIResponseCache> instances = new ConcurrentHashMap<>();
+
+    private static ExecutorService revalidationExecutor;
+
+    /**
+     * Loads a response from the API.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        /**
+         * @param request  the {@link RestAPIRequest} to send
+         * @param previous the cached {@link Entry} to revalidate or {@code null} if there is none
+         * @return the loaded {@link Entry} or {@code previous.revalidated()} if the server answered {@code 304}
+         * @throws IOException if the request failed
+         */
+        Entry load(RestAPIRequest request, Entry previous) throws IOException;
+
+    }
+
+    private final Settings settings;
+
+    /**
+     * The cached entries in access order, i.e., the least recently used entry comes first.
+     */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Set<Key> revalidatingKeys = ConcurrentHashMap.newKeySet();
+
+    private long numBytes = 0L;
+
+    /**
+     * The persistent tier or {@code null} if there is none.
+     */
+    private final RestAPIDiskCache diskCache;
+
+    private RestAPIResponseCache(Settings settings) {
+        this.settings = settings;
+        RestAPIDiskCache diskCache = null;
+        if (settings.diskDirectory != null) {
+            try {
+                diskCache = new RestAPIDiskCache(Paths.get(settings.diskDirectory), settings.diskMaxBytes);
+            } catch (IOException e) {
+                logger.warn("Could not open the disk cache in {}; caching in memory only.", settings.diskDirectory, e);
+            }
+        }
+        this.diskCache = diskCache;
+    }
+
+    /**
+     * Provides the cache for the settings in the given {@link Configuration}.
+     *
+     * @param configuration provides the {@code wayang.java.restapisource.cache.*} settings
+     * @return the shared {@link RestAPIResponseCache}
+     */
+    public static RestAPIResponseCache getInstance(Configuration configuration) {
+        return instances.computeIfAbsent(new Settings(configuration), RestAPIResponseCache::new);
+    }
+
+    /**
+     * Provides the records for the given request, either from the cache or via the {@link Loader}.
+     *
+     * @param request the {@link RestAPIRequest}
+     * @param loader  loads and revalidates responses
+     * @return the records; each call gets its own copies of the cached {@link JSONObject}s
+     * @throws IOException if the response had to be loaded and that failed
+     */
+    public JSONArray get(RestAPIRequest request, Loader loader) throws IOException {
+        Key key = new Key(request);
+        Entry entry;
+        synchronized (this) {
+            entry = this.entries.get(key);
+        }
+        if (entry == null && this.diskCache != null) {
+            entry = this.diskCache.read(key.getDigest());
+            if (entry != null) this.putInMemory(key, entry);
+        }
+
+        if (entry != null) {
+            long age = System.currentTimeMillis() - entry.storedAt;
+            if (age <= this.settings.ttl) {
+                logger.debug("Serving {} from the cache.", request);
+                return entry.copyRecords();
+            }
+            if (age <= this.settings.ttl + this.settings.staleWhileRevalidate) {
+                logger.debug("Serving stale {} from the cache while revalidating it.", request);
+                this.revalidateInBackground(key, request, entry, loader);
+                return entry.copyRecords();
+            }
+        }
+
+        Entry loadedEntry = loader.load(request, entry);
+        this.put(key, loadedEntry, entry);
+        return loadedEntry.copyRecords();
+    }
+
+    private void revalidateInBackground(Key key, RestAPIRequest request, Entry entry, Loader loader) {
+        if (!this.revalidatingKeys.add(key)) return;
+        getRevalidationExecutor().execute(() -> {
+            try {
+                this.put(key, loader.load(request, entry), entry);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not revalidate {}; keeping the stale response.", request, e);
+            } finally {
+                this.revalidatingKeys.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Stores a loaded entry in memory and on disk.
+     *
+     * @param key      identifies the request
+     * @param entry    the loaded {@link Entry}
+     * @param previous the {@link Entry} that was revalidated or {@code null}
+     */
+    private void put(Key key, Entry entry, Entry previous) {
+        this.putInMemory(key, entry);
+        if (this.diskCache == null || !entry.isCacheable) return;
+        if (previous != null && entry.records == previous.records) {
+            this.diskCache.touch(key.getDigest(), entry.storedAt);
+        } else {
+            this.diskCache.write(key.getDigest(), entry);
+        }
+    }
+
+    private synchronized void putInMemory(Key key, Entry entry) {
+        if (!entry.isCacheable) {
+            Entry removedEntry = this.entries.remove(key);
+            if (removedEntry != null) this.numBytes -= removedEntry.numBytes;
+            return;
+        }
+        if (entry.numBytes > this.settings.maxBytes) {
+            logger.info("Not caching a response of {} bytes, which exceeds the cache size.", entry.numBytes);
+            return;
+        }
+        Entry replacedEntry = this.entries.put(key, entry);
+        if (replacedEntry != null) this.numBytes -= replacedEntry.numBytes;
+        this.numBytes += entry.numBytes;
+
+        Iterator<Entry> iterator = this.entries.values().iterator();
+        while (this.numBytes > this.settings.maxBytes && iterator.hasNext()) {
+            Entry evictedEntry = iterator.next();
+            iterator.remove();
+            this.numBytes -= evictedEntry.numBytes;
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.numBytes = 0L;
+    }
+
+    /**
+     * @return the approximate total size of the cached response bodies in bytes
+     */
+    public synchronized long getNumBytes() {
+        return this.numBytes;
+    }
+
+    private static synchronized ExecutorService getRevalidationExecutor() {
+        if (revalidationExecutor == null) {
+            revalidationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "rest-api-revalidate");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return revalidationExecutor;
+    }
+
+    /**
+     * A parsed response together with the validators for revalidating it.
+     */
+    public static class Entry {
+
+        private final JSONArray records;
+
+        private final String eTag, lastModified;
+
+        private final long numBytes;
+
+        private final long storedAt;
+
+        private final boolean isCacheable;
+
+        private Entry(JSONArray records, String eTag, String lastModified, long numBytes, long storedAt, boolean isCacheable) {
+            this.records = records;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.numBytes = numBytes;
+            this.storedAt = storedAt;
+            this.isCacheable = isCacheable;
+        }
+
+        /**
+         * Creates a new instance for a freshly loaded response.
+         *
+         * @param records  the parsed response
+         * @param headers  the response headers, which provide the validators and {@code Cache-Control}
+         * @param numBytes the size of the response body
+         * @return the new instance
+         */
+        public static Entry of(JSONArray records, HttpHeaders headers, long numBytes) {
+            boolean isNoStore = headers.allValues("Cache-Control").stream()
+                    .anyMatch(value -> value.toLowerCase().contains("no-store"));
+            return new Entry(
+                    records,
+                    headers.firstValue("ETag").orElse(null),
+                    headers.firstValue("Last-Modified").orElse(null),
+                    numBytes,
+                    System.currentTimeMillis(),
+                    !isNoStore
+            );
+        }
+
+        /**
+         * Recreates an instance, e.g., from the {@link RestAPIDiskCache}.
+         */
+        static Entry restore(JSONArray records, String eTag, String lastModified, long numBytes, long storedAt) {
+            return new Entry(records, eTag, lastModified, numBytes, storedAt, true);
+        }
+
+        JSONArray getRecords() {
+            return this.records;
+        }
+
+        String getETag() {
+            return this.eTag;
+        }
+
+        String getLastModified() {
+            return this.lastModified;
+        }
+
+        long getNumBytes() {
+            return this.numBytes;
+        }
+
+        long getStoredAt() {
+            return this.storedAt;
+        }
+
+        /**
+         * @return a copy of this instance that is fresh again, e.g., after a {@code 304 Not Modified} response
+         */
+        public Entry revalidated() {
+            return new Entry(this.records, this.eTag, this.lastModified, this.numBytes, System.currentTimeMillis(), this.isCacheable);
+        }
+
+        /**
+         * @return the headers for a conditional request that revalidates this instance
+         */
+        public Map<String, String> getConditionalHeaders() {
+            Map<String, String> conditionalHeaders = new LinkedHashMap<>();
+            if (this.eTag != null) conditionalHeaders.put("If-None-Match", this.eTag);
+            if (this.lastModified != null) conditionalHeaders.put("If-Modified-Since", this.lastModified);
+            return conditionalHeaders;
+        }
+
+        /**
+         * Copies the records shallowly, so that downstream operators can modify them without affecting the cache.
+         */
+        private JSONArray copyRecords() {
+            JSONArray copy = new JSONArray();
+            for (int i = 0; i < this.records.length(); i++) {
+                JSONObject record = this.records.getJSONObject(i);
+                JSONObject recordCopy = new JSONObject();
+                for (String field : record.keySet()) {
+                    recordCopy.put(field, record.get(field));
+                }
+                copy.put(recordCopy);
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Identifies cacheable requests by URL, method, normalized headers and a hash of the payload.
+     */
+    private static class Key {
+
+        private final String apiURL, apiMethod, headers, payloadHash;
+
+        private Key(RestAPIRequest request) {
+            this.apiURL = request.getAPIURL();
+            this.apiMethod = request.getAPIMethod() == null ? null : request.getAPIMethod().toUpperCase();
+            Map<String, String> normalizedHeaders = new TreeMap<>();
+            RestAPIClient.parseHeaders(request.getHeaders())
+                    .forEach((name, value) -> normalizedHeaders.put(name.toLowerCase(), value));
+            this.headers = normalizedHeaders.toString();
+            this.payloadHash = hash(request.getPayload(), Base64.getEncoder());
+        }
+
+        /**
+         * @return a file name-safe digest of this instance that does not reveal the headers, e.g., credentials
+         */
+        private String getDigest() {
+            return hash(String.join("\n", this.apiURL, String.valueOf(this.apiMethod), this.headers, this.payloadHash),
+                    Base64.getUrlEncoder().withoutPadding());
+        }
+
+        private static String hash(String value, Base64.Encoder encoder) {
+            if (value == null || value.isEmpty()) return "";
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+                return encoder.encodeToString(digest);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available.", e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || this.getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return Objects.equals(this.apiURL, that.apiURL) && Objects.equals(this.apiMethod, that.apiMethod)
+                    && Objects.equals(this.headers, that.headers) && Objects.equals(this.payloadHash, that.payloadHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.apiURL, this.apiMethod, this.headers, this.payloadHash);
+        }
+    }
+
+    /**
+     * The cache settings as read from a {@link Configuration}; instances with equal settings share a cache.
+     */
+    private static class Settings {
+
+        private final long ttl, staleWhileRevalidate, maxBytes, diskMaxBytes;
+
+        private final String diskDirectory;
+
+        private Settings(Configuration configuration) {
+            this.ttl = configuration.getLongProperty(TTL_KEY, DEFAULT_TTL);
+            this.staleWhileRevalidate = configuration.getLongProperty(STALE_WHILE_REVALIDATE_KEY, DEFAULT_STALE_WHILE_REVALIDATE);
+            this.maxBytes = configuration.getLongProperty(MAX_BYTES_KEY, DEFAULT_MAX_BYTES);
+            this.diskDirectory = configuration.getStringProperty(DISK_DIRECTORY_KEY, null);
+            this.diskMaxBytes = configuration.getLongProperty(DISK_MAX_BYTES_KEY, DEFAULT_DISK_MAX_BYTES);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || this.getClass() != o.getClass()) return false;
+            Settings that = (Settings) o;
+            return this.ttl == that.ttl && this.staleWhileRevalidate == that.staleWhileRevalidate
+                    && this.maxBytes == that.maxBytes && this.diskMaxBytes == that.diskMaxBytes
+                    && Objects.equals(this.diskDirectory, that.diskDirectory);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.ttl, this.staleWhileRevalidate, this.maxBytes, this.diskMaxBytes, this.diskDirectory);
+        }
+    }
+}
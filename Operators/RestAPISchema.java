@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.apache.wayang.basic.data.Record;
+import org.apache.wayang.basic.types.RecordType;
+import org.apache.wayang.core.api.exception.WayangException;
+import org.apache.wayang.core.function.FunctionDescriptor;
+import org.json.JSONObject;
+
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Declares the fields of the records of a REST API and their types, so that the records can be converted
+ * into {@link Record}s or plain objects right after they have been decoded. Downstream operators then
+ * work on compact, typed values instead of parsing the strings of {@link JSONObject}s again and again.
+ */
+public class RestAPISchema implements Serializable {
+
+    /**
+     * The supported field types. Values that are missing or cannot be converted become {@code null}.
+     */
+    public enum FieldType {
+
+        /**
+         * A {@link String}.
+         */
+        STRING,
+
+        /**
+         * A {@link Long}, also from numeric strings.
+         */
+        LONG,
+
+        /**
+         * A {@link Double}, also from numeric strings.
+         */
+        DOUBLE,
+
+        /**
+         * A {@link Boolean}, also from {@code "true"} and {@code "false"}.
+         */
+        BOOLEAN,
+
+        /**
+         * A {@link LocalDate} from an ISO-8601 date or date-time or from epoch milliseconds.
+         */
+        DATE;
+
+        Object convert(Object value) {
+            if (value == null || JSONObject.NULL.equals(value)) return null;
+            if (this == STRING) return value.toString();
+            if (value instanceof String && ((String) value).trim().isEmpty()) return null;
+            try {
+                switch (this) {
+                    case LONG:
+                        if (value instanceof Number) return ((Number) value).longValue();
+                        String string = value.toString().trim();
+                        return string.indexOf('.') < 0 ? Long.parseLong(string) : (long) Double.parseDouble(string);
+                    case DOUBLE:
+                        return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString().trim());
+                    case BOOLEAN:
+                        return value instanceof Boolean ? value : Boolean.parseBoolean(value.toString().trim());
+                    case DATE:
+                        if (value instanceof Number) {
+                            return Instant.ofEpochMilli(((Number) value).longValue()).atZone(ZoneOffset.UTC).toLocalDate();
+                        }
+                        String date = value.toString().trim();
+                        return LocalDate.parse(date.length() > 10 ? date.substring(0, 10) : date);
+                    default:
+                        throw new IllegalStateException("Unknown field type " + this);
+                }
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Dot-separated paths of the fields, e.g., {@code properties.start_date}.
+     */
+    private final List<String> fieldPaths = new ArrayList<>();
+
+    private final List<FieldType> fieldTypes = new ArrayList<>();
+
+    /**
+     * Adds a field.
+     *
+     * @param fieldPath the key of the field or a dot-separated path to it, e.g., {@code properties.start_date}
+     * @param fieldType the {@link FieldType} to convert the values to
+     * @return this instance
+     */
+    public RestAPISchema withField(String fieldPath, FieldType fieldType) {
+        this.fieldPaths.add(fieldPath);
+        this.fieldTypes.add(fieldType);
+        return this;
+    }
+
+    /**
+     * Derives a schema from the non-static, non-transient fields of a class, which are looked up by their
+     * names. Supported are {@link String}, {@code long}, {@code int}, {@code double}, {@code float},
+     * {@code boolean}, their wrappers, and {@link LocalDate}. The fields are ordered by name, as the JVM does not
+     * guarantee the order in which it reports the fields of a class.
+     *
+     * @param recordClass the class with a no-argument constructor
+     * @param basePath    dot-separated path of the object that contains the fields, e.g., {@code properties},
+     *                    or {@code null} if they are top-level fields
+     * @return the schema
+     */
+    public static RestAPISchema forClass(Class<?> recordClass, String basePath) {
+        RestAPISchema schema = new RestAPISchema();
+        for (Field field : getRecordFields(recordClass)) {
+            String fieldPath = basePath == null ? field.getName() : basePath + "." + field.getName();
+            schema.withField(fieldPath, getFieldType(field));
+        }
+        return schema;
+    }
+
+    private static List<Field> getRecordFields(Class<?> recordClass) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : recordClass.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) continue;
+            fields.add(field);
+        }
+        fields.sort(Comparator.comparing(Field::getName));
+        return fields;
+    }
+
+    private static FieldType getFieldType(Field field) {
+        Class<?> type = field.getType();
+        if (type == String.class) return FieldType.STRING;
+        if (type == long.class || type == Long.class || type == int.class || type == Integer.class) return FieldType.LONG;
+        if (type == double.class || type == Double.class || type == float.class || type == Float.class) return FieldType.DOUBLE;
+        if (type == boolean.class || type == Boolean.class) return FieldType.BOOLEAN;
+        if (type == LocalDate.class) return FieldType.DATE;
+        throw new WayangException(String.format("Field %s of %s has the unsupported type %s.",
+                field.getName(), field.getDeclaringClass().getSimpleName(), type.getSimpleName()));
+    }
+
+    public List<String> getFieldPaths() {
+        return Collections.unmodifiableList(this.fieldPaths);
+    }
+
+    public List<FieldType> getFieldTypes() {
+        return Collections.unmodifiableList(this.fieldTypes);
+    }
+
+    /**
+     * Provides the {@link RecordType} of the {@link Record}s, whose field names are the field paths.
+     *
+     * @return the {@link RecordType}
+     */
+    public RecordType getRecordType() {
+        return new RecordType(this.fieldPaths.toArray(new String[0]));
+    }
+
+    /**
+     * Converts a decoded record into a {@link Record} with the fields of this schema in their order. Sources that
+     * are projected onto the {@link #getFieldPaths() field paths} skip all other fields while decoding, so the
+     * record holds no more than these fields.
+     *
+     * @param json the decoded record
+     * @return the {@link Record}
+     */
+    public Record toRecord(JSONObject json) {
+        Object[] values = new Object[this.fieldPaths.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.getValue(json, i);
+        }
+        return new Record(values);
+    }
+
+    private Object getValue(JSONObject json, int fieldIndex) {
+        String fieldPath = this.fieldPaths.get(fieldIndex);
+        Object value = json.opt(fieldPath);
+        if (value == null && fieldPath.indexOf('.') >= 0) {
+            value = RestAPIPagination.resolvePath(json, fieldPath);
+        }
+        return this.fieldTypes.get(fieldIndex).convert(value);
+    }
+
+    /**
+     * Provides a function that converts decoded records into {@link Record}s; see {@link #toRecord(JSONObject)}.
+     *
+     * @return the function
+     */
+    public FunctionDescriptor.SerializableFunction<JSONObject, Record> toRecords() {
+        return this::toRecord;
+    }
+
+    /**
+     * Provides a function that converts decoded records into objects of the class this schema was derived from.
+     *
+     * @param recordClass the class given to {@link #forClass(Class, String)}
+     * @param <T>         the type of the objects
+     * @return the function
+     */
+    public <T> FunctionDescriptor.SerializableFunction<JSONObject, T> toObjects(Class<T> recordClass) {
+        return new ObjectConverter<>(this, recordClass);
+    }
+
+    /**
+     * Provides a function that collects decoded records into {@link RestAPIBatch}es with a column per field of
+     * this schema. The batches are built lazily while the records are pulled, so the records of a response are
+     * never all held at once.
+     *
+     * @param batchSize the maximum number of records per batch
+     * @return the function to be used as {@code mapPartitions} UDF
+     */
+    public FunctionDescriptor.SerializableFunction<Iterable<JSONObject>, Iterable<RestAPIBatch>> toBatches(int batchSize) {
+        if (batchSize < 1) {
+            throw new WayangException(String.format("Batch size must be positive, but is %d.", batchSize));
+        }
+        return records -> () -> new Iterator<RestAPIBatch>() {
+
+            private final Iterator<JSONObject> recordIterator = records.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return this.recordIterator.hasNext();
+            }
+
+            @Override
+            public RestAPIBatch next() {
+                if (!this.hasNext()) throw new NoSuchElementException();
+                RestAPIBatch.Builder builder = new RestAPIBatch.Builder(
+                        new ArrayList<>(RestAPISchema.this.fieldPaths), new ArrayList<>(RestAPISchema.this.fieldTypes), batchSize);
+                while (builder.size() < batchSize && this.recordIterator.hasNext()) {
+                    JSONObject json = this.recordIterator.next();
+                    for (int i = 0; i < RestAPISchema.this.fieldPaths.size(); i++) {
+                        builder.set(i, RestAPISchema.this.getValue(json, i));
+                    }
+                    builder.nextRow();
+                }
+                return builder.build();
+            }
+        };
+    }
+
+    /**
+     * Sets the fields of a new object per decoded record.
+     */
+    private static class ObjectConverter<T> implements FunctionDescriptor.SerializableFunction<JSONObject, T> {
+
+        private final RestAPISchema schema;
+
+        private final Class<T> recordClass;
+
+        /**
+         * Looked up upon first use, as reflection objects are not serializable.
+         */
+        private transient Constructor<T> constructor;
+
+        private transient Field[] fields;
+
+        private ObjectConverter(RestAPISchema schema, Class<T> recordClass) {
+            this.schema = schema;
+            this.recordClass = recordClass;
+        }
+
+        @Override
+        public T apply(JSONObject json) {
+            try {
+                if (this.constructor == null) {
+                    this.constructor = this.recordClass.getDeclaredConstructor();
+                    this.constructor.setAccessible(true);
+                    this.fields = getRecordFields(this.recordClass).toArray(new Field[0]);
+                    for (Field field : this.fields) {
+                        field.setAccessible(true);
+                    }
+                }
+                T object = this.constructor.newInstance();
+                for (int i = 0; i < this.fields.length; i++) {
+                    Object value = this.schema.getValue(json, i);
+                    if (value != null) setField(this.fields[i], object, value);
+                }
+                return object;
+            } catch (ReflectiveOperationException e) {
+                throw new WayangException(String.format("Could not create a %s from %s.", this.recordClass.getSimpleName(), json), e);
+            }
+        }
+
+        private static void setField(Field field, Object object, Object value) throws IllegalAccessException {
+            Class<?> type = field.getType();
+            if (type == int.class || type == Integer.class) {
+                field.set(object, ((Long) value).intValue());
+            } else if (type == float.class || type == Float.class) {
+                field.set(object, ((Double) value).floatValue());
+            } else {
+                field.set(object, value);
+            }
+        }
+    }
+}
@@ -19,10 +19,20 @@
 package org.apache.wayang.basic.operators;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.wayang.basic.rest.RestAPIClient;
+import org.apache.wayang.basic.rest.RestAPIDecoder;
+import org.apache.wayang.basic.rest.RestAPIDecoders;
+import org.apache.wayang.basic.rest.RestAPIDialect;
+import org.apache.wayang.basic.rest.RestAPIPagination;
+import org.apache.wayang.basic.rest.RestAPIPartitioning;
+import org.apache.wayang.basic.rest.RestAPIPredicate;
+import org.apache.wayang.basic.rest.RestAPIRequest;
+import org.apache.wayang.basic.rest.RestAPIStatistics;
 import org.apache.wayang.commons.util.profiledb.model.measurement.TimeMeasurement;
 import org.apache.wayang.core.api.Configuration;
 import org.apache.wayang.core.optimizer.OptimizationContext;
 import org.apache.wayang.core.optimizer.cardinality.CardinalityEstimate;
+import org.apache.wayang.core.plan.wayangplan.EstimationContextProperty;
 import org.apache.wayang.core.plan.wayangplan.UnarySource;
 import org.apache.wayang.core.types.DataSetType;
 import org.apache.logging.log4j.LogManager;
@@ -30,14 +40,25 @@ import org.apache.logging.log4j.Logger;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.json.JSONException;
+import org.json.JSONTokener;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.Set;
 
 public class RestAPISource extends UnarySource<JSONObject> {
     private final Logger logger = LogManager.getLogger(this.getClass());
@@ -46,6 +67,78 @@ public class RestAPISource extends UnarySource<JSONObject> {
     public final String headers;
     public final String payload; 
 
+    /**
+     * The requests whose responses form the output of this operator.
+     */
+    private final List<RestAPIRequest> requests;
+
+    /**
+     * Maximum number of {@link #requests} fetched at the same time; {@code 0} uses the configured default.
+     */
+    private int maxConcurrency = 0;
+
+    /**
+     * Field that receives the tag of the originating request in each record or {@code null} to not tag records.
+     */
+    private String sourceTagField;
+
+    /**
+     * Whether the response should be parsed incrementally while it is being read.
+     */
+    private boolean streaming = false;
+
+    /**
+     * Describes how to follow the API's cursor across pages or {@code null} if the API is not paginated.
+     */
+    private RestAPIPagination pagination;
+
+    /**
+     * Splits the {@link #requests} into independent partitions or {@code null} to send them as they are.
+     */
+    private RestAPIPartitioning partitioning;
+
+    /**
+     * Whether the response should be fetched without blocking the executing thread.
+     */
+    private boolean async = false;
+
+    /**
+     * Whether responses may be served from and stored in the response cache.
+     */
+    private boolean caching = false;
+
+    /**
+     * Name of the {@link RestAPIDecoders format} of the responses or {@code null} to derive it from each response.
+     */
+    private String format;
+
+    /**
+     * Names of the fields that downstream operators read or {@code null} if they may read any field.
+     */
+    private Set<String> projection;
+
+    /**
+     * Rewrites the requests so that the API evaluates parts of the query itself or {@code null} if it cannot.
+     */
+    private RestAPIDialect dialect;
+
+    /**
+     * Predicates that the {@link #dialect} writes into the requests.
+     */
+    private List<RestAPIPredicate> predicates = Collections.emptyList();
+
+    /**
+     * Expected number of HTTP requests including all pages; see {@link #getNumRequests()}.
+     */
+    @EstimationContextProperty
+    private Double numRequests;
+
+    /**
+     * Expected size of a record in the response body; see {@link #getBytesPerRecord()}.
+     */
+    @EstimationContextProperty
+    private Double bytesPerRecord;
+
 
     public RestAPISource(String apiURL, String apiMethod, String headers, String payload) {
         super(DataSetType.createDefault(JSONObject.class));
@@ -53,9 +146,51 @@ public class RestAPISource extends UnarySource<JSONObject> {
         this.apiMethod = apiMethod;
         this.headers = headers;
         this.payload = payload;
+        this.requests = Collections.singletonList(new RestAPIRequest(apiURL, apiMethod, headers, payload));
 
     }
 
+    /**
+     * Creates an instance that fetches several requests concurrently and emits the union of their responses.
+     *
+     * @param requests the {@link RestAPIRequest}s; the first one also determines {@link #getAPIURL()} etc.
+     */
+    public RestAPISource(Collection<RestAPIRequest> requests) {
+        super(DataSetType.createDefault(JSONObject.class));
+        Validate.notEmpty(requests, "At least one request is required.");
+        RestAPIRequest firstRequest = requests.iterator().next();
+        this.apiURL = firstRequest.getAPIURL();
+        this.apiMethod = firstRequest.getAPIMethod();
+        this.headers = firstRequest.getHeaders();
+        this.payload = firstRequest.getPayload();
+        this.requests = Collections.unmodifiableList(new ArrayList<>(requests));
+    }
+
+    /**
+     * Copies an instance (exclusive of broadcasts).
+     *
+     * @param that that should be copied
+     */
+    public RestAPISource(RestAPISource that) {
+        super(that);
+        this.apiURL = that.getAPIURL();
+        this.apiMethod = that.getAPIMethod();
+        this.headers = that.getHeaders();
+        this.payload = that.getPayload();
+        this.requests = that.requests;
+        this.maxConcurrency = that.getMaxConcurrency();
+        this.sourceTagField = that.getSourceTagField();
+        this.streaming = that.isStreaming();
+        this.pagination = that.getPagination();
+        this.partitioning = that.getPartitioning();
+        this.async = that.isAsync();
+        this.caching = that.isCaching();
+        this.format = that.getFormat();
+        this.projection = that.getProjection();
+        this.dialect = that.getDialect();
+        this.predicates = that.getPredicates();
+    }
+
     public String getAPIURL() {
         return this.apiURL;
     }
@@ -71,76 +206,526 @@ public class RestAPISource extends UnarySource<JSONObject> {
     public String getPayload() {
         return this.payload;
     }
-}
 
-    // @Override
-    // public Optional<org.apache.wayang.core.optimizer.cardinality.CardinalityEstimator> createCardinalityEstimator(
-    //         final int outputIndex,
-    //         final Configuration configuration) {
-    //     Validate.inclusiveBetween(0, this.getNumOutputs() - 1, outputIndex);
-    //     return Optional.of(new RestAPISource.CardinalityEstimator());
-    // }
-
-    // public class CardinalityEstimator implements org.apache.wayang.core.optimizer.cardinality.CardinalityEstimator {
-
-    //     public final CardinalityEstimate FALLBACK_ESTIMATE = new CardinalityEstimate(1000L, 100000000L, 0.7);
-
-    //     public static final double CORRECTNESS_PROBABILITY = 0.95d;
-    //     public static final double EXPECTED_ESTIMATE_DEVIATION = 0.05;
-
-    //     @Override
-    //     public CardinalityEstimate estimate(OptimizationContext optimizationContext, CardinalityEstimate... inputEstimates) {
-    //         Validate.isTrue(RestAPISource.this.getNumInputs() == inputEstimates.length);
-
-    //         final TimeMeasurement timeMeasurement = optimizationContext.getJob().getStopWatch().start(
-    //             "Optimization", "Cardinality&Load Estimation", "Estimate source cardinalities"
-    //         );
-
-    //         String jobCacheKey = String.format("%s.estimate(%s)", this.getClass().getCanonicalName(), RestAPISource.this.apiURL);
-    //         CardinalityEstimate cardinalityEstimate = optimizationContext.queryJobCache(jobCacheKey, CardinalityEstimate.class);
-    //         if (cardinalityEstimate != null) return cardinalityEstimate;
-
-    //         try {
-    //             if (cachedResponse == null) {
-    //                 fetchDataFromAPI();
-    //             }
-    //             long estimatedCount = cachedResponse.length();
-
-    //             double expectedDeviation = estimatedCount * EXPECTED_ESTIMATE_DEVIATION;
-    //             cardinalityEstimate = new CardinalityEstimate(
-    //                     (long) (estimatedCount - expectedDeviation),
-    //                     (long) (estimatedCount + expectedDeviation),
-    //                     CORRECTNESS_PROBABILITY
-    //             );
-
-    //             optimizationContext.putIntoJobCache(jobCacheKey, cardinalityEstimate);
-
-    //         } catch (Exception e) {
-    //             RestAPISource.this.logger.warn("Failed to estimate cardinality for {}: using fallback estimate.", RestAPISource.this.apiURL, e);
-    //             cardinalityEstimate = this.FALLBACK_ESTIMATE;
-    //         }
-
-    //         timeMeasurement.stop();
-    //         return cardinalityEstimate;
-    //     }
-    // }
-
-    // public OptionalDouble estimateBytesPerLine() {
-    //     if (this.cachedResponse == null) {
-    //         fetchDataFromAPI();
-    //         this.logger.info("Pulled data again....");
-    //     }
-
-    //     String responseString = this.cachedResponse.toString();
-    //     int numBytes = responseString.getBytes().length;
-    //     this.logger.info("Numbytes in the response: {}", numBytes);
-    //     long numLines = this.cachedResponse.length();
-    //     this.logger.info("Response Length: {}",numLines);
-
-    //     if (numLines == 0) {
-    //         this.logger.warn("Could not find any line-like elements in {}.", this.apiURL);
-    //         return OptionalDouble.empty();
-    //     }
-
-    //     return OptionalDouble.of((double) numBytes / numLines);
-    // }
+    /**
+     * Provides the requests to send, split by the {@link RestAPIPartitioning} and rewritten by the
+     * {@link RestAPIDialect} if there are any.
+     *
+     * @return the {@link RestAPIRequest}s
+     */
+    public List<RestAPIRequest> getRequests() {
+        List<RestAPIRequest> requests = this.partitioning == null ? this.requests : this.partitioning.split(this.requests);
+        if (this.dialect == null || (this.projection == null && this.predicates.isEmpty())) return requests;
+        List<RestAPIRequest> rewrittenRequests = new ArrayList<>(requests.size());
+        for (RestAPIRequest request : requests) {
+            for (RestAPIPredicate predicate : this.predicates) {
+                request = this.dialect.pushDown(request, predicate).orElse(request);
+            }
+            rewrittenRequests.add(this.projection == null ? request : this.dialect.project(request, this.getProjection()));
+        }
+        return rewrittenRequests;
+    }
+
+    public int getMaxConcurrency() {
+        return this.maxConcurrency;
+    }
+
+    /**
+     * Caps the number of requests that are fetched at the same time.
+     *
+     * @param maxConcurrency the cap or {@code 0} to use the configured default
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public String getSourceTagField() {
+        return this.sourceTagField;
+    }
+
+    /**
+     * Adds the tag (or, if absent, the URL) of the originating request to each record.
+     *
+     * @param sourceTagField name of the field to put the tag into or {@code null} to not tag records
+     */
+    public void setSourceTagField(String sourceTagField) {
+        this.sourceTagField = sourceTagField;
+    }
+
+    public boolean isStreaming() {
+        return this.streaming;
+    }
+
+    /**
+     * Enables or disables the streaming parse mode: top-level elements of a JSON response are then handed
+     * downstream as soon as they are complete instead of after the whole body has been read.
+     *
+     * @param streaming whether to parse the response while reading it
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public RestAPIPagination getPagination() {
+        return this.pagination;
+    }
+
+    /**
+     * Lets the source follow the API's cursor itself, so that all pages are read within a single job.
+     *
+     * @param pagination describes the cursor and stop condition or {@code null} to read a single response
+     */
+    public void setPagination(RestAPIPagination pagination) {
+        this.pagination = pagination;
+    }
+
+    public RestAPIPartitioning getPartitioning() {
+        return this.partitioning;
+    }
+
+    /**
+     * Splits the requests into partitions, e.g., page ranges or date windows, that are fetched concurrently and,
+     * on distributed platforms, in parallel across executors.
+     *
+     * @param partitioning the {@link RestAPIPartitioning} or {@code null} to send the requests as they are
+     */
+    public void setPartitioning(RestAPIPartitioning partitioning) {
+        this.partitioning = partitioning;
+    }
+
+    public boolean isAsync() {
+        return this.async;
+    }
+
+    /**
+     * Enables or disables the asynchronous mode: the fetch then runs on a dedicated I/O executor and
+     * downstream operators receive a stream that is only fulfilled once they consume it, so that the
+     * executor can proceed with other work while the request is in flight.
+     *
+     * @param async whether to fetch asynchronously
+     */
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    /**
+     * Provides the expected number of HTTP requests, including all pages, for load profile estimation. It is
+     * derived from the {@link RestAPIStatistics} of the current job by its {@link CardinalityEstimator}.
+     *
+     * @return the expected number of requests or one per request if the cardinality has not been estimated
+     */
+    public double getNumRequests() {
+        return this.numRequests == null ? this.getRequests().size() : this.numRequests;
+    }
+
+    /**
+     * Provides the expected size of a record in the response body for load profile estimation. It is derived from
+     * the {@link RestAPIStatistics} of the current job by its {@link CardinalityEstimator}.
+     *
+     * @return the average size from previous executions or a default if there are none
+     * @see #estimateBytesPerRecord(Configuration)
+     */
+    public double getBytesPerRecord() {
+        return this.bytesPerRecord == null ? CardinalityEstimator.DEFAULT_BYTES_PER_RECORD : this.bytesPerRecord;
+    }
+
+    /**
+     * Derives the inputs of the load profile estimation from the {@link RestAPIStatistics} of a job, so that they
+     * come from the same file that the job's executions update.
+     *
+     * @param configuration the {@link Configuration} of the job
+     */
+    private void updateLoadProfileInputs(Configuration configuration) {
+        RestAPIStatistics statistics = RestAPIStatistics.getInstance(configuration);
+        this.numRequests = this.getRequests().stream()
+                .mapToDouble(request -> this.getPagination() == null ? 1d : statistics.get(RestAPIStatistics.getEndpoint(request))
+                        .map(RestAPIStatistics.EndpointStatistics::getResponsesPerRequest)
+                        .orElse(1d))
+                .sum();
+        this.bytesPerRecord = this.estimateBytesPerRecord(configuration).orElse(CardinalityEstimator.DEFAULT_BYTES_PER_RECORD);
+    }
+
+    public boolean isCaching() {
+        return this.caching;
+    }
+
+    /**
+     * Enables or disables the response cache: responses are then reused for repeated requests and revalidated
+     * with conditional requests once they are stale. Cached responses are always parsed as a whole, so this
+     * takes precedence over the streaming parse mode.
+     *
+     * @param caching whether to cache responses
+     */
+    public void setCaching(boolean caching) {
+        this.caching = caching;
+    }
+
+    public String getFormat() {
+        return this.format;
+    }
+
+    /**
+     * Fixes the format of the responses instead of deriving it from their {@code Content-Type} header or,
+     * failing that, from their first non-whitespace character.
+     *
+     * @param format the name of a format registered in {@link RestAPIDecoders}, e.g., {@code csv}, or
+     *               {@code null} to derive it from each response
+     */
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    /**
+     * Provides the fields to keep, including those that the pushed-down predicates test.
+     *
+     * @return dot-separated paths of the fields or {@code null} to keep all fields
+     */
+    public Set<String> getProjection() {
+        if (this.projection == null || this.predicates.isEmpty()) return this.projection;
+        Set<String> fields = new LinkedHashSet<>(this.projection);
+        for (RestAPIPredicate predicate : this.predicates) {
+            fields.add(predicate.getField());
+        }
+        return fields;
+    }
+
+    /**
+     * Declares the fields that downstream operators read. Records only keep these fields, decoders that
+     * support it, e.g., for CSV, skip all other fields without materializing them, and the
+     * {@link RestAPIDialect} may ask the API to not send them in the first place.
+     *
+     * @param fields dot-separated paths of the fields to keep, e.g., {@code properties.start_date}, or
+     *               {@code null} to keep all fields
+     */
+    public void setProjection(Collection<String> fields) {
+        this.projection = fields == null ? null : new LinkedHashSet<>(fields);
+    }
+
+    public RestAPIDialect getDialect() {
+        return this.dialect;
+    }
+
+    /**
+     * Lets the source rewrite its requests for what the API can evaluate itself, e.g., the projection.
+     *
+     * @param dialect the {@link RestAPIDialect} of the API or {@code null} to send the requests as they are
+     */
+    public void setDialect(RestAPIDialect dialect) {
+        this.dialect = dialect;
+    }
+
+    public List<RestAPIPredicate> getPredicates() {
+        return this.predicates;
+    }
+
+    /**
+     * Tells whether the {@link RestAPIDialect} can write the given predicate into all requests.
+     *
+     * @param predicate the {@link RestAPIPredicate}
+     * @return whether {@link #pushDown(RestAPIPredicate)} would let the API evaluate it
+     */
+    public boolean canPushDown(RestAPIPredicate predicate) {
+        if (this.dialect == null) return false;
+        for (RestAPIRequest request : this.getRequests()) {
+            if (!this.dialect.pushDown(request, predicate).isPresent()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Lets the API evaluate a predicate on the records: the {@link RestAPIDialect} writes it into the
+     * requests and the fetched records are checked against it once more.
+     *
+     * @param predicate the {@link RestAPIPredicate}; see {@link #canPushDown(RestAPIPredicate)}
+     */
+    public void pushDown(RestAPIPredicate predicate) {
+        List<RestAPIPredicate> predicates = new ArrayList<>(this.predicates);
+        predicates.add(predicate);
+        this.predicates = Collections.unmodifiableList(predicates);
+    }
+
+    /**
+     * Provides the key under which a response that was fetched during cardinality estimation is handed over to
+     * the execution via the job cache, so that it is not requested twice.
+     *
+     * @param request the {@link RestAPIRequest} that was probed
+     * @return the job cache key
+     */
+    public static String getProbeJobCacheKey(RestAPIRequest request) {
+        return String.format("%s.probe(%s, %s, %s, %s)", RestAPISource.class.getCanonicalName(),
+                request.getAPIMethod(), request.getAPIURL(), request.getHeaders(), request.getPayload());
+    }
+
+    @Override
+    public Optional<org.apache.wayang.core.optimizer.cardinality.CardinalityEstimator> createCardinalityEstimator(
+            final int outputIndex,
+            final Configuration configuration) {
+        Validate.inclusiveBetween(0, this.getNumOutputs() - 1, outputIndex);
+        return Optional.of(new RestAPISource.CardinalityEstimator());
+    }
+
+    /**
+     * Tells whether the {@link CardinalityEstimator} may fetch the first response of a request if probing is
+     * enabled. Streaming sources are not probeable: a probed response is read as a whole while the plan is
+     * optimized, so that the execution could not stream it anymore.
+     *
+     * @return whether the requests may be probed
+     */
+    protected boolean isProbeable() {
+        return !this.isStreaming();
+    }
+
+    /**
+     * Estimates the output cardinality without fetching the data twice. For each request, in this order:
+     * <ol>
+     * <li>statistics of the endpoint from previous executions (see {@link RestAPIStatistics}),</li>
+     * <li>the first response if probing is enabled, which is then handed over to the execution via the job cache;
+     * if the API reports the total number of records (see {@link RestAPIPagination#withTotalPath(String)}), only
+     * one page is needed,</li>
+     * <li>the {@code Content-Length} of a {@code HEAD} request otherwise, with a short deadline of its own.</li>
+     * </ol>
+     * Probing is disabled by default and only applies to sources that are {@link #isProbeable() probeable}.
+     * The probes and {@code HEAD} requests are capped per source (see {@link #MAX_PROBES_KEY} and
+     * {@link #MAX_METADATA_REQUESTS_KEY}), and requests that cannot be estimated in any of these ways are
+     * extrapolated from those that can.
+     */
+    public class CardinalityEstimator implements org.apache.wayang.core.optimizer.cardinality.CardinalityEstimator {
+
+        /**
+         * Whether the estimator may fetch the first response of a request; leave this disabled for
+         * non-idempotent APIs.
+         */
+        public static final String PROBE_KEY = "wayang.restapisource.estimation.probe";
+
+        private static final boolean DEFAULT_PROBE = false;
+
+        /**
+         * Maximum number of requests of a single source that are probed.
+         */
+        public static final String MAX_PROBES_KEY = "wayang.restapisource.estimation.max-probes";
+
+        /**
+         * Maximum number of {@code HEAD} requests of a single source whose {@code Content-Length} is used if
+         * probing is disabled; the other requests are extrapolated.
+         */
+        public static final String MAX_METADATA_REQUESTS_KEY = "wayang.restapisource.estimation.max-metadata-requests";
+
+        /**
+         * Time in milliseconds by which a {@code HEAD} request of the estimation must have been answered.
+         */
+        public static final String METADATA_TIMEOUT_KEY = "wayang.restapisource.estimation.metadata-timeout";
+
+        private static final long DEFAULT_METADATA_TIMEOUT = 5_000L;
+
+        public final CardinalityEstimate FALLBACK_ESTIMATE = new CardinalityEstimate(1000L, 100000000L, 0.7);
+
+        public static final double CORRECTNESS_PROBABILITY = 0.95d;
+        public static final double EXPECTED_ESTIMATE_DEVIATION = 0.05;
+
+        /**
+         * Assumed size of a record if there are no statistics for an endpoint.
+         */
+        public static final double DEFAULT_BYTES_PER_RECORD = 512d;
+
+        /**
+         * Assumed maximum number of pages of a paginated API that does not report its total.
+         */
+        private static final long DEFAULT_MAX_PAGES = 100L;
+
+        @Override
+        public CardinalityEstimate estimate(OptimizationContext optimizationContext, CardinalityEstimate... inputEstimates) {
+            Validate.isTrue(RestAPISource.this.getNumInputs() == inputEstimates.length);
+
+            final TimeMeasurement timeMeasurement = optimizationContext.getJob().getStopWatch().start(
+                "Optimization", "Cardinality&Load Estimation", "Estimate source cardinalities"
+            );
+
+            // The load profile estimators of this job read these afterwards.
+            RestAPISource.this.updateLoadProfileInputs(optimizationContext.getConfiguration());
+
+            String jobCacheKey = String.format("%s.estimate(%s)", this.getClass().getCanonicalName(), RestAPISource.this.getRequests());
+            CardinalityEstimate cardinalityEstimate = optimizationContext.queryJobCache(jobCacheKey, CardinalityEstimate.class);
+            if (cardinalityEstimate != null) {
+                timeMeasurement.stop();
+                return cardinalityEstimate;
+            }
+
+            Configuration configuration = optimizationContext.getConfiguration();
+            RestAPIStatistics statistics = RestAPIStatistics.getInstance(configuration);
+            boolean isProbing = configuration.getBooleanProperty(PROBE_KEY, DEFAULT_PROBE) && RestAPISource.this.isProbeable();
+            long maxProbes = configuration.getLongProperty(MAX_PROBES_KEY, 1L);
+            long maxMetadataRequests = configuration.getLongProperty(MAX_METADATA_REQUESTS_KEY, 1L);
+
+            CardinalityEstimate knownEstimate = null;
+            int numKnownRequests = 0, numProbes = 0, numMetadataRequests = 0;
+            for (RestAPIRequest request : RestAPISource.this.getRequests()) {
+                CardinalityEstimate requestEstimate = this.estimateFromStatistics(request, statistics);
+                try {
+                    if (requestEstimate == null && isProbing && numProbes < maxProbes) {
+                        numProbes++;
+                        requestEstimate = this.estimateFromResponse(request, optimizationContext);
+                    }
+                    if (requestEstimate == null && !isProbing && numMetadataRequests < maxMetadataRequests
+                            && this.isMetadataRequestable(request)) {
+                        numMetadataRequests++;
+                        requestEstimate = this.estimateFromMetadata(request, statistics, configuration);
+                    }
+                } catch (Exception e) {
+                    RestAPISource.this.logger.warn("Failed to estimate cardinality for {}.", request, e);
+                }
+                if (requestEstimate != null) {
+                    knownEstimate = knownEstimate == null ? requestEstimate : knownEstimate.plus(requestEstimate);
+                    numKnownRequests++;
+                }
+            }
+
+            int numRequests = RestAPISource.this.getRequests().size();
+            if (knownEstimate == null) {
+                RestAPISource.this.logger.warn("Could not estimate cardinality for {}: using fallback estimate.", RestAPISource.this.apiURL);
+                cardinalityEstimate = this.FALLBACK_ESTIMATE;
+            } else {
+                cardinalityEstimate = knownEstimate;
+                CardinalityEstimate averageEstimate = knownEstimate.divideBy(numKnownRequests);
+                for (int i = numKnownRequests; i < numRequests; i++) {
+                    cardinalityEstimate = cardinalityEstimate.plus(averageEstimate);
+                }
+            }
+            optimizationContext.putIntoJobCache(jobCacheKey, cardinalityEstimate);
+
+            timeMeasurement.stop();
+            return cardinalityEstimate;
+        }
+
+        private CardinalityEstimate estimateFromStatistics(RestAPIRequest request, RestAPIStatistics statistics) {
+            Optional<RestAPIStatistics.EndpointStatistics> endpointStatistics = statistics.get(RestAPIStatistics.getEndpoint(request));
+            if (!endpointStatistics.isPresent() || endpointStatistics.get().getNumObservations() == 0) return null;
+            double mean = endpointStatistics.get().getMeanRecords();
+            double deviation = endpointStatistics.get().getNumObservations() == 1
+                    ? mean * 0.5
+                    : Math.max(2 * endpointStatistics.get().getRecordsStandardDeviation(), mean * EXPECTED_ESTIMATE_DEVIATION);
+            return new CardinalityEstimate(
+                    Math.max(0L, (long) (mean - deviation)),
+                    (long) Math.ceil(mean + deviation),
+                    endpointStatistics.get().getNumObservations() == 1 ? 0.7 : CORRECTNESS_PROBABILITY
+            );
+        }
+
+        /**
+         * Fetches the first response of the request and hands it over to the execution.
+         */
+        private CardinalityEstimate estimateFromResponse(RestAPIRequest request, OptimizationContext optimizationContext) throws IOException {
+            RestAPIClient client = RestAPIClient.getInstance(optimizationContext.getConfiguration());
+            HttpResponse<InputStream> httpResponse = client.send(
+                    request.getAPIURL(), request.getAPIMethod(), request.getHeaders(), request.getPayload()
+            );
+            final JSONArray pages;
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(httpResponse.body(), StandardCharsets.UTF_8))) {
+                in.mark(1);
+                int first = in.read();
+                while (first != -1 && Character.isWhitespace(first)) {
+                    in.mark(1);
+                    first = in.read();
+                }
+                if (first == -1) return new CardinalityEstimate(0L, 0L, CORRECTNESS_PROBABILITY);
+                in.reset();
+                RestAPIDecoder decoder = RestAPIDecoders.resolve(
+                        RestAPISource.this.getFormat(), httpResponse.headers().firstValue("Content-Type").orElse(null)
+                ).orElse(RestAPIDecoders.sniff(first));
+                if (!RestAPIDecoders.isJson(decoder)) {
+                    // Not JSON, e.g., CSV: the execution would have to download the body once more, so the probe
+                    // stops at the headers (closing the reader aborts the download).
+                    RestAPIStatistics statistics = RestAPIStatistics.getInstance(optimizationContext.getConfiguration());
+                    return this.estimateFromContentLength(httpResponse, request, statistics);
+                }
+                JSONTokener tokener = new JSONTokener(in);
+                Object response = tokener.nextValue();
+                if (response instanceof JSONArray) {
+                    pages = (JSONArray) response;
+                } else {
+                    pages = new JSONArray().put(response);
+                    // Further top-level objects, e.g., of newline-delimited JSON, are records, too.
+                    while (tokener.nextClean() == '{') {
+                        tokener.back();
+                        pages.put(new JSONObject(tokener));
+                    }
+                }
+            }
+            optimizationContext.putIntoJobCache(getProbeJobCacheKey(request), pages);
+
+            RestAPIPagination pagination = RestAPISource.this.getPagination();
+            if (pagination == null) {
+                return new CardinalityEstimate(pages.length(), pages.length(), CORRECTNESS_PROBABILITY);
+            }
+            long numPageRecords = 0L, total = -1L;
+            boolean hasMorePages = false;
+            for (int i = 0; i < pages.length(); i++) {
+                JSONObject page = pages.getJSONObject(i);
+                numPageRecords += pagination.extractRecords(page).size();
+                total = Math.max(total, pagination.extractTotal(page));
+                hasMorePages |= pagination.extractCursor(page) != null && !pagination.isStop(page, 1);
+            }
+            long maxPages = pagination.getMaxPages() == Integer.MAX_VALUE ? DEFAULT_MAX_PAGES : pagination.getMaxPages();
+            if (!hasMorePages) {
+                return new CardinalityEstimate(numPageRecords, numPageRecords, CORRECTNESS_PROBABILITY);
+            } else if (total >= 0) {
+                long limit = pagination.getMaxPages() == Integer.MAX_VALUE ? total : Math.min(total, numPageRecords * maxPages);
+                return new CardinalityEstimate(limit, limit, CORRECTNESS_PROBABILITY);
+            }
+            return new CardinalityEstimate(numPageRecords, numPageRecords * maxPages, 0.5);
+        }
+
+        /**
+         * Tells whether the {@code Content-Length} of a {@code HEAD} request reflects the records of the request,
+         * which is only the case for unpaginated {@code GET} requests.
+         */
+        private boolean isMetadataRequestable(RestAPIRequest request) {
+            return "GET".equalsIgnoreCase(request.getAPIMethod()) && RestAPISource.this.getPagination() == null;
+        }
+
+        /**
+         * Divides the {@code Content-Length} of a {@code HEAD} request by the typical record size. The request
+         * asks for an uncompressed response, as the record sizes are observed after decompression.
+         */
+        private CardinalityEstimate estimateFromMetadata(RestAPIRequest request, RestAPIStatistics statistics,
+                                                         Configuration configuration) throws IOException {
+            HttpResponse<InputStream> httpResponse = RestAPIClient.getInstance(configuration).send(
+                    request.getAPIURL(), "HEAD", request.getHeaders(), null, Collections.singletonMap("Accept-Encoding", "identity"),
+                    configuration.getLongProperty(METADATA_TIMEOUT_KEY, DEFAULT_METADATA_TIMEOUT)
+            );
+            httpResponse.body().close();
+            return this.estimateFromContentLength(httpResponse, request, statistics);
+        }
+
+        /**
+         * Divides the {@code Content-Length} of an uncompressed response by the typical record size.
+         */
+        private CardinalityEstimate estimateFromContentLength(HttpResponse<?> httpResponse, RestAPIRequest request,
+                                                              RestAPIStatistics statistics) {
+            OptionalLong contentLength = httpResponse.headers().firstValueAsLong("Content-Length");
+            String contentEncoding = httpResponse.headers().firstValue("Content-Encoding").orElse("identity");
+            if (!contentLength.isPresent() || !"identity".equalsIgnoreCase(contentEncoding.trim())) return null;
+            double bytesPerRecord = statistics.get(RestAPIStatistics.getEndpoint(request))
+                    .map(RestAPIStatistics.EndpointStatistics::getBytesPerRecord)
+                    .filter(value -> !Double.isNaN(value))
+                    .orElse(DEFAULT_BYTES_PER_RECORD);
+            long estimatedCount = (long) (contentLength.getAsLong() / bytesPerRecord);
+            return new CardinalityEstimate(estimatedCount / 4, estimatedCount * 4, 0.6);
+        }
+    }
+
+    /**
+     * Estimates the average size of a record in the response from the statistics of previous executions.
+     *
+     * @param configuration provides the {@link RestAPIStatistics}
+     * @return the average number of bytes per record or an empty value if it is unknown
+     */
+    public OptionalDouble estimateBytesPerRecord(Configuration configuration) {
+        RestAPIStatistics statistics = RestAPIStatistics.getInstance(configuration);
+        return this.getRequests().stream()
+                .map(request -> statistics.get(RestAPIStatistics.getEndpoint(request)))
+                .filter(Optional::isPresent)
+                .mapToDouble(endpointStatistics -> endpointStatistics.get().getBytesPerRecord())
+                .filter(bytesPerRecord -> !Double.isNaN(bytesPerRecord))
+                .average();
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.wayang.core.api.Configuration;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Statistics about the responses of REST endpoints that are collected during execution and persisted across
+ * runs, so that the optimizer can estimate REST sources without contacting the API.
+ * <p>An endpoint is identified by the HTTP method and the URL without its query, so that, e.g., requests for
+ * different time frames of the same export share their statistics. The statistics are exponentially weighted
+ * moving averages, so that they follow endpoints whose data grows over time.</p>
+ * <p>Observations only update the statistics in memory. A background thread writes them to their file shortly
+ * after they have changed and once more at JVM shutdown, so that fetching never waits for the file.</p>
+ */
+public class RestAPIStatistics {
+
+    private static final Logger logger = LogManager.getLogger(RestAPIStatistics.class);
+
+    /**
+     * File in which the statistics are persisted.
+     */
+    public static final String PATH_KEY = "wayang.restapisource.statistics.path";
+
+    private static final String DEFAULT_PATH = "rest-api-statistics.json";
+
+    /**
+     * Weight of a new observation in the moving averages.
+     */
+    private static final double SMOOTHING = 0.3d;
+
+    /**
+     * Time in milliseconds after a change during which further changes are collected before the file is written.
+     */
+    private static final long SAVE_DELAY_MILLIS = 1_000L;
+
+    private static final Map<Path, RestAPIStatistics> instances = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rest-api-statistics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(RestAPIStatistics::saveAll, "rest-api-statistics-shutdown"));
+    }
+
+    private final Path file;
+
+    /**
+     * Serializes the writes of the {@link #file}, so that an older state never overwrites a newer one.
+     */
+    private final Object fileLock = new Object();
+
+    private JSONObject endpoints;
+
+    /**
+     * Whether the statistics have changed since they were last written; a save is scheduled while this is set.
+     */
+    private boolean isDirty = false;
+
+    private RestAPIStatistics(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Provides the statistics for the file in the given {@link Configuration}.
+     *
+     * @param configuration provides the {@link #PATH_KEY}
+     * @return the shared {@link RestAPIStatistics}
+     */
+    public static RestAPIStatistics getInstance(Configuration configuration) {
+        Path file = Paths.get(configuration.getStringProperty(PATH_KEY, DEFAULT_PATH)).toAbsolutePath().normalize();
+        return instances.computeIfAbsent(file, RestAPIStatistics::new);
+    }
+
+    /**
+     * Identifies the endpoint of a request.
+     *
+     * @param request the {@link RestAPIRequest}
+     * @return the HTTP method and the URL without its query
+     */
+    public static String getEndpoint(RestAPIRequest request) {
+        String apiURL = request.getAPIURL();
+        try {
+            URI uri = URI.create(apiURL);
+            apiURL = new URI(uri.getScheme(), uri.getAuthority(), uri.getPath(), null, null).toString();
+        } catch (Exception e) {
+            int queryStart = apiURL.indexOf('?');
+            if (queryStart >= 0) apiURL = apiURL.substring(0, queryStart);
+        }
+        return String.format("%s %s", request.getAPIMethod() == null ? "GET" : request.getAPIMethod().toUpperCase(), apiURL);
+    }
+
+    /**
+     * Looks up the statistics of an endpoint.
+     *
+     * @param endpoint see {@link #getEndpoint(RestAPIRequest)}
+     * @return the {@link EndpointStatistics} if the endpoint has been observed before
+     */
+    public synchronized Optional<EndpointStatistics> get(String endpoint) {
+        JSONObject statistics = this.getEndpoints().optJSONObject(endpoint);
+        if (statistics == null) return Optional.empty();
+        return Optional.of(new EndpointStatistics(
+                statistics.optLong("observations"),
+                statistics.optDouble("records", Double.NaN),
+                statistics.optDouble("recordsVariance", 0d),
+                statistics.optDouble("bytesPerRecord", Double.NaN),
+                statistics.optDouble("recordsPerResponse", Double.NaN)
+        ));
+    }
+
+    /**
+     * Records the number of records that a request to the endpoint yielded across all of its pages.
+     *
+     * @param endpoint   see {@link #getEndpoint(RestAPIRequest)}
+     * @param numRecords the number of records
+     */
+    public synchronized void recordCardinality(String endpoint, long numRecords) {
+        JSONObject statistics = this.getEndpointStatistics(endpoint);
+        long numObservations = statistics.optLong("observations");
+        if (numObservations == 0) {
+            statistics.put("records", (double) numRecords);
+            statistics.put("recordsVariance", 0d);
+        } else {
+            double mean = statistics.getDouble("records");
+            double variance = statistics.optDouble("recordsVariance", 0d);
+            double difference = numRecords - mean;
+            double increment = SMOOTHING * difference;
+            statistics.put("records", mean + increment);
+            statistics.put("recordsVariance", (1 - SMOOTHING) * (variance + difference * increment));
+        }
+        statistics.put("observations", numObservations + 1);
+        this.markDirty();
+    }
+
+    /**
+     * Records the size of a response.
+     *
+     * @param endpoint   see {@link #getEndpoint(RestAPIRequest)}
+     * @param numRecords the number of records in the response
+     * @param numBytes   the size of the response body
+     */
+    public synchronized void recordSize(String endpoint, long numRecords, long numBytes) {
+        if (numRecords <= 0) return;
+        JSONObject statistics = this.getEndpointStatistics(endpoint);
+        updateAverage(statistics, "bytesPerRecord", (double) numBytes / numRecords);
+        updateAverage(statistics, "recordsPerResponse", numRecords);
+        this.markDirty();
+    }
+
+    private static void updateAverage(JSONObject statistics, String key, double value) {
+        double previous = statistics.optDouble(key, Double.NaN);
+        statistics.put(key, Double.isNaN(previous) ? value : previous + SMOOTHING * (value - previous));
+    }
+
+    /**
+     * Counts the records of a response stream and records its cardinality once the stream has been consumed.
+     *
+     * @param endpoint see {@link #getEndpoint(RestAPIRequest)}
+     * @param records  the records
+     * @return a {@link Stream} with the same records
+     */
+    public Stream<JSONObject> observeCardinality(String endpoint, Stream<JSONObject> records) {
+        Iterator<JSONObject> iterator = records.iterator();
+        Iterator<JSONObject> observingIterator = new Iterator<JSONObject>() {
+
+            private long numRecords = 0L;
+
+            private boolean isRecorded = false;
+
+            @Override
+            public boolean hasNext() {
+                boolean hasNext = iterator.hasNext();
+                if (!hasNext && !this.isRecorded) {
+                    this.isRecorded = true;
+                    RestAPIStatistics.this.recordCardinality(endpoint, this.numRecords);
+                }
+                return hasNext;
+            }
+
+            @Override
+            public JSONObject next() {
+                if (!this.hasNext()) throw new NoSuchElementException();
+                this.numRecords++;
+                return iterator.next();
+            }
+        };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(observingIterator, Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+        ).onClose(records::close);
+    }
+
+    private JSONObject getEndpointStatistics(String endpoint) {
+        JSONObject statistics = this.getEndpoints().optJSONObject(endpoint);
+        if (statistics == null) {
+            statistics = new JSONObject();
+            this.getEndpoints().put(endpoint, statistics);
+        }
+        return statistics;
+    }
+
+    private JSONObject getEndpoints() {
+        if (this.endpoints == null) {
+            this.endpoints = new JSONObject();
+            if (Files.exists(this.file)) {
+                try {
+                    this.endpoints = new JSONObject(new String(Files.readAllBytes(this.file), StandardCharsets.UTF_8));
+                } catch (IOException | JSONException e) {
+                    logger.warn("Could not read the REST API statistics from {}.", this.file, e);
+                }
+            }
+        }
+        return this.endpoints;
+    }
+
+    private void markDirty() {
+        if (this.isDirty) return;
+        this.isDirty = true;
+        saver.schedule(this::save, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the statistics to their file if they have changed since they were last written. Invoked in the
+     * background after changes, so that callers only need it to persist the statistics right away.
+     */
+    public void save() {
+        synchronized (this.fileLock) {
+            final String content;
+            synchronized (this) {
+                if (!this.isDirty) return;
+                this.isDirty = false;
+                content = this.endpoints.toString(4);
+            }
+            try {
+                Path temporaryFile = Files.createTempFile(this.file.getParent(), this.file.getFileName().toString(), ".tmp");
+                try {
+                    Files.write(temporaryFile, content.getBytes(StandardCharsets.UTF_8));
+                    Files.move(temporaryFile, this.file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(temporaryFile);
+                }
+            } catch (IOException e) {
+                logger.warn("Could not write the REST API statistics to {}.", this.file, e);
+            }
+        }
+    }
+
+    private static void saveAll() {
+        for (RestAPIStatistics statistics : instances.values()) {
+            statistics.save();
+        }
+    }
+
+    /**
+     * The statistics of a single endpoint.
+     */
+    public static class EndpointStatistics {
+
+        private final long numObservations;
+
+        private final double meanRecords, recordsVariance, bytesPerRecord, recordsPerResponse;
+
+        private EndpointStatistics(long numObservations, double meanRecords, double recordsVariance,
+                                   double bytesPerRecord, double recordsPerResponse) {
+            this.numObservations = numObservations;
+            this.meanRecords = meanRecords;
+            this.recordsVariance = recordsVariance;
+            this.bytesPerRecord = bytesPerRecord;
+            this.recordsPerResponse = recordsPerResponse;
+        }
+
+        public long getNumObservations() {
+            return this.numObservations;
+        }
+
+        /**
+         * @return the average number of records per request or {@code NaN} if only sizes have been observed
+         * @see #getNumObservations()
+         */
+        public double getMeanRecords() {
+            return this.meanRecords;
+        }
+
+        public double getRecordsStandardDeviation() {
+            return Math.sqrt(this.recordsVariance);
+        }
+
+        /**
+         * @return the average size of a record in the response body or {@code NaN} if it is unknown
+         */
+        public double getBytesPerRecord() {
+            return this.bytesPerRecord;
+        }
+
+        /**
+         * @return the average number of records in a single response, e.g., a page, or {@code NaN} if it is unknown
+         */
+        public double getRecordsPerResponse() {
+            return this.recordsPerResponse;
+        }
+
+        /**
+         * @return the average number of responses, e.g., pages, per request or {@code 1} if it is unknown
+         */
+        public double getResponsesPerRequest() {
+            if (this.numObservations == 0 || Double.isNaN(this.recordsPerResponse) || this.recordsPerResponse <= 0) return 1d;
+            return Math.max(1d, Math.ceil(this.meanRecords / this.recordsPerResponse));
+        }
+    }
+}
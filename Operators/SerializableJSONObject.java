@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * A {@link JSONObject} that can be serialized, e.g., to be shipped between Spark executors and the driver. It is
+ * written as its JSON text, so nested objects and arrays need not be serializable themselves. Downstream operators
+ * see a plain {@link JSONObject}.
+ */
+public class SerializableJSONObject extends JSONObject implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public SerializableJSONObject() {
+        super();
+    }
+
+    /**
+     * Creates a shallow copy of a record.
+     *
+     * @param record the record
+     */
+    public SerializableJSONObject(JSONObject record) {
+        super();
+        this.putAll(record);
+    }
+
+    private void putAll(JSONObject record) {
+        for (String key : record.keySet()) {
+            this.put(key, record.get(key));
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeObject(this.toString());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.putAll(new JSONObject((String) in.readObject()));
+    }
+}
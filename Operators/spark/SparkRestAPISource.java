@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.spark.operators;
+
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.wayang.basic.data.Tuple2;
+import org.apache.wayang.basic.metrics.MetricsRegistry;
+import org.apache.wayang.basic.metrics.MetricsSink;
+import org.apache.wayang.basic.operators.RestAPISource;
+import org.apache.wayang.basic.rest.RestAPIClient;
+import org.apache.wayang.basic.rest.RestAPIPagination;
+import org.apache.wayang.basic.rest.RestAPIPredicate;
+import org.apache.wayang.basic.rest.RestAPIRequest;
+import org.apache.wayang.basic.rest.RestAPIResponseCache;
+import org.apache.wayang.basic.rest.RestAPIStatistics;
+import org.apache.wayang.basic.rest.SerializableJSONObject;
+import org.apache.wayang.core.api.Configuration;
+import org.apache.wayang.core.optimizer.OptimizationContext;
+import org.apache.wayang.core.optimizer.costs.LoadProfileEstimator;
+import org.apache.wayang.core.optimizer.costs.LoadProfileEstimators;
+import org.apache.wayang.core.platform.ChannelDescriptor;
+import org.apache.wayang.core.platform.ChannelInstance;
+import org.apache.wayang.core.platform.lineage.ExecutionLineageNode;
+import org.apache.wayang.core.util.Tuple;
+import org.apache.wayang.java.operators.JavaRestAPISource;
+import org.apache.wayang.spark.channels.RddChannel;
+import org.apache.wayang.spark.execution.SparkExecutor;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Spark implementation of the {@link RestAPISource}: the requests, e.g., as split by a
+ * {@link org.apache.wayang.basic.rest.RestAPIPartitioning}, are distributed over the partitions of an RDD and each
+ * executor fetches the requests of its partitions like a {@link JavaRestAPISource}, i.e., with the same pagination,
+ * fan-out, and parse modes. The REST settings of the job are shipped to the executors along with the requests.
+ * <p>The records are {@link SerializableJSONObject}s, so that they can be shuffled, collected, and handed over to
+ * other platforms.</p>
+ */
+public class SparkRestAPISource extends RestAPISource implements SparkExecutionOperator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SparkRestAPISource.class);
+
+    /**
+     * Maximum number of RDD partitions over which the requests are distributed; {@code 0} uses the default
+     * parallelism of the Spark context.
+     */
+    public static final String MAX_PARTITIONS_KEY = "wayang.spark.restapisource.max-partitions";
+
+    /**
+     * Load profile of setting up the RDD of requests.
+     */
+    public static final String PREPARE_LOAD_KEY = "wayang.spark.restapisource.load.prepare";
+
+    /**
+     * Load profile of fetching and parsing the responses.
+     */
+    public static final String MAIN_LOAD_KEY = "wayang.spark.restapisource.load.main";
+
+    static final String DEFAULT_PREPARE_LOAD_SPECIFICATION = "{" +
+            "\"in\":0, \"out\":1," +
+            "\"cpu\":\"${50056000}\"," +
+            "\"ram\":\"${0}\"," +
+            "\"p\":0.9" +
+            "}";
+
+    /**
+     * Same model as for the {@link JavaRestAPISource}; the Spark platform spreads the cycles over its cores.
+     */
+    static final String DEFAULT_MAIN_LOAD_SPECIFICATION = "{" +
+            "\"in\":0, \"out\":1," +
+            "\"import\":[\"numRequests\", \"bytesPerRecord\"]," +
+            "\"cpu\":\"${1350000000*numRequests + 27000*out0 + 270*out0*bytesPerRecord}\"," +
+            "\"ram\":\"${bytesPerRecord*out0}\"," +
+            "\"p\":0.7" +
+            "}";
+
+    /**
+     * Settings that the executors need to fetch the requests like the driver would.
+     */
+    private static final List<String> EXECUTOR_SETTINGS_KEYS = Arrays.asList(
+            RestAPIClient.CONNECT_TIMEOUT_KEY, RestAPIClient.READ_TIMEOUT_KEY, RestAPIClient.HTTP_VERSION_KEY,
+            RestAPIClient.POOL_SIZE_KEY, RestAPIClient.KEEP_ALIVE_KEY, RestAPIClient.THREADS_KEY,
+            RestAPIClient.COMPRESSION_KEY, RestAPIClient.RATE_LIMIT_KEY, RestAPIClient.HOST_CONCURRENCY_KEY,
+            RestAPIClient.MAX_RETRIES_KEY, RestAPIClient.HEDGE_PERCENTILE_KEY, RestAPIClient.DEADLINE_KEY,
+            RestAPIClient.STALL_TIMEOUT_KEY, RestAPIClient.QUOTA_TIME_ZONE_KEY,
+            JavaRestAPISource.IO_THREADS_KEY, JavaRestAPISource.MAX_CONCURRENCY_KEY,
+            RestAPIResponseCache.TTL_KEY, RestAPIResponseCache.STALE_WHILE_REVALIDATE_KEY, RestAPIResponseCache.MAX_BYTES_KEY,
+            RestAPIResponseCache.DISK_DIRECTORY_KEY, RestAPIResponseCache.DISK_MAX_BYTES_KEY,
+            RestAPIStatistics.PATH_KEY,
+            MetricsRegistry.SNAPSHOT_INTERVAL_KEY, MetricsRegistry.JMX_ENABLED_KEY,
+            MetricsSink.DIRECTORY_KEY, MetricsSink.FLUSH_INTERVAL_KEY, MetricsSink.MAX_FILE_SIZE_KEY,
+            MetricsSink.QUEUE_CAPACITY_KEY, MetricsSink.EXPORT_ON_CLOSE_KEY
+    );
+
+    public SparkRestAPISource(RestAPISource restAPISource) {
+        super(restAPISource);
+    }
+
+    public SparkRestAPISource(String apiURL, String apiMethod, String headers, String payload) {
+        super(apiURL, apiMethod, headers, payload);
+    }
+
+    @Override
+    public Tuple<Collection<ExecutionLineageNode>, Collection<ChannelInstance>> evaluate(
+            ChannelInstance[] inputs,
+            ChannelInstance[] outputs,
+            SparkExecutor sparkExecutor,
+            OptimizationContext.OperatorContext operatorContext) {
+
+        assert inputs.length == this.getNumInputs();
+        assert outputs.length == this.getNumOutputs();
+
+        List<Tuple2<RestAPIRequest, String>> requests = this.takeProbedResponses(this.getRequests(), operatorContext);
+        Configuration configuration = sparkExecutor.getConfiguration();
+        long maxPartitions = configuration.getLongProperty(MAX_PARTITIONS_KEY, 0L);
+        if (maxPartitions <= 0) maxPartitions = sparkExecutor.sc.defaultParallelism();
+        int numPartitions = (int) Math.max(1L, Math.min(requests.size(), maxPartitions));
+        logger.info("Fetching {} requests in {} partitions.", requests.size(), numPartitions);
+
+        RddChannel.Instance output = (RddChannel.Instance) outputs[0];
+        final JavaRDD<JSONObject> rdd = sparkExecutor.sc
+                .parallelize(requests, numPartitions)
+                .mapPartitions(new PartitionFetcher(this, getExecutorSettings(configuration, numPartitions)));
+        this.name(rdd);
+        output.accept(rdd, sparkExecutor);
+
+        ExecutionLineageNode prepareLineageNode = new ExecutionLineageNode(operatorContext);
+        prepareLineageNode.add(createLoadProfileEstimator(PREPARE_LOAD_KEY, configuration));
+        ExecutionLineageNode mainLineageNode = new ExecutionLineageNode(operatorContext);
+        mainLineageNode.add(createLoadProfileEstimator(MAIN_LOAD_KEY, configuration));
+        output.getLineage().addPredecessor(mainLineageNode);
+
+        return prepareLineageNode.collectAndMark();
+    }
+
+    /**
+     * Does not probe the requests: the executors fetch them, so a probe on the driver would have to be shipped along
+     * with the requests. Responses that were probed for another platform's alternative are shipped nonetheless.
+     */
+    @Override
+    protected boolean isProbeable() {
+        return false;
+    }
+
+    /**
+     * Pairs the requests with the responses that the {@link RestAPISource.CardinalityEstimator} fetched for this
+     * job, so that the executors do not request them again.
+     *
+     * @return the requests and their probed responses as JSON text or {@code null}
+     */
+    private List<Tuple2<RestAPIRequest, String>> takeProbedResponses(List<RestAPIRequest> requests,
+                                                                     OptimizationContext.OperatorContext operatorContext) {
+        Map<String, Object> jobCache = operatorContext == null
+                ? Collections.emptyMap()
+                : operatorContext.getOptimizationContext().getJob().getCache();
+        List<Tuple2<RestAPIRequest, String>> requestsWithResponses = new ArrayList<>(requests.size());
+        for (RestAPIRequest request : requests) {
+            Object probedResponse = jobCache.remove(getProbeJobCacheKey(request));
+            requestsWithResponses.add(new Tuple2<>(
+                    request, probedResponse instanceof JSONArray ? probedResponse.toString() : null
+            ));
+        }
+        return requestsWithResponses;
+    }
+
+    /**
+     * Collects the REST settings of the job for the executors. Each executor schedules its requests on its own, so
+     * the configured rate limit per host is split evenly among the partitions.
+     *
+     * @param configuration the {@link Configuration} of the job
+     * @param numPartitions the number of partitions that fetch requests
+     * @return the settings by their keys
+     */
+    static Map<String, String> getExecutorSettings(Configuration configuration, int numPartitions) {
+        Map<String, String> settings = new HashMap<>();
+        for (String key : EXECUTOR_SETTINGS_KEYS) {
+            configuration.getOptionalStringProperty(key).ifPresent(value -> settings.put(key, value));
+        }
+        double rateLimit = configuration.getDoubleProperty(RestAPIClient.RATE_LIMIT_KEY, 0d);
+        if (rateLimit > 0) {
+            settings.put(RestAPIClient.RATE_LIMIT_KEY, Double.toString(rateLimit / numPartitions));
+        }
+        return settings;
+    }
+
+    /**
+     * Fetches the requests of an RDD partition on an executor. It carries the settings of the
+     * {@link RestAPISource}, which is not serializable itself, and of the job; the requests have already been
+     * rewritten by its {@link org.apache.wayang.basic.rest.RestAPIDialect}.
+     */
+    private static class PartitionFetcher implements FlatMapFunction<Iterator<Tuple2<RestAPIRequest, String>>, JSONObject> {
+
+        private final RestAPIPagination pagination;
+
+        private final List<RestAPIPredicate> predicates;
+
+        private final Set<String> projection;
+
+        private final String format, sourceTagField;
+
+        private final boolean isStreaming, isCaching;
+
+        private final int maxConcurrency;
+
+        private final Map<String, String> settings;
+
+        private PartitionFetcher(RestAPISource source, Map<String, String> settings) {
+            this.pagination = source.getPagination();
+            this.predicates = new ArrayList<>(source.getPredicates());
+            this.projection = source.getProjection() == null ? null : new LinkedHashSet<>(source.getProjection());
+            this.format = source.getFormat();
+            this.sourceTagField = source.getSourceTagField();
+            this.isStreaming = source.isStreaming();
+            this.isCaching = source.isCaching();
+            this.maxConcurrency = source.getMaxConcurrency();
+            this.settings = settings;
+        }
+
+        @Override
+        public Iterator<JSONObject> call(Iterator<Tuple2<RestAPIRequest, String>> requestIterator) {
+            List<Tuple2<RestAPIRequest, String>> requestsWithResponses = new ArrayList<>();
+            requestIterator.forEachRemaining(requestsWithResponses::add);
+            if (requestsWithResponses.isEmpty()) return Collections.emptyIterator();
+
+            List<RestAPIRequest> requests = new ArrayList<>(requestsWithResponses.size());
+            requestsWithResponses.forEach(requestWithResponse -> requests.add(requestWithResponse.field0));
+
+            RestAPISource source = new RestAPISource(requests);
+            source.setPagination(this.pagination);
+            this.predicates.forEach(source::pushDown);
+            source.setProjection(this.projection);
+            source.setFormat(this.format);
+            source.setSourceTagField(this.sourceTagField);
+            source.setStreaming(this.isStreaming);
+            source.setCaching(this.isCaching);
+            source.setMaxConcurrency(this.maxConcurrency);
+
+            JavaRestAPISource javaSource = new JavaRestAPISource(source);
+            for (Tuple2<RestAPIRequest, String> requestWithResponse : requestsWithResponses) {
+                if (requestWithResponse.field1 != null) {
+                    javaSource.takeProbedResponse(requestWithResponse.field0, new JSONArray(requestWithResponse.field1));
+                }
+            }
+            Configuration configuration = new Configuration();
+            this.settings.forEach(configuration::setProperty);
+            return javaSource.readRecords(configuration).<JSONObject>map(SerializableJSONObject::new).iterator();
+        }
+    }
+
+    @Override
+    public SparkRestAPISource copy() {
+        return new SparkRestAPISource(this);
+    }
+
+    @Override
+    public Collection<String> getLoadProfileEstimatorConfigurationKeys() {
+        return Arrays.asList(PREPARE_LOAD_KEY, MAIN_LOAD_KEY);
+    }
+
+    @Override
+    public Optional<LoadProfileEstimator> createLoadProfileEstimator(Configuration configuration) {
+        LoadProfileEstimator mainEstimator = createLoadProfileEstimator(MAIN_LOAD_KEY, configuration);
+        mainEstimator.nest(createLoadProfileEstimator(PREPARE_LOAD_KEY, configuration));
+        return Optional.of(mainEstimator);
+    }
+
+    /**
+     * Creates the {@link LoadProfileEstimator} for the given key from the {@link Configuration} or, if it does
+     * not specify one, from the default specification.
+     *
+     * @param configurationKey {@link #PREPARE_LOAD_KEY} or {@link #MAIN_LOAD_KEY}
+     * @param configuration    may override the default specification
+     * @return the {@link LoadProfileEstimator}
+     */
+    public static LoadProfileEstimator createLoadProfileEstimator(String configurationKey, Configuration configuration) {
+        String specification = configuration.getOptionalStringProperty(configurationKey).orElse(
+                MAIN_LOAD_KEY.equals(configurationKey) ? DEFAULT_MAIN_LOAD_SPECIFICATION : DEFAULT_PREPARE_LOAD_SPECIFICATION
+        );
+        return LoadProfileEstimators.createFromSpecification(configurationKey, specification);
+    }
+
+    @Override
+    public List<ChannelDescriptor> getSupportedInputChannels(int index) {
+        throw new UnsupportedOperationException(String.format("%s does not have input channels.", this));
+    }
+
+    @Override
+    public List<ChannelDescriptor> getSupportedOutputChannels(int index) {
+        assert index <= this.getNumOutputs() || (index == 0 && this.getNumOutputs() == 0);
+        return Collections.singletonList(RddChannel.UNCACHED_DESCRIPTOR);
+    }
+
+    @Override
+    public boolean containsAction() {
+        return false;
+    }
+}
@@ -1,6 +1,13 @@
 package org.apache.wayang.apps.pipelines;
 
 import org.apache.wayang.basic.data.Tuple2;
+import org.apache.wayang.basic.metrics.MetricsRegistry;
+import org.apache.wayang.basic.metrics.MetricsSink;
+import org.apache.wayang.basic.rest.RestAPIClient;
+import org.apache.wayang.basic.rest.RestAPIRequest;
+import org.apache.wayang.basic.rest.RestAPIResponseBody;
+import org.apache.wayang.basic.rest.RestAPIStatistics;
+import org.apache.wayang.basic.rest.RestAPIThrottledException;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -8,8 +15,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
@@ -49,8 +56,8 @@ class ForecastResultPOSTTEST {
 public class StandaloneAPIPOST {
 
     private static final Logger logger = LoggerFactory.getLogger(StandaloneAPIPOST.class);
-    private static final String LOG_FILE_PATH_LATENCY = "post-api-latency.json";
-    private static final String LOG_FILE_PATH_QUERIES = "post-queries-performance.json";
+    private static final String LATENCY_METRICS = "post-api-latency";
+    private static final String QUERY_METRICS = "post-queries-performance";
 
     private String apiURL;
     private String apiMethod;
@@ -69,35 +76,7 @@ public class StandaloneAPIPOST {
             this.payload = payload;
         }
 
-        private static void appendlogtofile(JSONObject logrecord, String filePath) throws IOException {
-            JSONArray existinglogs;
-
-            if (Files.exists(Paths.get(filePath))) {
-                String content = new String(Files.readAllBytes(Paths.get(filePath)));
-                if (!content.isEmpty()) {
-                    try {
-                        existinglogs = new JSONArray(content);
-                    } catch (JSONException e) {
-                        logger.error("Corrupted JSON file content. Starting fresh for file: {}", filePath);
-                        existinglogs = new JSONArray();
-                    }
-                } else {
-                    existinglogs = new JSONArray();
-                }
-            } else {
-                existinglogs = new JSONArray();
-            }
-
-            existinglogs.put(logrecord);
-            Files.write(
-                    Paths.get(filePath),
-                    existinglogs.toString(4).getBytes(),
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING
-            );
-        }
-
-        public static void logtoJSON(String stepname, Double latencyseconds, Double executiontime, String apiurl, String filePath) {
+        public static void logtoJSON(String stepname, Double latencyseconds, Double executiontime, String apiurl, String metricsName) {
             try {
                 JSONObject logrecord = new JSONObject();
                 logrecord.put("timestamp", Instant.now().toString());
@@ -110,72 +89,53 @@ public class StandaloneAPIPOST {
                 }
                 logrecord.put("url", apiurl != null ? apiurl : "Unknown");
 
-                appendlogtofile(logrecord, filePath);
+                MetricsSink.getInstance(metricsName).record(logrecord);
             } catch (Exception e) {
                 logger.error("Unable to add data to JSON: {}", e.getMessage(), e);
             }
         }
 
         public static void logQueryTime(long starttime, long endtime, String stepname, String apiurl) {
-            Double executiontimeseconds = (endtime - starttime) / 1000.0;
-            logtoJSON(stepname, null, executiontimeseconds, apiurl, LOG_FILE_PATH_QUERIES);
+            Double executiontimeseconds = (endtime - starttime) / 1_000_000_000.0;
+            MetricsRegistry.getInstance().recordStep(stepname, endtime - starttime);
+            logtoJSON(stepname, null, executiontimeseconds, apiurl, QUERY_METRICS);
         }
 
         public static void logAPIlatency(long starttime, long endtime, String stepname, String apiurl) {
-            Double latencyseconds = (endtime - starttime) / 1000.0;
-            logtoJSON(stepname, latencyseconds, null, apiurl, LOG_FILE_PATH_LATENCY);
+            Double latencyseconds = (endtime - starttime) / 1_000_000_000.0;
+            logtoJSON(stepname, latencyseconds, null, apiurl, LATENCY_METRICS);
         }
     
         public JSONArray fetchDataFromAPI() {
             String hardcodedURL = "https://api.hubapi.com/crm/v3/objects/deals/search";
             logger.info("Fetching data from API with method: {}", this.apiMethod);
     
-            long apistarttime = System.currentTimeMillis();
-            HttpURLConnection connection = null;
+            long apistarttime = System.nanoTime();
             try {
                 if ("POST".equalsIgnoreCase(this.apiMethod) && !this.apiURL.startsWith(hardcodedURL)) {
                     logger.error("POST requests are only allowed to the hardcoded URL: {}", hardcodedURL);
                     throw new IllegalArgumentException("POST requests must use the hardcoded URL.");
                 }
     
-                URL url = new URL(this.apiURL);
-                connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod(this.apiMethod);
-    
-                if (!this.headers.isEmpty()) {
-                    for (String header : this.headers.split(";")) {
-                        String[] headerParts = header.trim().split(":", 2);
-                        if (headerParts.length == 2) {
-                            connection.setRequestProperty(headerParts[0].trim(), headerParts[1].trim());
-                        } else {
-                            logger.warn("Invalid header format: {}", header);
-                        }
-                    }
-                }
-    
-                if ("POST".equalsIgnoreCase(this.apiMethod)) {
-                    connection.setDoOutput(true);
-                    if (this.payload == null || this.payload.isEmpty()) {
-                        logger.warn("No payload provided for POST request.");
-                    } else {
-                        try (OutputStream os = connection.getOutputStream()) {
-                            byte[] input = this.payload.getBytes("utf-8");
-                            os.write(input, 0, input.length);
-                        }
-                    }
-                }
+                HttpResponse<InputStream> httpResponse = RestAPIClient.getDefault()
+                        .send(this.apiURL, this.apiMethod, this.headers, this.payload);
     
-                BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
                 StringBuilder content = new StringBuilder();
-                String inputLine;
-                while ((inputLine = in.readLine()) != null) {
-                    content.append(inputLine).append("\n");
+                try (BufferedReader in = new BufferedReader(new InputStreamReader(httpResponse.body(), StandardCharsets.UTF_8))) {
+                    String inputLine;
+                    while ((inputLine = in.readLine()) != null) {
+                        content.append(inputLine).append("\n");
+                    }
                 }
-                in.close();
     
                 String response = content.toString();
-                long apiendtime = System.currentTimeMillis();
+                long apiendtime = System.nanoTime();
                 logAPIlatency(apistarttime, apiendtime, "API Latency", this.apiURL);
+                MetricsRegistry.getInstance().recordRequest(this.getEndpoint(), apiendtime - apistarttime, -1L, response.length());
+                if (httpResponse.body() instanceof RestAPIResponseBody) {
+                    RestAPIResponseBody body = (RestAPIResponseBody) httpResponse.body();
+                    MetricsRegistry.getInstance().recordTransfer(this.getEndpoint(), body.getNumTransferredBytes(), body.getNumDecodedBytes());
+                }
     
                 try {
                     logger.info("Attempting to parse response as JSONArray.");
@@ -199,15 +159,19 @@ public class StandaloneAPIPOST {
                     logger.error("Failed to parse response as CSV string.", e);
                 }
     
+            } catch (RestAPIThrottledException e) {
+                MetricsRegistry.getInstance().recordError(this.getEndpoint());
+                throw new UncheckedIOException("REST API rejected the request due to its rate limit.", e);
             } catch (IOException e) {
                 logger.error("Unable to fetch data from REST API", e);
-            } finally {
-                if (connection != null) {
-                    connection.disconnect();
-                }
+                MetricsRegistry.getInstance().recordError(this.getEndpoint());
             }
             return new JSONArray();
         }
+
+        private String getEndpoint() {
+            return RestAPIStatistics.getEndpoint(new RestAPIRequest(this.apiURL, this.apiMethod, this.headers, this.payload));
+        }
     
         private JSONArray convertCsvToJson(String dataString) {
             String[] lines = dataString.split("\n");
@@ -278,15 +242,15 @@ public class StandaloneAPIPOST {
             String urlHubspot = "https://api.hubapi.com/crm/v3/objects/deals/search";
         
         try {
-            long starttime_f = System.currentTimeMillis();
+            long starttime_f = System.nanoTime();
             ForecastResultPOSTTEST forecastResult = ForecastPipelinePOSTTEST(urlForecast);
-            long endtime_f = System.currentTimeMillis();
+            long endtime_f = System.nanoTime();
             logQueryTime(starttime_f, endtime_f, "Forecast Entire Query Process",null);
 
 
-            long starttime_h = System.currentTimeMillis();
+            long starttime_h = System.nanoTime();
             double totalFTEsHubspot = HubspotPipelinePOSTTEST(urlHubspot, monthToday);
-            long endtime_h = System.currentTimeMillis();
+            long endtime_h = System.nanoTime();
             logQueryTime(starttime_h, endtime_h, "Hubspot Entire Query Process",null);
 
 
@@ -329,7 +293,7 @@ public class StandaloneAPIPOST {
             List<String> allowedRoles = Arrays.asList("DK", "US inc.");
             List<Tuple2<Float, String>> filteredData = new ArrayList<>();
 
-            long starttime_f = System.currentTimeMillis();
+            long starttime_f = System.nanoTime();
             for (int i = 0; i < response.length(); i++) {
                 JSONObject json = response.getJSONObject(i);
                 if (allowedRoles.contains(json.optString("Roles", ""))) {
@@ -355,7 +319,7 @@ public class StandaloneAPIPOST {
                     .distinct()
                     .count();
             
-            long endtime_f = System.currentTimeMillis();
+            long endtime_f = System.nanoTime();
             logQueryTime(starttime_f, endtime_f, "Forecast Query",null);
     
         } catch (Exception e) {
@@ -422,7 +386,7 @@ public class StandaloneAPIPOST {
                 }
             }
     
-            long starttime_h = System.currentTimeMillis();
+            long starttime_h = System.nanoTime();
             for (JSONObject obj : allProperties) {
                 if (obj.has("start_date") && !obj.isNull("start_date") &&
                             obj.has("end_date") && !obj.isNull("end_date") &&
@@ -437,7 +401,7 @@ public class StandaloneAPIPOST {
                     }
                 }
             }
-            long endtime_h = System.currentTimeMillis();
+            long endtime_h = System.nanoTime();
             logQueryTime(starttime_h, endtime_h, "HubSpot Query",null);
         } catch (Exception e) {
             logger.error("Error fetching data from HubSpot API: {}", e.getMessage(), e);
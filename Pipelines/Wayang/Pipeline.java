@@ -20,6 +20,13 @@ package org.apache.wayang.apps.pipelines;
 
 import org.apache.wayang.api.JavaPlanBuilder;
 import org.apache.wayang.basic.data.Tuple2;
+import org.apache.wayang.basic.operators.RestAPISource;
+import org.apache.wayang.basic.metrics.MetricsRegistry;
+import org.apache.wayang.basic.metrics.MetricsSink;
+import org.apache.wayang.basic.rest.HubSpotDialect;
+import org.apache.wayang.basic.rest.RestAPIBatch;
+import org.apache.wayang.basic.rest.RestAPIPagination;
+import org.apache.wayang.basic.rest.RestAPISchema;
 import org.apache.wayang.core.api.Configuration;
 import org.apache.wayang.core.api.WayangContext;
 import org.apache.wayang.java.Java;
@@ -70,7 +77,8 @@ public class Pipeline {
     private static String forecastUser;
     private static String forecastToken;
     private static String hubspotToken;
-    private static final String LOG_FILE_PATH = "json-queries-performance.json";
+    private static final String QUERY_METRICS = "json-queries-performance";
+    private static final int FORECAST_BATCH_SIZE = 4096;
 
     public static void logtoJSON(String stepname, Double latencyseconds, Double executiontime){
         try {
@@ -79,40 +87,18 @@ public class Pipeline {
             logrecord.put("step",stepname);
             logrecord.put("execution_time_seconds", executiontime);
 
-            appendlogtofile(logrecord);
+            MetricsSink.getInstance(QUERY_METRICS).record(logrecord);
         } catch (Exception e) {
             log.error("Unable to add data to JSON: {}", e.getMessage(),e);
         }
     }
 
     public static void logQueryTime(long starttime, long endtime, String stepname){
-        Double executiontimeseconds = (endtime - starttime) / 1000.0;
+        Double executiontimeseconds = (endtime - starttime) / 1_000_000_000.0;
+        MetricsRegistry.getInstance().recordStep(stepname, endtime - starttime);
         logtoJSON(stepname, null, executiontimeseconds);
     }
 
-    private static void appendlogtofile(JSONObject logrecord) throws IOException {
-        JSONArray existinglogs;
-
-        if (Files.exists(Paths.get(LOG_FILE_PATH))){
-            String content = new String(Files.readAllBytes(Paths.get(LOG_FILE_PATH)));
-            if (!content.isEmpty()){
-                existinglogs = new JSONArray(content);
-            } else {
-                existinglogs = new JSONArray();
-            }
-        } else {
-            existinglogs = new JSONArray();
-        }
-
-        existinglogs.put(logrecord);
-        Files.write(
-            Paths.get(LOG_FILE_PATH),
-            existinglogs.toString(4).getBytes(),
-            StandardOpenOption.CREATE,
-            StandardOpenOption.TRUNCATE_EXISTING
-        );
-    }
-
     public static void main(String[] args) {
         Properties properties = new Properties();
         String configFilePath = "/home/flo/incubator-wayang/wayang-benchmark/src/main/java/org/apache/wayang/apps/wordcount/config.properties";
@@ -157,17 +143,17 @@ public class Pipeline {
                 monthToday, month2m
         );
 
-        String urlHubspot = "https://api.hubapi.com/crm/v3/objects/deals?limit=100&properties=start_date,end_date,hs_deal_stage_probability,fte_s_";
+        String urlHubspot = "https://api.hubapi.com/crm/v3/objects/deals?limit=100";
         
         try {
-            long starttime_f = System.currentTimeMillis();
+            long starttime_f = System.nanoTime();
             ForecastResult forecastResult = ForecastPipeline(planBuilder, urlForecast);
-            long endtime_f = System.currentTimeMillis();
+            long endtime_f = System.nanoTime();
             logQueryTime(starttime_f, endtime_f, "Forecast Entire Query Process");
 
-            long starttime_h = System.currentTimeMillis();
+            long starttime_h = System.nanoTime();
             double totalFTEsHubspot = HubspotPipeline(planBuilder, urlHubspot, monthToday);
-            long endtime_h = System.currentTimeMillis();
+            long endtime_h = System.nanoTime();
             logQueryTime(starttime_h, endtime_h, "HubSpot Entire Query Process");
 
             log.info("Pipeline FTEs: {}", totalFTEsHubspot);
@@ -189,7 +175,7 @@ public class Pipeline {
         }
     }
 
-    private static ForecastResult ForecastPipeline(JavaPlanBuilder planBuilder, String urlForecast) {
+    static ForecastResult ForecastPipeline(JavaPlanBuilder planBuilder, String urlForecast) {
         String apiMethod = "GET";
         String headers = String.format("User-Agent: %s; Authorization: Bearer %s; Forecast-Account-ID: %s", forecastUser, forecastToken, forecastUser);
         String payload = null;
@@ -201,34 +187,30 @@ public class Pipeline {
         try {
             List<String> allowedRoles = Arrays.asList("DK", "US inc.");
 
-            long starttime_f = System.currentTimeMillis();
-            Collection<Tuple2<Float,String>> filteredData = planBuilder
-                .readRestAPISource(urlForecast, apiMethod, headers, payload) 
-                .filter(json -> allowedRoles.contains(json.optString("Roles", "")))  
-                .map(json -> {
-                    String jan2025str = json.optString("Jan 2025", "0");
-                    float fte;
-                    try {
-                        fte = Float.parseFloat(jan2025str) / (float) 172.5;
-                    } catch (NumberFormatException e) {
-                        log.error("Invalid number for January 2025: " + jan2025str, e);
-                        fte = 0.0f;
-                    }
-                    String person = json.optString("Person", "Unknown");
-                    return new Tuple2<>(fte, person);
-                })
-                .collect();  
-
-            totalFTEs = filteredData.stream()
-                .map(tuple -> tuple.field0)  
-                .reduce(0.0f, Float::sum);
-
-            capacity = (int) filteredData.stream()
-                .map(tuple -> tuple.field1)  
-                .distinct()
-                .count();
-            
-            long endtime_f = System.currentTimeMillis();
+            // The export has a column per month, but only these are read below. Roles and persons repeat a lot,
+            // so they are dictionary-encoded per batch and the role filter runs once per distinct role.
+            RestAPISource forecastSource = new RestAPISource(urlForecast, apiMethod, headers, payload);
+            RestAPISchema forecastSchema = new RestAPISchema()
+                .withField("Person", RestAPISchema.FieldType.STRING)
+                .withField("Roles", RestAPISchema.FieldType.STRING)
+                .withField("Jan 2025", RestAPISchema.FieldType.DOUBLE);
+
+            long starttime_f = System.nanoTime();
+            // The FTEs are summed up per batch and then across batches, so the float additions happen in a
+            // different order than row by row.
+            Collection<Tuple2<Float, Set<String>>> forecastFTEs = planBuilder
+                .readRestAPISourceBatches(forecastSource, forecastSchema, FORECAST_BATCH_SIZE)
+                .map(batch -> batch.filterStrings("Roles", allowedRoles::contains))
+                .map(Pipeline::toForecastFTEs)
+                .reduce(Pipeline::combineForecastFTEs)
+                .collect();
+
+            for (Tuple2<Float, Set<String>> result : forecastFTEs) {
+                totalFTEs = result.field0;
+                capacity = result.field1.size();
+            }
+
+            long endtime_f = System.nanoTime();
             logQueryTime(starttime_f, endtime_f, "Forecast Query");
 
 
@@ -240,72 +222,42 @@ public class Pipeline {
     }
 
 
-    private static double HubspotPipeline(JavaPlanBuilder planBuilder, String urlHubspot, String monthToday) {
+    static double HubspotPipeline(JavaPlanBuilder planBuilder, String urlHubspot, String monthToday) {
         String apiMethod = "GET";
         String headers = String.format("accept: application/json; content-type: application/json; authorization: Bearer %s", hubspotToken);
-        String changeUrlHubspot = urlHubspot;
-        boolean moreResults = true;
         YearMonth filterMonth = YearMonth.from(LocalDate.parse(monthToday, DateTimeFormatter.ofPattern("yyyy-MM-dd")));
         double totalFTEs = 0.0;
         String payload = "";
+        RestAPIPagination pagination = RestAPIPagination
+                .inQueryParameter("paging.next.after", "after")
+                .withRecordsPath("results")
+                .withPrefetchDepth(2);
 
-        Collection<JSONObject> allProperties = new ArrayList<>();
-        try {
-            while (moreResults) {
-                Collection<JSONObject> rawResponse = planBuilder
-                        .readRestAPISource(changeUrlHubspot, apiMethod, headers,payload)
-                        .collect();
-
-                for (JSONObject jsonObject : rawResponse) {
-                    if (jsonObject.has("results")) {
-                        JSONArray resultsArray = jsonObject.getJSONArray("results");
-
-                        for (int i = 0; i < resultsArray.length(); i++) {
-                            JSONObject resultObject = resultsArray.optJSONObject(i);
-                            if (resultObject != null && resultObject.has("properties")) {
-                                allProperties.add(resultObject.getJSONObject("properties"));
-                            }
-                        }
-                    }
-                }
-
-                log.info("Fetched {} responses in this page", rawResponse.size());
-
-                // Extract pagination token
-                String after = extractAfterToken(rawResponse);
-                if (after != null) {
-                    changeUrlHubspot = urlHubspot + "&after=" + after;
-                } else {
-                    moreResults = false;
-                }
-            }
+        // Only these properties are read below; the dialect requests just them via the properties parameter.
+        RestAPISource hubspotSource = new RestAPISource(urlHubspot, apiMethod, headers, payload);
+        hubspotSource.setPagination(pagination);
+        hubspotSource.setProjection(Arrays.asList("properties.start_date", "properties.end_date", "properties.fte_s_"));
+        hubspotSource.setDialect(new HubSpotDialect());
 
-            long starttime_h = System.currentTimeMillis();
+        try {
+            Collection<JSONObject> allProperties = planBuilder
+                .readRestAPISource(hubspotSource)
+                .filter(deal -> deal.has("properties"))
+                .map(deal -> deal.getJSONObject("properties"))
+                .collect();
+            log.info("Fetched {} deals", allProperties.size());
+
+            // As before, the query time covers the aggregation only; the fetch is in the API latency log.
+            long starttime_h = System.nanoTime();
             Collection<Double> fteCollection = planBuilder
-                .loadCollection(allProperties) 
-                .filter(obj -> obj.has("start_date") && !obj.isNull("start_date") &&
-                            obj.has("end_date") && !obj.isNull("end_date") &&
-                            obj.has("fte_s_") && !obj.isNull("fte_s_")) 
-                .map(obj -> {
-                    try {
-                        LocalDate startDate = LocalDate.parse(obj.getString("start_date"), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                        LocalDate endDate = LocalDate.parse(obj.getString("end_date"), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-
-                        if (YearMonth.from(startDate).equals(filterMonth)) {
-                            long monthsBetween = Math.max(1, ChronoUnit.MONTHS.between(startDate, endDate)); 
-                            double fteValue = obj.getDouble("fte_s_");
-                            return fteValue / monthsBetween;
-                        }
-                    } catch (Exception e) {
-                        log.warn("Skipping deal due to parsing error: {}", obj, e);
-                    }
-                    return 0.0; 
-                })
+                .loadCollection(allProperties)
+                .filter(Pipeline::hasHubspotFTE) 
+                .map(obj -> toHubspotFTE(obj, filterMonth))
                 .reduce((fte1, fte2) -> fte1 + fte2) 
                 .collect(); 
              
         totalFTEs = fteCollection.isEmpty() ? 0.0 : fteCollection.iterator().next();
-        long endtime_h = System.currentTimeMillis();
+        long endtime_h = System.nanoTime();
         logQueryTime(starttime_h, endtime_h, "HubSpot Query");
 
         } catch (Exception e) {
@@ -314,18 +266,67 @@ public class Pipeline {
 
         return totalFTEs; 
 }
-       
-    
-    private static String extractAfterToken(Collection<JSONObject> rawResponse) {
-        for (JSONObject jsonObject : rawResponse) {
-            if (jsonObject.has("paging")) {  
-                JSONObject paging = jsonObject.getJSONObject("paging");
-                if (paging.has("next")) {    
-                    JSONObject next = paging.getJSONObject("next");
-                    return next.getString("after"); 
-                }
+
+    /**
+     * Converts a row of the Forecast export into the FTEs booked for January 2025 and the person.
+     */
+    static Tuple2<Float, String> toForecastFTE(JSONObject json) {
+        String jan2025str = json.optString("Jan 2025", "0");
+        float fte;
+        try {
+            fte = Float.parseFloat(jan2025str) / (float) 172.5;
+        } catch (NumberFormatException e) {
+            log.error("Invalid number for January 2025: " + jan2025str, e);
+            fte = 0.0f;
+        }
+        String person = json.optString("Person", "Unknown");
+        return new Tuple2<>(fte, person);
+    }
+
+    /**
+     * Converts the rows of a Forecast batch like {@link #toForecastFTE(JSONObject)}: the FTEs of the rows are
+     * summed up as floats and rows without a person count as the person "Unknown".
+     */
+    static Tuple2<Float, Set<String>> toForecastFTEs(RestAPIBatch batch) {
+        float totalFTEs = 0.0f;
+        Set<String> persons = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (!batch.isNull("Jan 2025", i)) {
+                totalFTEs += (float) batch.getDouble("Jan 2025", i) / (float) 172.5;
             }
+            persons.add(batch.isNull("Person", i) ? "Unknown" : batch.getString("Person", i));
+        }
+        return new Tuple2<>(totalFTEs, persons);
+    }
+
+    static Tuple2<Float, Set<String>> combineForecastFTEs(Tuple2<Float, Set<String>> a, Tuple2<Float, Set<String>> b) {
+        Set<String> persons = new HashSet<>(a.field1);
+        persons.addAll(b.field1);
+        return new Tuple2<>(a.field0 + b.field0, persons);
+    }
+
+    static boolean hasHubspotFTE(JSONObject obj) {
+        return obj.has("start_date") && !obj.isNull("start_date") &&
+                obj.has("end_date") && !obj.isNull("end_date") &&
+                obj.has("fte_s_") && !obj.isNull("fte_s_");
+    }
+
+    /**
+     * Spreads the FTEs of a HubSpot deal that starts in the given month over its duration.
+     */
+    static double toHubspotFTE(JSONObject obj, YearMonth filterMonth) {
+        try {
+            LocalDate startDate = LocalDate.parse(obj.getString("start_date"), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+            LocalDate endDate = LocalDate.parse(obj.getString("end_date"), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+
+            if (YearMonth.from(startDate).equals(filterMonth)) {
+                long monthsBetween = Math.max(1, ChronoUnit.MONTHS.between(startDate, endDate));
+                double fteValue = obj.getDouble("fte_s_");
+                return fteValue / monthsBetween;
+            }
+        } catch (Exception e) {
+            log.warn("Skipping deal due to parsing error: {}", obj, e);
         }
-        return null; 
+        return 0.0;
     }
 }
@@ -20,6 +20,13 @@ package org.apache.wayang.apps.pipelines;
 
 import org.apache.wayang.api.JavaPlanBuilder;
 import org.apache.wayang.basic.data.Tuple2;
+import org.apache.wayang.basic.operators.RestAPISource;
+import org.apache.wayang.basic.metrics.MetricsRegistry;
+import org.apache.wayang.basic.metrics.MetricsSink;
+import org.apache.wayang.basic.rest.HubSpotDialect;
+import org.apache.wayang.basic.rest.RestAPIPagination;
+import org.apache.wayang.basic.rest.RestAPIPartitioning;
+import org.apache.wayang.basic.rest.RestAPISchema;
 import org.apache.wayang.core.api.Configuration;
 import org.apache.wayang.core.api.WayangContext;
 import org.apache.wayang.java.Java;
@@ -37,9 +44,9 @@ import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAdjusters;
 import java.time.temporal.ChronoUnit;
 import java.time.LocalDate;
+import java.time.Period;
 import java.time.YearMonth;
 import java.util.stream.Collectors;
-import java.time.ZoneOffset;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -74,7 +81,8 @@ public class PipelinePOST {
     private static String forecastUser;
     private static String forecastToken;
     private static String hubspotToken;
-    private static final String LOG_FILE_PATH = "post-queries-performance.json";
+    private static final String QUERY_METRICS = "post-queries-performance";
+    private static final int FORECAST_BATCH_SIZE = 4096;
 
     public static void logtoJSON(String stepname, Double latencyseconds, Double executiontime){
         try {
@@ -83,40 +91,18 @@ public class PipelinePOST {
             logrecord.put("step",stepname);
             logrecord.put("execution_time_seconds", executiontime);
 
-            appendlogtofile(logrecord);
+            MetricsSink.getInstance(QUERY_METRICS).record(logrecord);
         } catch (Exception e) {
             log.error("Unable to add data to JSON: {}", e.getMessage(),e);
         }
     }
 
     public static void logQueryTime(long starttime, long endtime, String stepname){
-        Double executiontimeseconds = (endtime - starttime) / 1000.0;
+        Double executiontimeseconds = (endtime - starttime) / 1_000_000_000.0;
+        MetricsRegistry.getInstance().recordStep(stepname, endtime - starttime);
         logtoJSON(stepname, null, executiontimeseconds);
     }
 
-    private static void appendlogtofile(JSONObject logrecord) throws IOException {
-        JSONArray existinglogs;
-
-        if (Files.exists(Paths.get(LOG_FILE_PATH))){
-            String content = new String(Files.readAllBytes(Paths.get(LOG_FILE_PATH)));
-            if (!content.isEmpty()){
-                existinglogs = new JSONArray(content);
-            } else {
-                existinglogs = new JSONArray();
-            }
-        } else {
-            existinglogs = new JSONArray();
-        }
-
-        existinglogs.put(logrecord);
-        Files.write(
-            Paths.get(LOG_FILE_PATH),
-            existinglogs.toString(4).getBytes(),
-            StandardOpenOption.CREATE,
-            StandardOpenOption.TRUNCATE_EXISTING
-        );
-    }
-
     public static void main(String[] args) {
         Properties properties = new Properties();
         String configFilePath = "/home/flo/incubator-wayang/wayang-benchmark/src/main/java/org/apache/wayang/apps/wordcount/config.properties";
@@ -163,14 +149,14 @@ public class PipelinePOST {
         String urlHubspot = "https://api.hubapi.com/crm/v3/objects/deals/search";
         
         try {
-            long starttime_f = System.currentTimeMillis();
+            long starttime_f = System.nanoTime();
             ForecastResultPOST forecastResult = ForecastPipelinePOST(planBuilder, urlForecast);
-            long endtime_f = System.currentTimeMillis();
+            long endtime_f = System.nanoTime();
             logQueryTime(starttime_f, endtime_f, "Forecast Entire Query Process");
 
-            long starttime_h = System.currentTimeMillis();
+            long starttime_h = System.nanoTime();
             double totalFTEsHubspot = HubspotPipelinePOST(planBuilder, urlHubspot, monthToday);
-            long endtime_h = System.currentTimeMillis();
+            long endtime_h = System.nanoTime();
             logQueryTime(starttime_h, endtime_h, "HubSpot Entire Query Process");
 
 
@@ -194,11 +180,6 @@ public class PipelinePOST {
         }
     }
 
-    private static long toEpochMilliseconds(String dateString) {
-        LocalDate date = LocalDate.parse(dateString, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        return date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
-    }
-
     private static ForecastResultPOST ForecastPipelinePOST(JavaPlanBuilder planBuilder, String urlForecast) {
         String apiMethod = "GET";
         String headers = String.format("User-Agent: %s; Authorization: Bearer %s; Forecast-Account-ID: %s", forecastUser, forecastToken, forecastUser);
@@ -211,34 +192,30 @@ public class PipelinePOST {
         try {
             List<String> allowedRoles = Arrays.asList("DK", "US inc.");
 
-            long starttime_f = System.currentTimeMillis();
-            Collection<Tuple2<Float,String>> filteredData = planBuilder
-                .readRestAPISource(urlForecast, apiMethod, headers, payload) 
-                .filter(json -> allowedRoles.contains(json.optString("Roles", "")))  
-                .map(json -> {
-                    String jan2025str = json.optString("Jan 2025", "0");
-                    float fte;
-                    try {
-                        fte = Float.parseFloat(jan2025str) / (float) 172.5;
-                    } catch (NumberFormatException e) {
-                        log.error("Invalid number for January 2025: " + jan2025str, e);
-                        fte = 0.0f;
-                    }
-                    String person = json.optString("Person", "Unknown");
-                    return new Tuple2<>(fte, person);
-                })
-                .collect();  
-
-            totalFTEs = filteredData.stream()
-                .map(tuple -> tuple.field0)  
-                .reduce(0.0f, Float::sum);
-
-            capacity = (int) filteredData.stream()
-                .map(tuple -> tuple.field1)  
-                .distinct()
-                .count();
-            
-            long endtime_f = System.currentTimeMillis();
+            // The export has a column per month, but only these are read below. Roles and persons repeat a lot,
+            // so they are dictionary-encoded per batch and the role filter runs once per distinct role.
+            RestAPISource forecastSource = new RestAPISource(urlForecast, apiMethod, headers, payload);
+            RestAPISchema forecastSchema = new RestAPISchema()
+                .withField("Person", RestAPISchema.FieldType.STRING)
+                .withField("Roles", RestAPISchema.FieldType.STRING)
+                .withField("Jan 2025", RestAPISchema.FieldType.DOUBLE);
+
+            long starttime_f = System.nanoTime();
+            // The FTEs are summed up per batch and then across batches, so the float additions happen in a
+            // different order than row by row.
+            Collection<Tuple2<Float, Set<String>>> forecastFTEs = planBuilder
+                .readRestAPISourceBatches(forecastSource, forecastSchema, FORECAST_BATCH_SIZE)
+                .map(batch -> batch.filterStrings("Roles", allowedRoles::contains))
+                .map(Pipeline::toForecastFTEs)
+                .reduce(Pipeline::combineForecastFTEs)
+                .collect();
+
+            for (Tuple2<Float, Set<String>> result : forecastFTEs) {
+                totalFTEs = result.field0;
+                capacity = result.field1.size();
+            }
+
+            long endtime_f = System.nanoTime();
             logQueryTime(starttime_f, endtime_f, "Forecast Query");
 
 
@@ -252,69 +229,42 @@ public class PipelinePOST {
     private static double HubspotPipelinePOST(JavaPlanBuilder planBuilder, String urlHubspot, String monthToday) {
         String apiMethod = "POST";
         String headers = String.format("accept: application/json; content-type: application/json; authorization: Bearer %s", hubspotToken);
-        String currentUrlHubspot = urlHubspot;
-        boolean moreResults = true;
         YearMonth filterMonth = YearMonth.from(LocalDate.parse(monthToday, DateTimeFormatter.ofPattern("yyyy-MM-dd")));
         double totalFTEs = 0.0;
-        long startOfMonthEpoch = toEpochMilliseconds(filterMonth.atDay(1).toString());
-        long endOfMonthEpoch = toEpochMilliseconds(filterMonth.atEndOfMonth().toString());
-        String payloadTemplate = "{" +
-            "  \"filterGroups\": [" +
-            "    {" +
-            "      \"filters\": [" +
-            "        {" +
-            "          \"propertyName\": \"start_date\"," +
-            "          \"operator\": \"BETWEEN\"," +
-            "          \"value\": \"%d\"," +
-            "          \"highValue\": \"%d\"" +
-            "        }" +
-            "      ]" +
-            "    }" +
-            "  ]," +
-            "  \"properties\": [\"start_date\", \"end_date\", \"fte_s_\"], " +
-            "  \"after\": \"%s\"" +
-            "}";
-
-        Collection<JSONObject> allProperties = new ArrayList<>();
-        String after = null;
+        // Each weekly start_date window is a search of its own, so that the windows are paged through concurrently.
+        // HubSpot accepts ISO-8601 dates (yyyy-MM-dd) for date properties as well as epoch milliseconds, so the
+        // windows are filled in as the ISO dates that byDateWindows produces instead of being converted to epochs.
+        String payload = "{\"after\": \"\", \"filterGroups\": [{\"filters\": ["
+                + "{\"propertyName\": \"start_date\", \"operator\": \"GTE\", \"value\": \"${from}\"}, "
+                + "{\"propertyName\": \"start_date\", \"operator\": \"LT\", \"value\": \"${to}\"}]}]}";
+        RestAPIPartitioning partitioning = RestAPIPartitioning.byDateWindows(
+                "from", "to", filterMonth.atDay(1), filterMonth.plusMonths(1).atDay(1), Period.ofWeeks(1)
+        ).inTemplate();
+        RestAPIPagination pagination = RestAPIPagination
+                .inBodyField("paging.next.after", "after")
+                .withRecordsPath("results")
+                .withTotalPath("total")
+                .withPrefetchDepth(2);
+        // The dialect writes the properties into the search body; the windows above already restrict start_date.
+        RestAPISource hubspotSource = new RestAPISource(urlHubspot, apiMethod, headers, payload);
+        hubspotSource.setPartitioning(partitioning);
+        hubspotSource.setMaxConcurrency(partitioning.getNumPartitions());
+        hubspotSource.setPagination(pagination);
+        hubspotSource.setProjection(Arrays.asList("properties.start_date", "properties.end_date", "properties.fte_s_"));
+        hubspotSource.setDialect(new HubSpotDialect());
 
         try {
-            while (moreResults) {
-                String payload = after == null
-                    ? String.format(payloadTemplate, startOfMonthEpoch, endOfMonthEpoch, "")
-                    : String.format(payloadTemplate, startOfMonthEpoch, endOfMonthEpoch, after);
-
-                Collection<JSONObject> rawResponse = planBuilder
-                        .readRestAPISource(currentUrlHubspot, apiMethod, headers, payload)
-                        .collect();
-
-                for (JSONObject jsonObject : rawResponse) {
-                    if (jsonObject.has("results")) {
-                        JSONArray resultsArray = jsonObject.getJSONArray("results");
-
-                        for (int i = 0; i < resultsArray.length(); i++) {
-                            JSONObject resultObject = resultsArray.optJSONObject(i);
-                            if (resultObject != null && resultObject.has("properties")) {
-                                allProperties.add(resultObject.getJSONObject("properties"));
-                            }
-                        }
-                    }
-                }
-
-                log.info("Fetched {} responses in this page", rawResponse.size());
-
-                // Extract pagination token
-                after = extractAfterToken(rawResponse);
-                if (after == null || after.isEmpty()) {
-                    moreResults = false;
-                } else {
-                }
-            }
-
-
-            long starttime_h = System.currentTimeMillis();
+            Collection<JSONObject> allProperties = planBuilder
+                .readRestAPISource(hubspotSource)
+                .filter(deal -> deal.has("properties"))
+                .map(deal -> deal.getJSONObject("properties"))
+                .collect();
+            log.info("Fetched {} deals", allProperties.size());
+
+            // As before, the query time covers the aggregation only; the fetch is in the API latency log.
+            long starttime_h = System.nanoTime();
             Collection<Double> fteCollection = planBuilder
-                .loadCollection(allProperties) 
+                .loadCollection(allProperties)
                 .filter(obj -> obj.has("start_date") && !obj.isNull("start_date") &&
                             obj.has("end_date") && !obj.isNull("end_date") &&
                             obj.has("fte_s_") && !obj.isNull("fte_s_")) 
@@ -338,7 +288,7 @@ public class PipelinePOST {
                 
             totalFTEs = fteCollection.isEmpty() ? 0.0 : fteCollection.iterator().next();
 
-            long endtime_h = System.currentTimeMillis();
+            long endtime_h = System.nanoTime();
             logQueryTime(starttime_h, endtime_h, "HubSpot Query");
 
         } catch (Exception e) {
@@ -347,17 +297,4 @@ public class PipelinePOST {
 
         return totalFTEs; 
         }
-
-    private static String extractAfterToken(Collection<JSONObject> rawResponse) {
-        for (JSONObject jsonObject : rawResponse) {
-            if (jsonObject.has("paging")) {  
-                JSONObject paging = jsonObject.getJSONObject("paging");
-                if (paging.has("next")) {    
-                    JSONObject next = paging.getJSONObject("next");
-                    return next.getString("after"); 
-                }
-            }
-        }
-        return null; 
-    }
 }
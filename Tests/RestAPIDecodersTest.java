@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.rest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test suite for the projections of the {@link RestAPIDecoder}s in {@link RestAPIDecoders}.
+ */
+public class RestAPIDecodersTest {
+
+    private static final Set<String> PROJECTION = Collections.singleton("a");
+
+    @Test
+    public void testProjectsJson() {
+        JSONArray records = RestAPIDecoders.forFormat(RestAPIDecoders.JSON).project(PROJECTION)
+                .decode("[{\"a\": 1, \"b\": 2}, {\"a\": 3, \"b\": 4}]");
+
+        this.assertProjected(records);
+    }
+
+    @Test
+    public void testProjectsCsv() {
+        JSONArray records = RestAPIDecoders.forFormat(RestAPIDecoders.CSV).project(PROJECTION)
+                .decode("a,b\n1,2\n3,4\n");
+
+        this.assertProjected(records);
+    }
+
+    @Test
+    public void testProjectsNdjson() throws Exception {
+        String body = "{\"a\": 1, \"b\": 2}\n{\"a\": 3, \"b\": 4}\n";
+        RestAPIDecoder decoder = RestAPIDecoders.forFormat(RestAPIDecoders.NDJSON).project(PROJECTION);
+
+        this.assertProjected(decoder.decode(body));
+        try (Stream<JSONObject> stream = decoder.stream(new BufferedReader(new StringReader(body)), () -> { })) {
+            List<JSONObject> records = stream.collect(Collectors.toList());
+            this.assertProjected(new JSONArray(records));
+        }
+    }
+
+    @Test
+    public void testKeepsAllNdjsonFieldsWithoutProjection() {
+        JSONArray records = RestAPIDecoders.forFormat(RestAPIDecoders.NDJSON).decode("{\"a\": 1, \"b\": 2}\n");
+
+        Assert.assertEquals(1, records.length());
+        Assert.assertEquals(2, records.getJSONObject(0).length());
+    }
+
+    private void assertProjected(JSONArray records) {
+        Assert.assertEquals(2, records.length());
+        for (int i = 0; i < records.length(); i++) {
+            JSONObject record = records.getJSONObject(i);
+            Assert.assertEquals(Collections.singleton("a"), record.keySet());
+        }
+        Assert.assertEquals("1", String.valueOf(records.getJSONObject(0).get("a")));
+        Assert.assertEquals("3", String.valueOf(records.getJSONObject(1).get("a")));
+    }
+}
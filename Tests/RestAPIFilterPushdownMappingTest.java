@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.basic.mapping;
+
+import org.apache.wayang.basic.operators.FilterOperator;
+import org.apache.wayang.basic.operators.LocalCallbackSink;
+import org.apache.wayang.basic.operators.RestAPISource;
+import org.apache.wayang.basic.rest.RestAPIDialect;
+import org.apache.wayang.basic.rest.RestAPIPredicate;
+import org.apache.wayang.basic.rest.RestAPIRequest;
+import org.apache.wayang.core.function.PredicateDescriptor;
+import org.apache.wayang.core.mapping.PlanTransformation;
+import org.apache.wayang.core.plan.wayangplan.Operator;
+import org.apache.wayang.core.plan.wayangplan.WayangPlan;
+import org.apache.wayang.core.types.DataSetType;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Test suite for {@link RestAPIFilterPushdownMapping}.
+ */
+public class RestAPIFilterPushdownMappingTest {
+
+    /**
+     * Writes equality predicates into the query string and rejects all other predicates.
+     */
+    private static class EqualityDialect implements RestAPIDialect {
+
+        @Override
+        public Optional<RestAPIRequest> pushDown(RestAPIRequest request, RestAPIPredicate predicate) {
+            if (predicate.getOperator() != RestAPIPredicate.Operator.EQ) return Optional.empty();
+            String apiURL = String.format("%s%s%s=%s", request.getAPIURL(),
+                    request.getAPIURL().contains("?") ? "&" : "?", predicate.getField(), predicate.getValue());
+            return Optional.of(request.withURLAndPayload(apiURL, request.getPayload()));
+        }
+    }
+
+    @Test
+    public void testPushesDownAcceptedPredicate() {
+        RestAPIPredicate predicate = RestAPIPredicate.eq("status", "open");
+        LocalCallbackSink<JSONObject> sink = this.createPlan(new EqualityDialect(), predicate);
+
+        this.transform(sink);
+
+        Operator producer = sink.getInput(0).getOccupant().getOwner();
+        Assert.assertTrue(producer instanceof RestAPISource);
+        RestAPISource source = (RestAPISource) producer;
+        Assert.assertEquals(Collections.singletonList(predicate), source.getPredicates());
+        Assert.assertEquals("http://localhost/tickets?status=open", source.getRequests().get(0).getAPIURL());
+    }
+
+    @Test
+    public void testKeepsFilterForRejectedPredicate() {
+        RestAPIPredicate predicate = RestAPIPredicate.gt("priority", 2);
+        LocalCallbackSink<JSONObject> sink = this.createPlan(new EqualityDialect(), predicate);
+
+        this.transform(sink);
+
+        Operator producer = sink.getInput(0).getOccupant().getOwner();
+        Assert.assertTrue(producer instanceof FilterOperator);
+        Operator source = producer.getInput(0).getOccupant().getOwner();
+        Assert.assertTrue(((RestAPISource) source).getPredicates().isEmpty());
+    }
+
+    @Test
+    public void testKeepsFilterWithoutDialect() {
+        LocalCallbackSink<JSONObject> sink = this.createPlan(null, RestAPIPredicate.eq("status", "open"));
+
+        this.transform(sink);
+
+        Assert.assertTrue(sink.getInput(0).getOccupant().getOwner() instanceof FilterOperator);
+    }
+
+    private LocalCallbackSink<JSONObject> createPlan(RestAPIDialect dialect, RestAPIPredicate predicate) {
+        RestAPISource source = new RestAPISource("http://localhost/tickets", "GET", "", "");
+        source.setDialect(dialect);
+        FilterOperator<JSONObject> filter = new FilterOperator<>(
+                new PredicateDescriptor<>(predicate, JSONObject.class), DataSetType.createDefault(JSONObject.class)
+        );
+        List<JSONObject> collector = new ArrayList<>();
+        LocalCallbackSink<JSONObject> sink = LocalCallbackSink.createCollectingSink(
+                collector, DataSetType.createDefault(JSONObject.class)
+        );
+        source.connectTo(0, filter, 0);
+        filter.connectTo(0, sink, 0);
+        return sink;
+    }
+
+    private void transform(LocalCallbackSink<JSONObject> sink) {
+        WayangPlan plan = new WayangPlan(sink);
+        for (PlanTransformation transformation : new RestAPIFilterPushdownMapping().getTransformations()) {
+            transformation.transform(plan, Operator.FIRST_EPOCH + 1);
+        }
+    }
+}
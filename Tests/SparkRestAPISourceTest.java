@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.wayang.spark.operators;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.wayang.basic.operators.LocalCallbackSink;
+import org.apache.wayang.basic.operators.RestAPISource;
+import org.apache.wayang.basic.rest.RestAPIClient;
+import org.apache.wayang.basic.rest.RestAPIPartitioning;
+import org.apache.wayang.core.api.Configuration;
+import org.apache.wayang.core.api.WayangContext;
+import org.apache.wayang.core.plan.wayangplan.WayangPlan;
+import org.apache.wayang.core.types.DataSetType;
+import org.apache.wayang.spark.Spark;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test suite for {@link SparkRestAPISource}, which runs on a local Spark context against an in-process HTTP server.
+ */
+public class SparkRestAPISourceTest {
+
+    private static final int NUM_PAGES = 8;
+
+    private static final int RECORDS_PER_PAGE = 3;
+
+    private HttpServer server;
+
+    private final Map<String, AtomicInteger> numRequestsPerPage = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/records", exchange -> {
+            String page = exchange.getRequestURI().getQuery().replace("page=", "");
+            this.numRequestsPerPage.computeIfAbsent(page, key -> new AtomicInteger()).incrementAndGet();
+            StringBuilder body = new StringBuilder("[");
+            for (int i = 0; i < RECORDS_PER_PAGE; i++) {
+                if (i > 0) body.append(',');
+                body.append(String.format("{\"page\": %s, \"index\": %d, \"nested\": {\"values\": [1, 2]}}", page, i));
+            }
+            byte[] bytes = body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        this.server.start();
+    }
+
+    @After
+    public void tearDown() {
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testFetchesPartitionsAndCollectsRecords() {
+        String apiURL = String.format("http://127.0.0.1:%d/records", this.server.getAddress().getPort());
+        RestAPISource source = new RestAPISource(apiURL, "GET", "", null);
+        source.setPartitioning(RestAPIPartitioning.byPages("page", 1, NUM_PAGES));
+        List<JSONObject> records = new ArrayList<>();
+        LocalCallbackSink<JSONObject> sink = LocalCallbackSink.createCollectingSink(
+                records, DataSetType.createDefault(JSONObject.class)
+        );
+        source.connectTo(0, sink, 0);
+
+        Configuration configuration = new Configuration();
+        configuration.setProperty("spark.master", "local[*]");
+        configuration.setProperty(SparkRestAPISource.MAX_PARTITIONS_KEY, "4");
+        configuration.setProperty(RestAPIClient.HEDGE_PERCENTILE_KEY, "0");
+        new WayangContext(configuration).withPlugin(Spark.basicPlugin()).execute(new WayangPlan(sink));
+
+        // Collecting the records requires them to be serializable.
+        Assert.assertEquals(NUM_PAGES * RECORDS_PER_PAGE, records.size());
+        Set<Integer> pages = new TreeSet<>();
+        for (JSONObject record : records) {
+            pages.add(record.getInt("page"));
+            Assert.assertEquals(2, record.getJSONObject("nested").getJSONArray("values").length());
+        }
+        Assert.assertEquals(NUM_PAGES, pages.size());
+        for (AtomicInteger numRequests : this.numRequestsPerPage.values()) {
+            Assert.assertEquals(1, numRequests.get());
+        }
+    }
+
+    @Test
+    public void testShipsSettingsAndSplitsRateLimit() {
+        Configuration configuration = new Configuration();
+        configuration.setProperty(RestAPIClient.RATE_LIMIT_KEY, "8");
+        configuration.setProperty(RestAPIClient.DEADLINE_KEY, "1234");
+
+        Map<String, String> settings = SparkRestAPISource.getExecutorSettings(configuration, 4);
+
+        Assert.assertEquals(2d, Double.parseDouble(settings.get(RestAPIClient.RATE_LIMIT_KEY)), 0d);
+        Assert.assertEquals("1234", settings.get(RestAPIClient.DEADLINE_KEY));
+    }
+}